@@ -0,0 +1,128 @@
+package dandastino.chess.analysisQueue;
+
+import dandastino.chess.engine.AnalysisJobStatus;
+import jakarta.persistence.*;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * A game analysis job in the queue shared by every application node.
+ * A node claims a queued entry, holds a lease on it while it runs and renews the lease with
+ * heartbeats; an entry whose lease runs out goes back to the queue for another node.
+ * Entries are inserted, claimed and updated with SQL in AnalysisQueueService, using the database clock;
+ * the timestamps are timestamptz, so they denote the same instant whatever the time zone of the reading node.
+ */
+@Entity
+@Table(name="analysis_queue", indexes = {
+        @Index(name = "idx_analysis_queue_claim", columnList = "status, available_at"),
+        @Index(name = "idx_analysis_queue_user", columnList = "user_id"),
+        @Index(name = "idx_analysis_queue_game", columnList = "game_id")
+})
+public class AnalysisQueueEntry {
+
+    @Id
+    @Column(name = "job_id")
+    private UUID job_id;
+    @Column(name = "game_id", nullable = false)
+    private UUID game_id;
+    @Column(name = "user_id", nullable = false)
+    private UUID user_id;
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private AnalysisJobStatus status;
+    @Column(name = "attempts")
+    private int attempts;
+    @Column(name = "available_at")
+    private OffsetDateTime available_at; // not claimed before this time (retry backoff)
+    @Column(name = "lease_owner")
+    private String lease_owner; // node running the job
+    @Column(name = "lease_expires_at")
+    private OffsetDateTime lease_expires_at;
+    @Column(name = "heartbeat_at")
+    private OffsetDateTime heartbeat_at;
+    @Column(name = "cancel_requested")
+    private boolean cancel_requested;
+    @Column(name = "positions_evaluated")
+    private int positions_evaluated;
+    @Column(name = "positions_total")
+    private int positions_total;
+    @Column(name = "error", length = 1024)
+    private String error;
+    @Column(name = "submitted_at")
+    private OffsetDateTime submitted_at;
+    @Column(name = "started_at")
+    private OffsetDateTime started_at;
+    @Column(name = "finished_at")
+    private OffsetDateTime finished_at;
+
+    public AnalysisQueueEntry(){}
+
+    public UUID getJob_id() {
+        return job_id;
+    }
+
+    public UUID getGame_id() {
+        return game_id;
+    }
+
+    public UUID getUser_id() {
+        return user_id;
+    }
+
+    public AnalysisJobStatus getStatus() {
+        return status;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public OffsetDateTime getAvailable_at() {
+        return available_at;
+    }
+
+    public String getLease_owner() {
+        return lease_owner;
+    }
+
+    public OffsetDateTime getLease_expires_at() {
+        return lease_expires_at;
+    }
+
+    public OffsetDateTime getHeartbeat_at() {
+        return heartbeat_at;
+    }
+
+    public boolean isCancel_requested() {
+        return cancel_requested;
+    }
+
+    public int getPositions_evaluated() {
+        return positions_evaluated;
+    }
+
+    public int getPositions_total() {
+        return positions_total;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public OffsetDateTime getSubmitted_at() {
+        return submitted_at;
+    }
+
+    public OffsetDateTime getStarted_at() {
+        return started_at;
+    }
+
+    public OffsetDateTime getFinished_at() {
+        return finished_at;
+    }
+
+    public boolean isActive() {
+        return status == AnalysisJobStatus.queued || status == AnalysisJobStatus.running;
+    }
+}
@@ -0,0 +1,26 @@
+package dandastino.chess.analysisQueue;
+
+import dandastino.chess.engine.AnalysisJobStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface AnalysisQueueRepository extends JpaRepository<AnalysisQueueEntry, UUID> {
+    @Query("SELECT e FROM AnalysisQueueEntry e WHERE e.game_id = :gameId AND e.status IN :statuses")
+    List<AnalysisQueueEntry> findByGameIdAndStatusIn(@Param("gameId") UUID gameId, @Param("statuses") Collection<AnalysisJobStatus> statuses);
+
+    @Query("SELECT COUNT(e) FROM AnalysisQueueEntry e WHERE e.user_id = :userId AND e.status IN :statuses")
+    long countByUserIdAndStatusIn(@Param("userId") UUID userId, @Param("statuses") Collection<AnalysisJobStatus> statuses);
+
+    @Query("SELECT COUNT(e) FROM AnalysisQueueEntry e WHERE e.status = :status")
+    long countByStatus(@Param("status") AnalysisJobStatus status);
+
+    @Query("SELECT e FROM AnalysisQueueEntry e WHERE e.user_id = :userId ORDER BY e.submitted_at DESC")
+    List<AnalysisQueueEntry> findByUserId(@Param("userId") UUID userId);
+}
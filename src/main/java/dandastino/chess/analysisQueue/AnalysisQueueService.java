@@ -0,0 +1,279 @@
+package dandastino.chess.analysisQueue;
+
+import dandastino.chess.engine.AnalysisJobStatus;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Database-backed queue of game analyses shared by every application node, with no broker in between.
+ * Nodes claim the oldest available entry with SELECT ... FOR UPDATE SKIP LOCKED, so two nodes never
+ * claim the same entry and never wait on each other. A claim is a lease: the owner renews it with
+ * heartbeats, and an entry whose lease expires (the node died or hung) is queued again for another node.
+ * All timestamps come from the database clock and are stored as timestamptz, so nodes with skewed
+ * clocks or different JVM time zones (pgjdbc sets the session time zone from the JVM's) agree on lease expiry.
+ */
+@Service
+public class AnalysisQueueService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AnalysisQueueService.class);
+
+    private static final List<AnalysisJobStatus> ACTIVE = List.of(AnalysisJobStatus.queued, AnalysisJobStatus.running);
+
+    // At most one queued or running entry per game across the cluster
+    private static final String ACTIVE_GAME_INDEX_SQL =
+            "CREATE UNIQUE INDEX IF NOT EXISTS uq_analysis_queue_active_game ON analysis_queue (game_id) " +
+            "WHERE status IN ('queued', 'running')";
+
+    private static final String TIMESTAMP_COLUMNS_SQL =
+            "SELECT column_name FROM information_schema.columns WHERE table_name = 'analysis_queue' " +
+            "AND data_type = 'timestamp without time zone'";
+
+    private static final String INSERT_SQL =
+            "INSERT INTO analysis_queue (job_id, game_id, user_id, status, attempts, available_at, cancel_requested, " +
+            "positions_evaluated, positions_total, submitted_at) " +
+            "VALUES (?, ?, ?, 'queued', 0, now(), FALSE, 0, 0, now())";
+
+    private static final String CLAIM_SQL =
+            "UPDATE analysis_queue SET status = 'running', lease_owner = ?, " +
+            "lease_expires_at = now() + ? * INTERVAL '1 millisecond', heartbeat_at = now(), " +
+            "started_at = now(), attempts = attempts + 1, positions_evaluated = 0, positions_total = 0 " +
+            "WHERE job_id = (" +
+            "SELECT job_id FROM analysis_queue WHERE status = 'queued' AND available_at <= now() " +
+            "ORDER BY submitted_at LIMIT 1 FOR UPDATE SKIP LOCKED) " +
+            "RETURNING job_id, game_id, user_id, submitted_at, attempts";
+
+    private static final String HEARTBEAT_SQL =
+            "UPDATE analysis_queue SET lease_expires_at = now() + ? * INTERVAL '1 millisecond', " +
+            "heartbeat_at = now(), positions_evaluated = ?, positions_total = ? " +
+            "WHERE job_id = ? AND lease_owner = ? AND status = 'running' " +
+            "RETURNING cancel_requested";
+
+    private static final String FINISH_SQL =
+            "UPDATE analysis_queue SET status = ?, error = ?, finished_at = now(), " +
+            "lease_owner = NULL, lease_expires_at = NULL " +
+            "WHERE job_id = ? AND lease_owner = ?";
+
+    // Failed attempts go back to the queue with exponential backoff until the attempts run out
+    private static final String RETRY_SQL =
+            "UPDATE analysis_queue SET " +
+            "status = CASE WHEN cancel_requested THEN 'cancelled' WHEN attempts >= ? THEN 'failed' ELSE 'queued' END, " +
+            "finished_at = CASE WHEN cancel_requested OR attempts >= ? THEN now() END, " +
+            "available_at = now() + ? * POWER(2, attempts - 1) * INTERVAL '1 millisecond', " +
+            "error = ?, lease_owner = NULL, lease_expires_at = NULL " +
+            "WHERE job_id = ? AND lease_owner = ?";
+
+    private static final String EXPIRED_LEASES_SQL =
+            "UPDATE analysis_queue SET " +
+            "status = CASE WHEN cancel_requested THEN 'cancelled' WHEN attempts >= ? THEN 'failed' ELSE 'queued' END, " +
+            "finished_at = CASE WHEN cancel_requested OR attempts >= ? THEN now() END, " +
+            "available_at = now(), error = 'The node running this analysis stopped responding', " +
+            "lease_owner = NULL, lease_expires_at = NULL " +
+            "WHERE status = 'running' AND lease_expires_at < now()";
+
+    // A node shutting down hands its running entries back without spending an attempt
+    private static final String RELEASE_LEASES_SQL =
+            "UPDATE analysis_queue SET status = 'queued', attempts = GREATEST(attempts - 1, 0), " +
+            "available_at = now(), lease_owner = NULL, lease_expires_at = NULL " +
+            "WHERE lease_owner = ? AND status = 'running'";
+
+    private static final String CANCEL_SQL =
+            "UPDATE analysis_queue SET cancel_requested = TRUE, " +
+            "finished_at = CASE WHEN status = 'queued' THEN now() ELSE finished_at END, " +
+            "status = CASE WHEN status = 'queued' THEN 'cancelled' ELSE status END " +
+            "WHERE job_id = ? AND user_id = ? AND status IN ('queued', 'running')";
+
+    private static final String EVICT_SQL =
+            "DELETE FROM analysis_queue WHERE status IN ('done', 'failed', 'cancelled') " +
+            "AND finished_at < now() - ? * INTERVAL '1 minute'";
+
+    @Autowired
+    private AnalysisQueueRepository analysisQueueRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${stockfish.queue.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${stockfish.queue.retry-backoff-ms:5000}")
+    private long retryBackoffMs;
+
+    @PostConstruct
+    public void updateSchema() {
+        convertTimestampColumns();
+        try {
+            jdbcTemplate.execute(ACTIVE_GAME_INDEX_SQL);
+        } catch (Exception e) {
+            logger.warn("Could not create the active game index of the analysis queue: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Convert the timestamps of tables created when they were local times to timestamptz.
+     * Existing values are read in the session time zone of the node doing the conversion.
+     */
+    private void convertTimestampColumns() {
+        try {
+            List<String> columns = jdbcTemplate.queryForList(TIMESTAMP_COLUMNS_SQL, String.class);
+            if (columns.isEmpty()) {
+                return;
+            }
+            String alterations = columns.stream()
+                    .map(column -> "ALTER COLUMN " + column + " TYPE timestamptz")
+                    .collect(Collectors.joining(", "));
+            jdbcTemplate.execute("ALTER TABLE analysis_queue " + alterations);
+            logger.info("Converted {} timestamp columns of the analysis queue to timestamptz", columns.size());
+        } catch (Exception e) {
+            logger.warn("Could not convert the timestamps of the analysis queue to timestamptz: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Queue the analysis of a game. If the game is already queued or running, on any node,
+     * the existing entry is returned instead.
+     */
+    public AnalysisQueueEntry enqueue(UUID gameId, UUID userId) {
+        Optional<AnalysisQueueEntry> active = findActiveForGame(gameId);
+        if (active.isPresent()) {
+            return active.get();
+        }
+        UUID jobId = UUID.randomUUID();
+        try {
+            jdbcTemplate.update(INSERT_SQL, jobId, gameId, userId);
+        } catch (DuplicateKeyException e) {
+            // Another node queued the same game in the meantime
+            return findActiveForGame(gameId).orElseThrow(() -> e);
+        }
+        return analysisQueueRepository.findById(jobId).orElseThrow();
+    }
+
+    public Optional<AnalysisQueueEntry> findActiveForGame(UUID gameId) {
+        return analysisQueueRepository.findByGameIdAndStatusIn(gameId, ACTIVE).stream().findFirst();
+    }
+
+    public long countActiveForUser(UUID userId) {
+        return analysisQueueRepository.countByUserIdAndStatusIn(userId, ACTIVE);
+    }
+
+    public long countQueued() {
+        return analysisQueueRepository.countByStatus(AnalysisJobStatus.queued);
+    }
+
+    /**
+     * The entry with this id if it belongs to the user
+     */
+    public Optional<AnalysisQueueEntry> find(UUID jobId, UUID userId) {
+        return analysisQueueRepository.findById(jobId).filter(entry -> entry.getUser_id().equals(userId));
+    }
+
+    /**
+     * Entries of a user, newest first
+     */
+    public List<AnalysisQueueEntry> findForUser(UUID userId) {
+        return analysisQueueRepository.findByUserId(userId);
+    }
+
+    /**
+     * Claim the oldest available entry for this node, or return null if the queue is empty
+     */
+    public ClaimedJob claimNext(String nodeId, long leaseMs) {
+        List<ClaimedJob> claimed = jdbcTemplate.query(CLAIM_SQL, (rs, rowNum) -> new ClaimedJob(
+                rs.getObject("job_id", UUID.class),
+                rs.getObject("game_id", UUID.class),
+                rs.getObject("user_id", UUID.class),
+                toLocal(rs.getObject("submitted_at", OffsetDateTime.class)),
+                rs.getInt("attempts")), nodeId, leaseMs);
+        return claimed.isEmpty() ? null : claimed.get(0);
+    }
+
+    /**
+     * Renew the lease of a running entry and publish its progress
+     * @return the lease state seen by the database
+     */
+    public Heartbeat heartbeat(UUID jobId, String nodeId, long leaseMs, int positionsEvaluated, int positionsTotal) {
+        List<Boolean> cancelRequested = jdbcTemplate.query(HEARTBEAT_SQL, (rs, rowNum) -> rs.getBoolean(1),
+                leaseMs, positionsEvaluated, positionsTotal, jobId, nodeId);
+        if (cancelRequested.isEmpty()) {
+            return Heartbeat.LEASE_LOST;
+        }
+        return cancelRequested.get(0) ? Heartbeat.CANCEL_REQUESTED : Heartbeat.OK;
+    }
+
+    /**
+     * Record the final state of an entry this node holds the lease of
+     */
+    public void finish(UUID jobId, String nodeId, AnalysisJobStatus status, String error) {
+        jdbcTemplate.update(FINISH_SQL, status.name(), truncate(error), jobId, nodeId);
+    }
+
+    /**
+     * Queue a failed entry again after a backoff, or mark it failed once it has used all its attempts
+     */
+    public void retryOrFail(UUID jobId, String nodeId, String error) {
+        jdbcTemplate.update(RETRY_SQL, maxAttempts, maxAttempts, retryBackoffMs, truncate(error), jobId, nodeId);
+    }
+
+    /**
+     * Queue again every running entry whose owner stopped renewing its lease
+     * @return the number of entries taken back
+     */
+    public int requeueExpiredLeases() {
+        int requeued = jdbcTemplate.update(EXPIRED_LEASES_SQL, maxAttempts, maxAttempts);
+        if (requeued > 0) {
+            logger.warn("Took back {} analysis jobs whose lease expired", requeued);
+        }
+        return requeued;
+    }
+
+    /**
+     * Hand every entry leased by this node back to the queue
+     */
+    public int releaseLeases(String nodeId) {
+        return jdbcTemplate.update(RELEASE_LEASES_SQL, nodeId);
+    }
+
+    /**
+     * Cancel a queued or running entry of the user. A queued entry is cancelled at once,
+     * a running one is stopped by its owner at the next heartbeat.
+     * @return whether an active entry was found
+     */
+    public boolean requestCancel(UUID jobId, UUID userId) {
+        return jdbcTemplate.update(CANCEL_SQL, jobId, userId) > 0;
+    }
+
+    public int evictFinished(long retentionMinutes) {
+        return jdbcTemplate.update(EVICT_SQL, retentionMinutes);
+    }
+
+    /**
+     * A queue timestamp as a local time of this node, as shown in job responses
+     */
+    public static LocalDateTime toLocal(OffsetDateTime timestamp) {
+        return timestamp != null ? timestamp.atZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime() : null;
+    }
+
+    private String truncate(String error) {
+        return error != null && error.length() > 1024 ? error.substring(0, 1024) : error;
+    }
+
+    public enum Heartbeat { OK, CANCEL_REQUESTED, LEASE_LOST }
+
+    /**
+     * An entry claimed by this node
+     */
+    public record ClaimedJob(UUID jobId, UUID gameId, UUID userId, LocalDateTime submittedAt, int attempts) {}
+}
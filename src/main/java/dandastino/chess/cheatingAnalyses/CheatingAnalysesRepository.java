@@ -15,4 +15,8 @@ public interface CheatingAnalysesRepository extends JpaRepository<CheatingAnalys
 
     @Query("SELECT ca FROM CheatingAnalysis ca WHERE ca.cheating_user.user_id = :userId")
     List<CheatingAnalysis> findByUserId(@Param("userId") UUID userId);
+
+    @Query("SELECT ca FROM CheatingAnalysis ca WHERE ca.cheating_user.user_id = :userId " +
+            "AND ca.suspicion_score >= :minScore ORDER BY ca.suspicion_score DESC")
+    List<CheatingAnalysis> findSuspiciousByUserId(@Param("userId") UUID userId, @Param("minScore") double minScore);
 }
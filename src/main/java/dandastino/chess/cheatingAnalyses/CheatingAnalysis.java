@@ -8,7 +8,12 @@ import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Entity
-@Table(name="cheating_analyses")
+@Table(name="cheating_analyses", indexes = {
+        // One analysis per player and game: written with INSERT ... ON CONFLICT (game_id, user_id)
+        @Index(name = "idx_cheating_analyses_game_user", columnList = "game_id, user_id", unique = true),
+        @Index(name = "idx_cheating_analyses_user_score", columnList = "user_id, suspicion_score, cheating_analisys_id"),
+        @Index(name = "idx_cheating_analyses_score", columnList = "suspicion_score, cheating_analisys_id")
+})
 public class CheatingAnalysis {
 
     @Id
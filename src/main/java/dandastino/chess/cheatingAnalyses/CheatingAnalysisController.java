@@ -2,11 +2,19 @@ package dandastino.chess.cheatingAnalyses;
 
 import dandastino.chess.exceptions.ValidationException;
 import org.springframework.context.support.DefaultMessageSourceResolvable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.UUID;
 
@@ -15,9 +23,14 @@ import java.util.UUID;
 public class CheatingAnalysisController {
 
     private final CheatingAnalysisService cheatingAnalysisService;
+    private final LiveCheatingDetector liveCheatingDetector;
+    private final CheatingRescanService cheatingRescanService;
 
-    public CheatingAnalysisController(CheatingAnalysisService cheatingAnalysisService) {
+    public CheatingAnalysisController(CheatingAnalysisService cheatingAnalysisService, LiveCheatingDetector liveCheatingDetector,
+                                      CheatingRescanService cheatingRescanService) {
         this.cheatingAnalysisService = cheatingAnalysisService;
+        this.liveCheatingDetector = liveCheatingDetector;
+        this.cheatingRescanService = cheatingRescanService;
     }
 
     @GetMapping
@@ -56,9 +69,92 @@ public class CheatingAnalysisController {
         return cheatingAnalysisService.getCheatingAnalysesByGame(gameId);
     }
 
+    @GetMapping("/live/{game_id}")
+    public List<LiveCheatingSignalDTO> getLiveSignals(@PathVariable("game_id") UUID gameId) {
+        return liveCheatingDetector.getLiveSignals(gameId);
+    }
+
+    /**
+     * Re-score every finished game with the current weights, or resume the unfinished run.
+     * Returns 409 if the run is already going on another node.
+     */
+    @PostMapping("/rescan")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public CheatingRescanResponseDTO startRescan() {
+        return CheatingRescanService.toDTO(cheatingRescanService.start());
+    }
+
+    @GetMapping("/rescan")
+    public CheatingRescanResponseDTO getRescan() {
+        return CheatingRescanService.toDTO(cheatingRescanService.getLatest());
+    }
+
+    @DeleteMapping("/rescan")
+    public CheatingRescanResponseDTO cancelRescan() {
+        return CheatingRescanService.toDTO(cheatingRescanService.cancel());
+    }
+
     @GetMapping("/user/{user_id}")
     public List<CheatingAnalysisResponseDTO> getCheatingAnalysesByUser(@PathVariable("user_id") UUID userId) {
         return cheatingAnalysisService.getCheatingAnalysesByUser(userId);
     }
-}
 
+    /**
+     * Moderation list: the most suspicious games across all players, one keyset page at a time
+     */
+    @GetMapping("/suspicious")
+    public SuspiciousGamesPageDTO getSuspiciousGames(@RequestParam(defaultValue = "0.6") double minScore,
+                                                     @RequestParam(required = false) Double afterScore,
+                                                     @RequestParam(required = false) UUID afterId,
+                                                     @RequestParam(required = false) Integer limit) {
+        return cheatingAnalysisService.getSuspiciousGames(null, minScore, afterScore, afterId, limit);
+    }
+
+    @GetMapping("/suspicious/export")
+    public ResponseEntity<StreamingResponseBody> exportSuspiciousGames(@RequestParam(defaultValue = "0.6") double minScore) {
+        return csvExport(null, minScore);
+    }
+
+    @GetMapping("/user/{user_id}/suspicious")
+    public SuspiciousGamesPageDTO getSuspiciousGamesOfUser(@PathVariable("user_id") UUID userId,
+                                                           @RequestParam(defaultValue = "0.6") double minScore,
+                                                           @RequestParam(required = false) Double afterScore,
+                                                           @RequestParam(required = false) UUID afterId,
+                                                           @RequestParam(required = false) Integer limit) {
+        return cheatingAnalysisService.getSuspiciousGames(userId, minScore, afterScore, afterId, limit);
+    }
+
+    @GetMapping("/user/{user_id}/suspicious/export")
+    public ResponseEntity<StreamingResponseBody> exportSuspiciousGamesOfUser(@PathVariable("user_id") UUID userId,
+                                                                             @RequestParam(defaultValue = "0.6") double minScore) {
+        return csvExport(userId, minScore);
+    }
+
+    /**
+     * Every matching analysis as CSV, written while it is read page by page
+     */
+    private ResponseEntity<StreamingResponseBody> csvExport(UUID userId, double minScore) {
+        StreamingResponseBody body = out -> {
+            BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            writer.write("cheating_analysis_id,game_id,user_id,match_accuracy_percentage,suspicion_score,created_at\n");
+            try {
+                cheatingAnalysisService.streamSuspiciousGames(userId, minScore, analysis -> {
+                    try {
+                        writer.write(analysis.cheatingAnalysisId() + "," + analysis.gameId() + "," + analysis.userId() + ","
+                                + analysis.matchAccuracyPerc() + "," + analysis.suspicionScore() + "," + analysis.createdAt() + "\n");
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                // The client went away
+                throw e.getCause();
+            }
+            writer.flush();
+        };
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_TYPE, "text/csv")
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"suspicious-games.csv\"")
+                .body(body);
+    }
+}
@@ -1,20 +1,58 @@
 package dandastino.chess.cheatingAnalyses;
 
+import dandastino.chess.exceptions.BadRequestException;
 import dandastino.chess.exceptions.NotFoundException;
 import dandastino.chess.games.Game;
 import dandastino.chess.games.GamesRepository;
 import dandastino.chess.users.User;
 import dandastino.chess.users.UsersRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 @Service
 public class CheatingAnalysisService {
 
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 200;
+    private static final int STREAM_PAGE_SIZE = 1000;
+
+    // Keyset cursor of the first page: above every score and every id
+    private static final double FIRST_SCORE = Double.MAX_VALUE;
+    private static final UUID FIRST_ID = new UUID(-1L, -1L);
+
+    // Suspicious games are read in (suspicion_score, id) order from the
+    // (user_id, suspicion_score, id) index for one player, the (suspicion_score, id) index for everyone;
+    // a page starts right after the last row of the previous one, so deep pages cost the same as the first
+    private static final String SUSPICIOUS_COLUMNS =
+            "SELECT cheating_analisys_id, game_id, user_id, match_accuracy_percentage, suspicion_score, created_at " +
+            "FROM cheating_analyses ";
+
+    private static final String SUSPICIOUS_OF_PLAYER_SQL = SUSPICIOUS_COLUMNS +
+            "WHERE user_id = ? AND suspicion_score >= ? AND (suspicion_score, cheating_analisys_id) < (?, ?) " +
+            "ORDER BY suspicion_score DESC, cheating_analisys_id DESC LIMIT ?";
+
+    private static final String SUSPICIOUS_SQL = SUSPICIOUS_COLUMNS +
+            "WHERE suspicion_score >= ? AND (suspicion_score, cheating_analisys_id) < (?, ?) " +
+            "ORDER BY suspicion_score DESC, cheating_analisys_id DESC LIMIT ?";
+
+    private static final RowMapper<CheatingAnalysisResponseDTO> SUSPICIOUS_ROW = (rs, rowNum) -> new CheatingAnalysisResponseDTO(
+            rs.getObject("cheating_analisys_id", UUID.class),
+            rs.getObject("game_id", UUID.class),
+            rs.getObject("user_id", UUID.class),
+            rs.getDouble("match_accuracy_percentage"),
+            rs.getDouble("suspicion_score"),
+            rs.getObject("created_at", LocalDateTime.class));
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     @Autowired
     private CheatingAnalysesRepository cheatingAnalysesRepository;
 
@@ -83,6 +121,57 @@ public class CheatingAnalysisService {
                 .toList();
     }
 
+    /**
+     * One page of the analyses at or above a suspicion score, most suspicious first
+     * @param userId the player, or null for every player
+     * @param afterScore score of the last analysis of the previous page, null for the first page
+     * @param afterId id of the last analysis of the previous page, null for the first page
+     * @param limit page size, capped at 200
+     */
+    public SuspiciousGamesPageDTO getSuspiciousGames(UUID userId, double minSuspicionScore, Double afterScore, UUID afterId, Integer limit) {
+        if ((afterScore == null) != (afterId == null)) {
+            throw new BadRequestException("afterScore and afterId must be given together");
+        }
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : limit;
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            throw new BadRequestException("limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        List<CheatingAnalysisResponseDTO> page = findSuspicious(userId, minSuspicionScore,
+                afterScore != null ? afterScore : FIRST_SCORE, afterId != null ? afterId : FIRST_ID, pageSize);
+        if (page.size() < pageSize) {
+            return new SuspiciousGamesPageDTO(page, null, null);
+        }
+        CheatingAnalysisResponseDTO last = page.get(page.size() - 1);
+        return new SuspiciousGamesPageDTO(page, last.suspicionScore(), last.cheatingAnalysisId());
+    }
+
+    /**
+     * Hand every analysis at or above a suspicion score to a consumer, most suspicious first.
+     * The rows are read page by page, so memory stays flat and no transaction is held open however many match.
+     * @param userId the player, or null for every player
+     */
+    public void streamSuspiciousGames(UUID userId, double minSuspicionScore, Consumer<CheatingAnalysisResponseDTO> consumer) {
+        double afterScore = FIRST_SCORE;
+        UUID afterId = FIRST_ID;
+        while (true) {
+            List<CheatingAnalysisResponseDTO> page = findSuspicious(userId, minSuspicionScore, afterScore, afterId, STREAM_PAGE_SIZE);
+            page.forEach(consumer);
+            if (page.size() < STREAM_PAGE_SIZE) {
+                return;
+            }
+            CheatingAnalysisResponseDTO last = page.get(page.size() - 1);
+            afterScore = last.suspicionScore();
+            afterId = last.cheatingAnalysisId();
+        }
+    }
+
+    private List<CheatingAnalysisResponseDTO> findSuspicious(UUID userId, double minSuspicionScore, double afterScore, UUID afterId, int limit) {
+        if (userId == null) {
+            return jdbcTemplate.query(SUSPICIOUS_SQL, SUSPICIOUS_ROW, minSuspicionScore, afterScore, afterId, limit);
+        }
+        return jdbcTemplate.query(SUSPICIOUS_OF_PLAYER_SQL, SUSPICIOUS_ROW, userId, minSuspicionScore, afterScore, afterId, limit);
+    }
+
     private CheatingAnalysisResponseDTO convertToDTO(CheatingAnalysis cheatingAnalysis) {
         return new CheatingAnalysisResponseDTO(
                 cheatingAnalysis.getCheating_analysis_id(),
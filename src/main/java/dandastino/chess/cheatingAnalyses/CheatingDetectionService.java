@@ -2,14 +2,20 @@ package dandastino.chess.cheatingAnalyses;
 
 import dandastino.chess.games.Game;
 import dandastino.chess.games.GamesRepository;
+import dandastino.chess.games.Status;
+import dandastino.chess.moveAnalyses.MoveAnalysis;
+import dandastino.chess.moveAnalyses.MoveAnalysisEngineService;
+import dandastino.chess.moveAnalyses.Review;
 import dandastino.chess.moves.Move;
 import dandastino.chess.users.User;
+import dandastino.chess.users.UserType;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.time.LocalDateTime;
 import java.util.*;
 
 /**
@@ -20,6 +26,37 @@ import java.util.*;
 public class CheatingDetectionService {
     
     private static final Logger logger = LoggerFactory.getLogger(CheatingDetectionService.class);
+
+    // Games in each of the two windows compared by the skill spike metric
+    private static final int SKILL_SPIKE_HISTORY_GAMES = 10;
+
+    // Replaces the player's analysis of the game if there is one, inserts it otherwise
+    private static final String UPSERT_SQL =
+            "INSERT INTO cheating_analyses (cheating_analisys_id, game_id, user_id, suspicion_score, " +
+            "match_accuracy_percentage, created_at) VALUES (?, ?, ?, ?, ?, LOCALTIMESTAMP) " +
+            "ON CONFLICT (game_id, user_id) DO UPDATE SET suspicion_score = EXCLUDED.suspicion_score, " +
+            "match_accuracy_percentage = EXCLUDED.match_accuracy_percentage, created_at = LOCALTIMESTAMP";
+
+    private static final String GAME_USER_INDEX_UNIQUE_SQL =
+            "SELECT i.indisunique FROM pg_index i JOIN pg_class c ON c.oid = i.indexrelid " +
+            "WHERE c.relname = 'idx_cheating_analyses_game_user'";
+
+    // Analyses that lose to a later analysis of the same player in the same game
+    private static final String DUPLICATES_CTE =
+            "WITH ranked AS (SELECT cheating_analisys_id AS id, FIRST_VALUE(cheating_analisys_id) OVER (" +
+            "PARTITION BY game_id, user_id ORDER BY created_at DESC NULLS LAST, cheating_analisys_id DESC) AS kept " +
+            "FROM cheating_analyses WHERE game_id IS NOT NULL AND user_id IS NOT NULL), " +
+            "duplicates AS (SELECT id, kept FROM ranked WHERE id <> kept) ";
+
+    // One-off migration of tables created when the (game_id, user_id) index was not unique. Each step can
+    // be repeated, so a migration interrupted half-way completes on the next start.
+    private static final String[] DEDUPLICATE_SQL = {
+            DUPLICATES_CTE + "UPDATE game_analysis_reports r SET cheating_analysis_id = d.kept FROM duplicates d " +
+                    "WHERE r.cheating_analysis_id = d.id",
+            DUPLICATES_CTE + "DELETE FROM cheating_analyses a USING duplicates d WHERE a.cheating_analisys_id = d.id",
+            "DROP INDEX IF EXISTS idx_cheating_analyses_game_user",
+            "CREATE UNIQUE INDEX IF NOT EXISTS idx_cheating_analyses_game_user ON cheating_analyses (game_id, user_id)"
+    };
     
     @Autowired
     private CheatingAnalysesRepository cheatingAnalysesRepository;
@@ -27,65 +64,80 @@ public class CheatingDetectionService {
     @Autowired
     private GamesRepository gamesRepository;
 
+    @Autowired
+    private LiveCheatingDetector liveCheatingDetector;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Make the (game_id, user_id) index unique on tables created before it was, removing duplicate analyses
+     */
+    @PostConstruct
+    public void ensureUniqueGameUserIndex() {
+        try {
+            List<Boolean> unique = jdbcTemplate.queryForList(GAME_USER_INDEX_UNIQUE_SQL, Boolean.class);
+            if (!unique.isEmpty() && Boolean.TRUE.equals(unique.get(0))) {
+                return;
+            }
+            // Keep the latest analysis of each player in each game, point the reports at it, then make the index unique
+            for (String sql : DEDUPLICATE_SQL) {
+                jdbcTemplate.execute(sql);
+            }
+            logger.info("Removed duplicate cheating analyses and made idx_cheating_analyses_game_user unique");
+        } catch (Exception e) {
+            logger.warn("Could not make the cheating analyses unique per game and player: {}", e.getMessage());
+        }
+    }
+
     /**
-     * Analyze a completed game for cheating indicators
+     * Analyze a completed game for cheating indicators.
+     * Both players are scored from the signals gathered during the game, or in one pass over the moves when
+     * those do not cover it, and both analyses are saved in one batched write.
+     * @return the more suspicious of the two players' analyses, null for games a bot played or if the analysis failed
      */
     public CheatingAnalysis analyzeGame(Game game, List<Move> moves) {
-        // Skip analysis for bot games - bots cannot cheat
-        if (game.getIsBotGame()) {
-            logger.info("Skipping cheating analysis for bot game {}", game.getGame_id());
-            // Return null or create a dummy non-suspicious analysis
-            return createCheatingAnalysis(game, 0.0, 0.0);
+        // Signals gathered while the game was played, if it was played on this node
+        SideSignals liveWhite = liveCheatingDetector.getSignals(game.getGame_id(), true);
+        SideSignals liveBlack = liveCheatingDetector.getSignals(game.getGame_id(), false);
+        if (game.getStatus() == Status.done) {
+            liveCheatingDetector.forget(game.getGame_id());
         }
-        
-        // Check if any player is a bot - skip analysis for human vs bot games
-        if ((game.getWhitePlayer() != null && game.getWhitePlayer().getType().equals(dandastino.chess.users.UserType.BOT)) ||
-            (game.getBlackPlayer() != null && game.getBlackPlayer().getType().equals(dandastino.chess.users.UserType.BOT))) {
+
+        // Bots cannot cheat, and a human playing a bot has no one to cheat against: nothing is saved
+        if (involvesBot(game)) {
             logger.info("Skipping cheating analysis for game {} - contains bot player", game.getGame_id());
-            return createCheatingAnalysis(game, 0.0, 0.0);
+            return null;
         }
-        
+
         // CRITICAL: Check if analysis already exists BEFORE any processing
         List<CheatingAnalysis> existingAnalyses = cheatingAnalysesRepository.findByGameId(game.getGame_id());
         if (!existingAnalyses.isEmpty()) {
             logger.info("Cheating analysis already exists for game {}", game.getGame_id());
-            return existingAnalyses.get(0); // Return existing analysis, never create duplicate
+            return mostSuspicious(existingAnalyses); // Return existing analysis, never create duplicate
         }
 
-        double suspicionScore = 0.0;
-        double matchAccuracy = 0.0;
-
         try {
             if (moves.isEmpty()) {
-                logger.info("No moves found for game {}, returning zero score analysis", game.getGame_id());
-                return createCheatingAnalysis(game, suspicionScore, matchAccuracy);
+                // Each player still gets a zero score, saved like any other
+                logger.info("No moves found for game {}, saving zero score analyses", game.getGame_id());
             }
 
-            // Calculate individual metrics
-            double engineAccuracy = calculateEngineAccuracy(moves);
-            double timingAnomaly = calculateTimingAnomaly(moves);
-            double skillSpike = calculateSkillSpike(game);
-            double moveComplexity = calculateMoveComplexity(moves);
-
-            // Weighted scoring
-            suspicionScore = (engineAccuracy * 0.4) +
-                           (timingAnomaly * 0.25) +
-                           (skillSpike * 0.2) +
-                           (moveComplexity * 0.15);
-
-            matchAccuracy = engineAccuracy;
-
-            logger.info("Game {} analysis: score={}, accuracy={}", 
-                       game.getGame_id(), suspicionScore, matchAccuracy);
+            List<CheatingScore> scores = scoreGame(game, moves, liveWhite, liveBlack);
+            for (CheatingScore score : scores) {
+                logger.info("Game {} analysis of player {}: score={}, accuracy={}",
+                           game.getGame_id(), score.userId(), score.suspicionScore(), score.matchAccuracy());
+            }
 
             // Double-check before saving (race condition protection)
             List<CheatingAnalysis> raceCheckAnalyses = cheatingAnalysesRepository.findByGameId(game.getGame_id());
             if (!raceCheckAnalyses.isEmpty()) {
                 logger.info("Race condition detected: analysis created while processing. Returning existing analysis.");
-                return raceCheckAnalyses.get(0);
+                return mostSuspicious(raceCheckAnalyses);
             }
 
-            return createCheatingAnalysis(game, suspicionScore, matchAccuracy);
+            saveScores(scores);
+            return mostSuspicious(cheatingAnalysesRepository.findByGameId(game.getGame_id()));
 
         } catch (Exception e) {
             logger.error("Error analyzing game {} for cheating: {}", game.getGame_id(), e.getMessage(), e);
@@ -96,116 +148,221 @@ public class CheatingDetectionService {
     }
 
     /**
-     * Calculate what percentage of moves match engine's best moves
+     * Score a game again after its move reviews changed, replacing the analyses its players already have.
+     * An earlier analysis was computed from the previous reviews, so unlike {@link #analyzeGame} it is not reused.
+     * @return the more suspicious of the two players' analyses, null for games a bot played or if the analysis failed
      */
-    private double calculateEngineAccuracy(List<Move> moves) {
-        if (moves.isEmpty()) return 0.0;
+    public CheatingAnalysis rescoreGame(Game game, List<Move> moves) {
+        SideSignals liveWhite = liveCheatingDetector.getSignals(game.getGame_id(), true);
+        SideSignals liveBlack = liveCheatingDetector.getSignals(game.getGame_id(), false);
+        if (game.getStatus() == Status.done) {
+            liveCheatingDetector.forget(game.getGame_id());
+        }
 
-        int engineMatches = 0;
-        
-        for (Move move : moves) {
-            // Check if move analysis exists and matches best move
-            if (move.getMoveAnalysis() != null) {
-                String bestMove = move.getMoveAnalysis().getBest_move();
-                if (bestMove != null && bestMove.equals(move.getSanMove())) {
-                    engineMatches++;
+        if (involvesBot(game)) {
+            logger.info("Skipping cheating analysis for game {} - contains bot player", game.getGame_id());
+            return null;
+        }
+
+        try {
+            List<CheatingScore> scores = scoreGame(game, moves, liveWhite, liveBlack);
+            saveScores(scores);
+            logger.info("Rescored game {} after its move reviews changed", game.getGame_id());
+            return mostSuspicious(cheatingAnalysesRepository.findByGameId(game.getGame_id()));
+        } catch (Exception e) {
+            logger.error("Error rescoring game {} for cheating: {}", game.getGame_id(), e.getMessage(), e);
+            return null;
+        }
+    }
+
+    /**
+     * Whether a bot played the game, in which case it is neither analysed nor tracked live
+     */
+    public static boolean involvesBot(Game game) {
+        return game.getIsBotGame() || isBot(game.getWhitePlayer()) || isBot(game.getBlackPlayer());
+    }
+
+    private static boolean isBot(User user) {
+        return user != null && user.getType() == UserType.BOT;
+    }
+
+    /**
+     * Score both players of a game in one pass over its moves, without saving anything
+     */
+    List<CheatingScore> scoreGame(Game game, List<Move> moves) {
+        return scoreGame(game, moves, null, null);
+    }
+
+    /**
+     * Score both players of a game.
+     * Live signals of a side are used as they are when they cover the game: for timing when they counted
+     * all of the side's moves, for the engine metrics when at least half of them were checked.
+     * Otherwise the side's metrics are recomputed in one pass over the moves, each move attributed to
+     * the player who made it and feeding that side's running metrics from its stored review.
+     */
+    private List<CheatingScore> scoreGame(Game game, List<Move> moves, SideSignals liveWhite, SideSignals liveBlack) {
+        User white = game.getWhitePlayer();
+        User black = game.getBlackPlayer();
+
+        // White makes the odd plies unless the game started with Black to move
+        boolean whiteFirst = moves.isEmpty() || !Boolean.FALSE.equals(playedByWhite(moves.get(0), white, black));
+        int whiteMoves = whiteFirst ? (moves.size() + 1) / 2 : moves.size() / 2;
+        int blackMoves = moves.size() - whiteMoves;
+        SideSignals whiteTiming = coversTiming(liveWhite, whiteMoves) ? liveWhite : null;
+        SideSignals whiteEngine = coversEngine(liveWhite, whiteMoves) ? liveWhite : null;
+        SideSignals blackTiming = coversTiming(liveBlack, blackMoves) ? liveBlack : null;
+        SideSignals blackEngine = coversEngine(liveBlack, blackMoves) ? liveBlack : null;
+
+        boolean replay = (white != null && (whiteTiming == null || whiteEngine == null))
+                || (black != null && (blackTiming == null || blackEngine == null));
+        if (replay) {
+            SideSignals whiteSignals = new SideSignals();
+            SideSignals blackSignals = new SideSignals();
+            for (Move move : moves) {
+                Boolean byWhite = playedByWhite(move, white, black);
+                if (byWhite == null) {
+                    continue;
+                }
+                SideSignals side = byWhite ? whiteSignals : blackSignals;
+                side.recordMove(move.getMoveNumber(), move.getTimeSpentMs());
+
+                MoveAnalysis analysis = move.getMoveAnalysis();
+                // Book and forced moves say nothing about engine use: everyone plays them
+                if (analysis != null && analysis.getBest_move() != null
+                        && analysis.getReview() != Review.Book && analysis.getReview() != Review.Forced) {
+                    // Engine moves are stored in UCI notation, so compare them with the played move in UCI
+                    side.recordEngineCheck(move.getMoveNumber(), analysis.getBest_move().equals(MoveAnalysisEngineService.toUciMove(move)));
+                    if (analysis.getCentipawn_loss() != null) {
+                        side.recordCentipawnLoss(analysis.getCentipawn_loss());
+                    }
                 }
             }
+            whiteTiming = whiteTiming != null ? whiteTiming : whiteSignals;
+            whiteEngine = whiteEngine != null ? whiteEngine : whiteSignals;
+            blackTiming = blackTiming != null ? blackTiming : blackSignals;
+            blackEngine = blackEngine != null ? blackEngine : blackSignals;
+        } else {
+            logger.debug("Game {} scored from its live signals ({} moves)", game.getGame_id(), moves.size());
         }
 
-        return (double) engineMatches / moves.size();
+        List<CheatingScore> scores = new ArrayList<>(2);
+        if (white != null) {
+            scores.add(score(game, white, whiteTiming, whiteEngine));
+        }
+        if (black != null) {
+            scores.add(score(game, black, blackTiming, blackEngine));
+        }
+        return scores;
     }
 
     /**
-     * Detect suspicious timing patterns
-     * - Moves played too quickly (< 2 seconds for complex positions)
-     * - Consistent timing indicating computer-like behavior
+     * Whether live signals counted every move of their side
      */
-    private double calculateTimingAnomaly(List<Move> moves) {
-        if (moves.isEmpty()) return 0.0;
+    private static boolean coversTiming(SideSignals live, int sideMoves) {
+        return live != null && live.getMoves() >= sideMoves;
+    }
 
-        int suspiciousTimings = 0;
-        List<Integer> timings = new ArrayList<>();
-        
-        for (Move move : moves) {
-            int timeSpentMs = move.getTimeSpentMs();
-            timings.add(timeSpentMs);
-
-            // Flag moves played too quickly in middle/endgame (< 3 seconds)
-            // Opening moves can be fast (theory), so skip first 10 moves
-            if (move.getMoveNumber() > 10 && timeSpentMs < 3000) {
-                suspiciousTimings++;
-            }
+    /**
+     * Whether the engine checked at least half of the moves of the side while it was played
+     */
+    private static boolean coversEngine(SideSignals live, int sideMoves) {
+        return live != null && live.getEngineChecked() * 2 >= sideMoves;
+    }
+
+    /**
+     * @param timingSignals the side's move times
+     * @param engineSignals the side's engine checks, possibly gathered separately from the timing
+     */
+    private CheatingScore score(Game game, User player, SideSignals timingSignals, SideSignals engineSignals) {
+        if (timingSignals.getMoves() == 0) {
+            return new CheatingScore(game.getGame_id(), player.getUser_id(), 0.0, 0.0);
         }
 
-        // Calculate standard deviation to detect unnatural consistency
-        double avgTime = timings.stream().mapToInt(Integer::intValue).average().orElse(0);
-        double variance = timings.stream()
-                .mapToDouble(t -> Math.pow(t - avgTime, 2))
-                .average()
-                .orElse(0);
-        double stdDev = Math.sqrt(variance);
-        
-        // Low standard deviation = too consistent = suspicious
-        double consistencyScore = stdDev < 2000 ? 0.5 : 0.0;
-        
-        double quickMoveScore = suspiciousTimings / (double) Math.max(1, moves.size() - 10);
-        
-        return Math.min(1.0, (quickMoveScore * 0.6) + (consistencyScore * 0.4));
+        // Calculate individual metrics
+        double engineAccuracy = engineSignals.engineAccuracy();
+        double timingAnomaly = timingSignals.timingAnomaly();
+        double skillSpike = calculateSkillSpike(game, player);
+        double moveComplexity = engineSignals.moveComplexity();
+
+        // Weighted scoring
+        double suspicionScore = (engineAccuracy * 0.4) +
+                (timingAnomaly * 0.25) +
+                (skillSpike * 0.2) +
+                (moveComplexity * 0.15);
+        return new CheatingScore(game.getGame_id(), player.getUser_id(), suspicionScore, engineAccuracy);
+    }
+
+    /**
+     * Whether White made a move, from the player who made it or, failing that, the side to move after it;
+     * null if neither tells
+     */
+    static Boolean playedByWhite(Move move, User white, User black) {
+        UUID mover = move.getUserMove() != null ? move.getUserMove().getUser_id() : null;
+        if (mover != null && white != null && mover.equals(white.getUser_id())) {
+            return true;
+        }
+        if (mover != null && black != null && mover.equals(black.getUser_id())) {
+            return false;
+        }
+        String fen = move.getFenAfterMove();
+        if (fen != null && fen.contains(" b ")) {
+            return true;
+        }
+        if (fen != null && fen.contains(" w ")) {
+            return false;
+        }
+        return null;
+    }
+
+    /**
+     * Write the analyses of a batch of players with one batched statement, replacing the analysis
+     * a player already has for the game
+     */
+    void saveScores(List<CheatingScore> scores) {
+        if (scores.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(UPSERT_SQL, scores, scores.size(), (ps, score) -> {
+            ps.setObject(1, UUID.randomUUID());
+            ps.setObject(2, score.gameId());
+            ps.setObject(3, score.userId());
+            ps.setDouble(4, score.suspicionScore());
+            ps.setDouble(5, score.matchAccuracy());
+        });
+    }
+
+    private CheatingAnalysis mostSuspicious(List<CheatingAnalysis> analyses) {
+        return analyses.stream()
+                .max(Comparator.comparingDouble(CheatingAnalysis::getSuspicion_score))
+                .orElse(null);
     }
 
     /**
      * Detect sudden skill improvements
-     * Compares recent games to player's historical average
+     * Compares the win rate of the player's last 10 games before this one with the 10 before those
      */
-    private double calculateSkillSpike(Game game) {
+    private double calculateSkillSpike(Game game, User player) {
         try {
-            User player = game.getWhitePlayer();
             if (player == null) return 0.0;
-            
-            // Get player's recent 10 games before this one
-            List<Game> recentGames = gamesRepository.findAll().stream()
-                    .filter(g -> g.getFinishedAt() != null)
-                    .filter(g -> g.getFinishedAt().isBefore(game.getCreatedAt()))
-                    .filter(g -> (g.getWhitePlayer() != null && g.getWhitePlayer().getId().equals(player.getId())) ||
-                                 (g.getBlackPlayer() != null && g.getBlackPlayer().getId().equals(player.getId())))
-                    .sorted(Comparator.comparing(Game::getFinishedAt).reversed())
-                    .limit(10)
-                    .toList();
-            
+
+            // Last 20 finished games before this one, newest first, from the per-player index
+            List<Boolean> results = gamesRepository.findRecentResultsOfPlayer(
+                    player.getUser_id(), game.getCreatedAt(), SKILL_SPIKE_HISTORY_GAMES * 2);
+
+            List<Boolean> recentGames = results.subList(0, Math.min(SKILL_SPIKE_HISTORY_GAMES, results.size()));
             if (recentGames.size() < 5) {
                 // Not enough history to detect spike
                 return 0.0;
             }
-            
-            // Count wins in recent games
-            long recentWins = recentGames.stream()
-                    .filter(g -> g.getWinner() != null && g.getWinner().getId().equals(player.getId()))
-                    .count();
-            
-            double recentWinRate = recentWins / (double) recentGames.size();
-            
-            // Get older games (11-20)
-            List<Game> olderGames = gamesRepository.findAll().stream()
-                    .filter(g -> g.getFinishedAt() != null)
-                    .filter(g -> g.getFinishedAt().isBefore(game.getCreatedAt()))
-                    .filter(g -> (g.getWhitePlayer() != null && g.getWhitePlayer().getId().equals(player.getId())) ||
-                                 (g.getBlackPlayer() != null && g.getBlackPlayer().getId().equals(player.getId())))
-                    .sorted(Comparator.comparing(Game::getFinishedAt).reversed())
-                    .skip(10)
-                    .limit(10)
-                    .toList();
-            
+            double recentWinRate = winRate(recentGames);
+
+            // Older games (11-20)
+            List<Boolean> olderGames = results.subList(recentGames.size(), results.size());
             if (olderGames.size() < 5) {
                 return 0.0;
             }
-            
-            long olderWins = olderGames.stream()
-                    .filter(g -> g.getWinner() != null && g.getWinner().getId().equals(player.getId()))
-                    .count();
-            
-            double olderWinRate = olderWins / (double) olderGames.size();
-            
+            double olderWinRate = winRate(olderGames);
+
             // Calculate improvement
             double improvement = recentWinRate - olderWinRate;
             
@@ -222,52 +379,9 @@ public class CheatingDetectionService {
         }
     }
 
-    /**
-     * Calculate move complexity based on game state
-     * Engine matches on simple positions are less suspicious
-     */
-    private double calculateMoveComplexity(List<Move> moves) {
-        if (moves.isEmpty()) return 0.0;
-
-        int complexMatchCount = 0;
-        int totalComplexMoves = 0;
-        
-        for (int i = 10; i < moves.size(); i++) { // Skip opening (first 10 moves)
-            Move move = moves.get(i);
-            totalComplexMoves++;
-            
-            // Check if this complex move matches engine's best move
-            if (move.getMoveAnalysis() != null) {
-                String bestMove = move.getMoveAnalysis().getBest_move();
-                if (bestMove != null && bestMove.equals(move.getSanMove())) {
-                    // In complex positions (middle/endgame), matching engine is suspicious
-                    complexMatchCount++;
-                }
-            }
-        }
-        
-        if (totalComplexMoves == 0) return 0.0;
-        
-        // High percentage of engine matches in complex positions is suspicious
-        double complexMatchRate = complexMatchCount / (double) totalComplexMoves;
-        
-        return Math.min(1.0, complexMatchRate * 1.2);
-    }
-
-    /**
-     * Create a CheatingAnalysis entity
-     */
-    private CheatingAnalysis createCheatingAnalysis(Game game, double suspicionScore, double matchAccuracy) {
-        CheatingAnalysis analysis = new CheatingAnalysis();
-        analysis.setCheating_analysis_id(UUID.randomUUID()); // Manually generate UUID
-        analysis.setCheating_game(game);
-        analysis.setCheating_user(game.getWhitePlayer()); // Could analyze both players
-        analysis.setSuspicion_score(suspicionScore);
-        analysis.setMatch_accuracy_perc(matchAccuracy);
-        analysis.setCreated_at(LocalDateTime.now());
-
-        // Save to database
-        return cheatingAnalysesRepository.save(analysis);
+    private double winRate(List<Boolean> results) {
+        long wins = results.stream().filter(Boolean.TRUE::equals).count();
+        return wins / (double) results.size();
     }
 
     /**
@@ -304,18 +418,19 @@ public class CheatingDetectionService {
     }
 
     /**
-     * Get all suspicious games for a player
+     * Get all suspicious games for a player, most suspicious first
      */
     public List<CheatingAnalysis> getSuspiciousGamesForPlayer(UUID playerId, double minSuspicionScore) {
-        // Query all analyses for player where suspicion > threshold
-        return cheatingAnalysesRepository.findAll().stream()
-                .filter(a -> a.getCheating_user().getUser_id().equals(playerId))
-                .filter(a -> a.getSuspicion_score() >= minSuspicionScore)
-                .sorted(Comparator.comparingDouble(CheatingAnalysis::getSuspicion_score).reversed())
-                .toList();
+        // Read from the (user_id, suspicion_score) index instead of filtering the whole table
+        return cheatingAnalysesRepository.findSuspiciousByUserId(playerId, minSuspicionScore);
     }
 }
 
+/**
+ * Suspicion score of one player in one game, and the share of their checked moves matching the engine
+ */
+record CheatingScore(UUID gameId, UUID userId, double suspicionScore, double matchAccuracy) {}
+
 /**
  * Enum for cheating risk levels
  */
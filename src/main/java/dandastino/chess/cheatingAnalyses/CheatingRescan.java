@@ -0,0 +1,102 @@
+package dandastino.chess.cheatingAnalyses;
+
+import jakarta.persistence.*;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * A re-scoring of every finished game with the current cheating weights.
+ * The run walks the games in id order and records the last game it scored after each chunk,
+ * so a run interrupted by a restart or a crash resumes after that game instead of starting over.
+ * One node holds a lease on the running run and renews it at every checkpoint.
+ * Rows are created, claimed and updated with SQL in CheatingRescanService, using the database clock;
+ * the timestamps are timestamptz, so every node reads the same lease expiry whatever its time zone.
+ */
+@Entity
+@Table(name="cheating_rescans")
+public class CheatingRescan {
+
+    @Id
+    @Column(name = "rescan_id")
+    private UUID rescan_id;
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private CheatingRescanStatus status;
+    @Column(name = "last_game_id")
+    private UUID last_game_id; // checkpoint: every game up to this id is scored
+    @Column(name = "games_total")
+    private long games_total;
+    @Column(name = "games_scored")
+    private long games_scored;
+    @Column(name = "analyses_written")
+    private long analyses_written;
+    @Column(name = "lease_owner")
+    private String lease_owner;
+    @Column(name = "lease_expires_at")
+    private OffsetDateTime lease_expires_at;
+    @Column(name = "cancel_requested")
+    private boolean cancel_requested;
+    @Column(name = "error", length = 1024)
+    private String error;
+    @Column(name = "started_at")
+    private OffsetDateTime started_at;
+    @Column(name = "updated_at")
+    private OffsetDateTime updated_at;
+    @Column(name = "finished_at")
+    private OffsetDateTime finished_at;
+
+    public CheatingRescan(){}
+
+    public UUID getRescan_id() {
+        return rescan_id;
+    }
+
+    public CheatingRescanStatus getStatus() {
+        return status;
+    }
+
+    public UUID getLast_game_id() {
+        return last_game_id;
+    }
+
+    public long getGames_total() {
+        return games_total;
+    }
+
+    public long getGames_scored() {
+        return games_scored;
+    }
+
+    public long getAnalyses_written() {
+        return analyses_written;
+    }
+
+    public String getLease_owner() {
+        return lease_owner;
+    }
+
+    public OffsetDateTime getLease_expires_at() {
+        return lease_expires_at;
+    }
+
+    public boolean isCancel_requested() {
+        return cancel_requested;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public OffsetDateTime getStarted_at() {
+        return started_at;
+    }
+
+    public OffsetDateTime getUpdated_at() {
+        return updated_at;
+    }
+
+    public OffsetDateTime getFinished_at() {
+        return finished_at;
+    }
+}
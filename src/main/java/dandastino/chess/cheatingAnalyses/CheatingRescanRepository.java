@@ -0,0 +1,19 @@
+package dandastino.chess.cheatingAnalyses;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface CheatingRescanRepository extends JpaRepository<CheatingRescan, UUID> {
+    @Query("SELECT r FROM CheatingRescan r WHERE r.status IN :statuses")
+    List<CheatingRescan> findByStatusIn(@Param("statuses") Collection<CheatingRescanStatus> statuses);
+
+    @Query("SELECT r FROM CheatingRescan r ORDER BY r.started_at DESC")
+    List<CheatingRescan> findAllNewestFirst();
+}
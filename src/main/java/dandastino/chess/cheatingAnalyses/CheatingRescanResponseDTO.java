@@ -0,0 +1,19 @@
+package dandastino.chess.cheatingAnalyses;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+public record CheatingRescanResponseDTO(
+        UUID rescanId,
+        CheatingRescanStatus status,
+        long gamesTotal,
+        long gamesScored,
+        long analysesWritten,
+        UUID lastGameId,
+        String node,
+        boolean cancelRequested,
+        String error,
+        LocalDateTime startedAt,
+        LocalDateTime updatedAt,
+        LocalDateTime finishedAt
+) {}
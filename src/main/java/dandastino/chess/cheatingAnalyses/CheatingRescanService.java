@@ -0,0 +1,394 @@
+package dandastino.chess.cheatingAnalyses;
+
+import dandastino.chess.exceptions.ConflictException;
+import dandastino.chess.exceptions.NotFoundException;
+import dandastino.chess.games.Game;
+import dandastino.chess.games.GamesRepository;
+import dandastino.chess.games.Status;
+import dandastino.chess.moves.Move;
+import dandastino.chess.moves.MovesRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.net.InetAddress;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Re-scores the cheating analyses of every finished game, e.g. after the weights of
+ * {@link CheatingDetectionService} changed.
+ * Games are read in keyset-paginated chunks (game_id after the last one scored), each chunk loading its
+ * games and all their moves in one query each; both players of every game are scored in parallel on a
+ * bounded worker pool, and the chunk's analyses are written with one batched UPSERT. The run records its
+ * position after every chunk, so it resumes where it stopped after a restart or a crash, on any node.
+ * Only one run exists at a time across the cluster; the node running it holds a lease renewed at every
+ * checkpoint, and a run whose lease expires is picked up again by the next node that polls.
+ */
+@Service
+public class CheatingRescanService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CheatingRescanService.class);
+
+    // Smallest UUID: the cursor of a run that has not scored any game yet
+    private static final UUID FIRST_CURSOR = new UUID(0L, 0L);
+
+    private static final List<CheatingRescanStatus> ACTIVE = List.of(CheatingRescanStatus.running, CheatingRescanStatus.paused);
+
+    // At most one unfinished run across the cluster
+    private static final String ACTIVE_INDEX_SQL =
+            "CREATE UNIQUE INDEX IF NOT EXISTS uq_cheating_rescans_active ON cheating_rescans ((TRUE)) " +
+            "WHERE status IN ('running', 'paused')";
+
+    private static final String TIMESTAMP_COLUMNS_SQL =
+            "SELECT column_name FROM information_schema.columns WHERE table_name = 'cheating_rescans' " +
+            "AND data_type = 'timestamp without time zone'";
+
+    private static final String INSERT_SQL =
+            "INSERT INTO cheating_rescans (rescan_id, status, games_total, games_scored, analyses_written, " +
+            "cancel_requested, started_at, updated_at) " +
+            "VALUES (?, 'paused', ?, 0, 0, FALSE, now(), now())";
+
+    private static final String CLAIM_SQL =
+            "UPDATE cheating_rescans SET status = 'running', lease_owner = ?, " +
+            "lease_expires_at = now() + ? * INTERVAL '1 millisecond', updated_at = now() " +
+            "WHERE rescan_id = ? AND NOT cancel_requested " +
+            "AND (status = 'paused' OR (status = 'running' AND lease_expires_at < now())) " +
+            "RETURNING last_game_id";
+
+    private static final String CHECKPOINT_SQL =
+            "UPDATE cheating_rescans SET last_game_id = ?, games_scored = games_scored + ?, " +
+            "analyses_written = analyses_written + ?, " +
+            "lease_expires_at = now() + ? * INTERVAL '1 millisecond', updated_at = now() " +
+            "WHERE rescan_id = ? AND lease_owner = ? AND status = 'running' " +
+            "RETURNING cancel_requested";
+
+    private static final String FINISH_SQL =
+            "UPDATE cheating_rescans SET status = ?, error = ?, finished_at = now(), updated_at = now(), " +
+            "lease_owner = NULL, lease_expires_at = NULL " +
+            "WHERE rescan_id = ? AND lease_owner = ?";
+
+    // A node shutting down hands its run back; the next poll on any node resumes it from the checkpoint
+    private static final String PAUSE_SQL =
+            "UPDATE cheating_rescans SET status = 'paused', lease_owner = NULL, lease_expires_at = NULL, " +
+            "updated_at = now() " +
+            "WHERE rescan_id = ? AND lease_owner = ? AND status = 'running'";
+
+    // A running run is cancelled at its next checkpoint, a paused or abandoned one at once
+    private static final String CANCEL_SQL =
+            "UPDATE cheating_rescans SET cancel_requested = TRUE, " +
+            "finished_at = CASE WHEN status = 'paused' OR lease_expires_at < now() " +
+            "THEN now() ELSE finished_at END, " +
+            "status = CASE WHEN status = 'paused' OR lease_expires_at < now() " +
+            "THEN 'cancelled' ELSE status END, updated_at = now() " +
+            "WHERE status IN ('running', 'paused')";
+
+    @Autowired
+    private CheatingRescanRepository cheatingRescanRepository;
+
+    @Autowired
+    private CheatingDetectionService cheatingDetectionService;
+
+    @Autowired
+    private GamesRepository gamesRepository;
+
+    @Autowired
+    private MovesRepository movesRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${cheating.rescan.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${cheating.rescan.lease-ms:300000}")
+    private long leaseMs;
+
+    @Value("${cheating.rescan.auto-resume:true}")
+    private boolean autoResume;
+
+    private final String nodeId;
+    // Scores the games of a chunk
+    private final ExecutorService workers;
+    // Walks the chunks of the run held by this node
+    private final ExecutorService coordinator;
+    private volatile UUID runningRescanId;
+    private volatile boolean shuttingDown;
+
+    public CheatingRescanService(@Value("${cheating.rescan.workers:4}") int workers,
+                                 @Value("${stockfish.queue.node-id:}") String nodeId) {
+        AtomicInteger threadCount = new AtomicInteger();
+        this.nodeId = nodeId.isBlank() ? defaultNodeId() : nodeId;
+        this.workers = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "cheating-rescan-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.coordinator = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cheating-rescan-coordinator");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PostConstruct
+    public void updateSchema() {
+        convertTimestampColumns();
+        try {
+            jdbcTemplate.execute(ACTIVE_INDEX_SQL);
+        } catch (Exception e) {
+            logger.warn("Could not create the active run index of the cheating rescans: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Convert the timestamps of tables created when they were local times to timestamptz.
+     * Existing values are read in the session time zone of the node doing the conversion.
+     */
+    private void convertTimestampColumns() {
+        try {
+            List<String> columns = jdbcTemplate.queryForList(TIMESTAMP_COLUMNS_SQL, String.class);
+            if (columns.isEmpty()) {
+                return;
+            }
+            String alterations = columns.stream()
+                    .map(column -> "ALTER COLUMN " + column + " TYPE timestamptz")
+                    .collect(Collectors.joining(", "));
+            jdbcTemplate.execute("ALTER TABLE cheating_rescans " + alterations);
+            logger.info("Converted {} timestamp columns of the cheating rescans to timestamptz", columns.size());
+        } catch (Exception e) {
+            logger.warn("Could not convert the timestamps of the cheating rescans to timestamptz: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Start re-scoring every finished game, or resume the unfinished run from its checkpoint
+     * @throws ConflictException if the run is already in progress on a live node
+     */
+    public CheatingRescan start() {
+        CheatingRescan rescan = findActive().orElseGet(this::create);
+        if (!claimAndRun(rescan.getRescan_id())) {
+            CheatingRescan current = cheatingRescanRepository.findById(rescan.getRescan_id()).orElse(rescan);
+            throw new ConflictException("A cheating rescan is already running on " + current.getLease_owner());
+        }
+        return cheatingRescanRepository.findById(rescan.getRescan_id()).orElseThrow();
+    }
+
+    /**
+     * Stop the unfinished run; games scored so far keep their new analyses
+     */
+    public CheatingRescan cancel() {
+        CheatingRescan rescan = findActive().orElseThrow(() -> new NotFoundException("No cheating rescan in progress"));
+        jdbcTemplate.update(CANCEL_SQL);
+        return cheatingRescanRepository.findById(rescan.getRescan_id()).orElseThrow();
+    }
+
+    /**
+     * The unfinished run if there is one, otherwise the latest finished one
+     */
+    public CheatingRescan getLatest() {
+        return findActive().or(() -> cheatingRescanRepository.findAllNewestFirst().stream().findFirst())
+                .orElseThrow(() -> new NotFoundException("No cheating rescan has been started"));
+    }
+
+    /**
+     * Resume a run paused by a node shutdown, or left behind by a node that died
+     */
+    @Scheduled(fixedDelayString = "${cheating.rescan.resume-interval-ms:60000}")
+    public void resumeInterrupted() {
+        if (!autoResume || shuttingDown || runningRescanId != null) {
+            return;
+        }
+        try {
+            findActive().ifPresent(rescan -> {
+                if (claimAndRun(rescan.getRescan_id())) {
+                    logger.info("Resumed cheating rescan {} after game {}", rescan.getRescan_id(), rescan.getLast_game_id());
+                }
+            });
+        } catch (Exception e) {
+            logger.warn("Could not resume the cheating rescan: {}", e.getMessage());
+        }
+    }
+
+    public static CheatingRescanResponseDTO toDTO(CheatingRescan rescan) {
+        return new CheatingRescanResponseDTO(
+                rescan.getRescan_id(),
+                rescan.getStatus(),
+                rescan.getGames_total(),
+                rescan.getGames_scored(),
+                rescan.getAnalyses_written(),
+                rescan.getLast_game_id(),
+                rescan.getLease_owner(),
+                rescan.isCancel_requested(),
+                rescan.getError(),
+                toLocal(rescan.getStarted_at()),
+                toLocal(rescan.getUpdated_at()),
+                toLocal(rescan.getFinished_at())
+        );
+    }
+
+    private static LocalDateTime toLocal(OffsetDateTime timestamp) {
+        return timestamp != null ? timestamp.atZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime() : null;
+    }
+
+    private Optional<CheatingRescan> findActive() {
+        return cheatingRescanRepository.findByStatusIn(ACTIVE).stream().findFirst();
+    }
+
+    private CheatingRescan create() {
+        UUID rescanId = UUID.randomUUID();
+        try {
+            jdbcTemplate.update(INSERT_SQL, rescanId, gamesRepository.countByStatus(Status.done));
+        } catch (DuplicateKeyException e) {
+            // Another node started a run in the meantime
+            return findActive().orElseThrow(() -> e);
+        }
+        logger.info("Created cheating rescan {}", rescanId);
+        return cheatingRescanRepository.findById(rescanId).orElseThrow();
+    }
+
+    private synchronized boolean claimAndRun(UUID rescanId) {
+        if (shuttingDown || runningRescanId != null) {
+            return false;
+        }
+        List<UUID> claimed = jdbcTemplate.query(CLAIM_SQL, (rs, rowNum) -> rs.getObject("last_game_id", UUID.class),
+                nodeId, leaseMs, rescanId);
+        if (claimed.isEmpty()) {
+            return false;
+        }
+        UUID cursor = claimed.get(0) != null ? claimed.get(0) : FIRST_CURSOR;
+        runningRescanId = rescanId;
+        coordinator.execute(() -> run(rescanId, cursor));
+        return true;
+    }
+
+    private void run(UUID rescanId, UUID cursor) {
+        CheatingRescanStatus status = CheatingRescanStatus.done;
+        String error = null;
+        long started = System.currentTimeMillis();
+        long gamesScored = 0;
+        try {
+            while (!shuttingDown) {
+                List<UUID> gameIds = gamesRepository.findFinishedGameIdsAfter(cursor, chunkSize);
+                if (gameIds.isEmpty()) {
+                    break;
+                }
+                List<CheatingScore> scores = scoreChunk(gameIds);
+                cheatingDetectionService.saveScores(scores);
+                int written = scores.size();
+                cursor = gameIds.get(gameIds.size() - 1);
+                gamesScored += gameIds.size();
+
+                List<Boolean> cancelRequested = jdbcTemplate.query(CHECKPOINT_SQL, (rs, rowNum) -> rs.getBoolean(1),
+                        cursor, gameIds.size(), written, leaseMs, rescanId, nodeId);
+                if (cancelRequested.isEmpty()) {
+                    logger.warn("Lost the lease of cheating rescan {}, stopping it", rescanId);
+                    return;
+                }
+                if (cancelRequested.get(0)) {
+                    status = CheatingRescanStatus.cancelled;
+                    break;
+                }
+                logger.debug("Cheating rescan {} checkpoint at game {} ({} games this session)", rescanId, cursor, gamesScored);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (Exception e) {
+            logger.error("Cheating rescan {} failed after game {}", rescanId, cursor, e);
+            status = CheatingRescanStatus.failed;
+            error = e.getMessage();
+        } finally {
+            runningRescanId = null;
+        }
+
+        if (shuttingDown) {
+            // Handed back in shutdown(), resumed from the checkpoint later
+            return;
+        }
+        try {
+            jdbcTemplate.update(FINISH_SQL, status.name(), truncate(error), rescanId, nodeId);
+            logger.info("Cheating rescan {} {}: {} games scored in {} s", rescanId, status, gamesScored,
+                    (System.currentTimeMillis() - started) / 1000);
+        } catch (Exception e) {
+            // The lease will expire and the run will resume from its last checkpoint
+            logger.error("Could not record the outcome of cheating rescan {}", rescanId, e);
+        }
+    }
+
+    /**
+     * Score both players of every game of a chunk on the worker pool
+     */
+    private List<CheatingScore> scoreChunk(List<UUID> gameIds) throws InterruptedException, ExecutionException {
+        Map<UUID, List<Move>> movesByGame = new HashMap<>();
+        for (Move move : movesRepository.findByGameIdIn(gameIds)) {
+            movesByGame.computeIfAbsent(move.getGameAnalysis().getGame_id(), id -> new ArrayList<>()).add(move);
+        }
+
+        List<Future<List<CheatingScore>>> futures = new ArrayList<>();
+        for (Game game : gamesRepository.findWithPlayersByIdIn(gameIds)) {
+            // Bots cannot cheat, and their opponents are not scored either (as in the end-of-game analysis)
+            if (CheatingDetectionService.involvesBot(game)) {
+                continue;
+            }
+            List<Move> moves = movesByGame.getOrDefault(game.getGame_id(), List.of());
+            futures.add(workers.submit(() -> cheatingDetectionService.scoreGame(game, moves)));
+        }
+        List<CheatingScore> scores = new ArrayList<>();
+        for (Future<List<CheatingScore>> future : futures) {
+            scores.addAll(future.get());
+        }
+        return scores;
+    }
+
+    private static String truncate(String error) {
+        return error != null && error.length() > 1024 ? error.substring(0, 1024) : error;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        shuttingDown = true;
+        UUID rescanId = runningRescanId;
+        coordinator.shutdownNow();
+        workers.shutdownNow();
+        if (rescanId != null) {
+            try {
+                jdbcTemplate.update(PAUSE_SQL, rescanId, nodeId);
+                logger.info("Paused cheating rescan {}, it resumes from its last checkpoint", rescanId);
+            } catch (Exception e) {
+                logger.warn("Could not pause cheating rescan {}: {}", rescanId, e.getMessage());
+            }
+        }
+    }
+
+    private static String defaultNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "node";
+        }
+        // Unique per process, so a restarted node never renews the lease of its previous run
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
@@ -0,0 +1,5 @@
+package dandastino.chess.cheatingAnalyses;
+
+public enum CheatingRescanStatus {
+    running, paused, done, failed, cancelled
+}
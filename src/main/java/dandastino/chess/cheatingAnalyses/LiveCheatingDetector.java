@@ -0,0 +1,292 @@
+package dandastino.chess.cheatingAnalyses;
+
+import dandastino.chess.engine.EngineAnalysis;
+import dandastino.chess.engine.EngineLine;
+import dandastino.chess.games.Game;
+import dandastino.chess.moveAnalyses.MoveAnalysisEngineService;
+import dandastino.chess.moves.Move;
+import dandastino.chess.users.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Computes cheating indicators while a game is played instead of after it ends.
+ * Each move updates fixed-size running metrics of the side that played it; the engine check of a move
+ * reuses the live evaluation already searched for spectators, so no extra engine time is spent.
+ * Moves whose position was not evaluated in time only count towards timing.
+ * A side whose suspicion crosses the alert threshold is reported once on /topic/cheating/alerts.
+ * The state lives in memory on the node receiving the moves and is dropped when the game is analysed
+ * or has been idle for a while.
+ */
+@Service
+public class LiveCheatingDetector {
+
+    private static final Logger logger = LoggerFactory.getLogger(LiveCheatingDetector.class);
+
+    private static final String STARTING_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Value("${cheating.live.enabled:true}")
+    private boolean enabled;
+
+    @Value("${cheating.live.alert-threshold:0.6}")
+    private double alertThreshold;
+
+    // Engine-checked moves a side needs before it can be flagged
+    @Value("${cheating.live.min-engine-moves:10}")
+    private int minEngineMoves;
+
+    @Value("${cheating.live.idle-timeout-minutes:180}")
+    private long idleTimeoutMinutes;
+
+    private final Map<UUID, GameSignals> games = new ConcurrentHashMap<>();
+
+    /**
+     * Update the signals of the side that played a move.
+     * Called once per saved move, in game order.
+     */
+    public void onMove(Game game, Move move) {
+        if (!enabled || game == null || move == null || CheatingDetectionService.involvesBot(game)) {
+            return;
+        }
+        UUID gameId = game.getGame_id();
+        GameSignals signals = games.computeIfAbsent(gameId, id -> new GameSignals(
+                game.getInitialFen() != null ? game.getInitialFen() : STARTING_FEN));
+        Boolean byWhite = CheatingDetectionService.playedByWhite(move, game.getWhitePlayer(), game.getBlackPlayer());
+        if (byWhite == null) {
+            return;
+        }
+        boolean white = byWhite;
+        synchronized (signals) {
+            signals.whitePlayer = userId(game.getWhitePlayer());
+            signals.blackPlayer = userId(game.getBlackPlayer());
+            SideSignals side = signals.side(white);
+            side.recordMove(move.getMoveNumber(), move.getTimeSpentMs());
+
+            // A move still waiting for the evaluation after it will not get one any more
+            signals.pending = null;
+            PendingMove pending = new PendingMove(white, move.getMoveNumber(), signals.currentFen,
+                    move.getFenAfterMove(), MoveAnalysisEngineService.toUciMove(move));
+            signals.currentFen = move.getFenAfterMove();
+            if (signals.currentEvaluation != null) {
+                checkAgainstEngine(signals, pending, signals.currentEvaluation);
+            }
+            signals.currentEvaluation = null;
+            if (!pending.resolved()) {
+                signals.pending = pending;
+            }
+            signals.lastUpdate = System.currentTimeMillis();
+            checkAlert(gameId, signals, white);
+        }
+    }
+
+    /**
+     * Feed a finished live evaluation of one of the game's positions
+     */
+    public void onEvaluation(UUID gameId, String fen, EngineAnalysis analysis) {
+        if (!enabled || gameId == null || fen == null || analysis == null || analysis.getBestMove() == null) {
+            return;
+        }
+        GameSignals signals = games.get(gameId);
+        if (signals == null) {
+            return;
+        }
+        synchronized (signals) {
+            PendingMove pending = signals.pending;
+            if (pending != null) {
+                if (!pending.engineChecked && fen.equals(pending.fenBefore)) {
+                    checkAgainstEngine(signals, pending, analysis);
+                } else if (pending.evaluationBefore != null && fen.equals(pending.fenAfter)) {
+                    // The "after" score is from the opponent's point of view: flip it back to the mover
+                    signals.side(pending.white).recordCentipawnLoss(
+                            Math.max(0, pending.evaluationBefore + analysis.getEvaluation()));
+                    pending.centipawnLossRecorded = true;
+                }
+                if (pending.resolved()) {
+                    signals.pending = null;
+                }
+                checkAlert(gameId, signals, pending.white);
+            }
+            if (fen.equals(signals.currentFen)) {
+                signals.currentEvaluation = analysis;
+            }
+        }
+    }
+
+    /**
+     * Copy of one side's signals, null if the game is not tracked on this node
+     */
+    SideSignals getSignals(UUID gameId, boolean white) {
+        GameSignals signals = games.get(gameId);
+        if (signals == null) {
+            return null;
+        }
+        synchronized (signals) {
+            return signals.side(white).copy();
+        }
+    }
+
+    /**
+     * Current signals of both sides of a game, empty if the game is not tracked on this node
+     */
+    public List<LiveCheatingSignalDTO> getLiveSignals(UUID gameId) {
+        GameSignals signals = games.get(gameId);
+        if (signals == null) {
+            return List.of();
+        }
+        synchronized (signals) {
+            return List.of(toDTO(gameId, signals, true), toDTO(gameId, signals, false));
+        }
+    }
+
+    /**
+     * Stop tracking a game, once its end-of-game analysis has used the signals
+     */
+    public void forget(UUID gameId) {
+        if (gameId != null) {
+            games.remove(gameId);
+        }
+    }
+
+    /**
+     * Drop games nobody has moved in for a while (abandoned games, or games finished on another node)
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void evictIdleGames() {
+        long cutoff = System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(idleTimeoutMinutes);
+        games.entrySet().removeIf(entry -> {
+            synchronized (entry.getValue()) {
+                return entry.getValue().lastUpdate < cutoff;
+            }
+        });
+    }
+
+    private void checkAgainstEngine(GameSignals signals, PendingMove pending, EngineAnalysis before) {
+        SideSignals side = signals.side(pending.white);
+        side.recordEngineCheck(pending.moveNumber, pending.playedUci != null && pending.playedUci.equals(before.getBestMove()));
+        pending.engineChecked = true;
+        pending.evaluationBefore = before.getEvaluation();
+        EngineLine playedLine = pending.playedUci != null ? before.findLine(pending.playedUci) : null;
+        if (playedLine != null) {
+            // The played move is one of the candidates: both scores come from the same search
+            side.recordCentipawnLoss(Math.max(0, before.getEvaluation() - playedLine.getEvaluation()));
+            pending.centipawnLossRecorded = true;
+        }
+    }
+
+    private void checkAlert(UUID gameId, GameSignals signals, boolean white) {
+        SideSignals side = signals.side(white);
+        if (signals.alerted(white) || side.getEngineChecked() < minEngineMoves
+                || side.suspicionScore() < alertThreshold) {
+            return;
+        }
+        signals.setAlerted(white);
+        LiveCheatingSignalDTO alert = toDTO(gameId, signals, white);
+        logger.warn("Live cheating alert for {} in game {}: score={}, accuracy={} over {} checked moves",
+                alert.color(), gameId, alert.suspicionScore(), alert.engineAccuracy(), alert.engineCheckedMoves());
+        try {
+            messagingTemplate.convertAndSend("/topic/cheating/alerts", alert);
+        } catch (Exception e) {
+            logger.error("Failed to publish cheating alert for game {}: {}", gameId, e.getMessage());
+        }
+    }
+
+    private LiveCheatingSignalDTO toDTO(UUID gameId, GameSignals signals, boolean white) {
+        SideSignals side = signals.side(white);
+        return new LiveCheatingSignalDTO(
+                gameId,
+                white ? signals.whitePlayer : signals.blackPlayer,
+                white ? "white" : "black",
+                side.getMoves(),
+                side.getEngineChecked(),
+                side.engineAccuracy(),
+                side.timingAnomaly(),
+                side.moveComplexity(),
+                side.averageCentipawnLoss(),
+                side.centipawnLossStdDev(),
+                side.suspicionScore(),
+                signals.alerted(white),
+                LocalDateTime.ofInstant(Instant.ofEpochMilli(signals.lastUpdate), ZoneId.systemDefault())
+        );
+    }
+
+    private static UUID userId(User user) {
+        return user != null ? user.getUser_id() : null;
+    }
+
+    /**
+     * Live state of one game: the signals of both sides, the current position with its evaluation
+     * once known, and the last move while its engine check or centipawn loss is still missing
+     */
+    private static class GameSignals {
+        private final SideSignals white = new SideSignals();
+        private final SideSignals black = new SideSignals();
+        private UUID whitePlayer;
+        private UUID blackPlayer;
+        private String currentFen;
+        private EngineAnalysis currentEvaluation;
+        private PendingMove pending;
+        private boolean whiteAlerted;
+        private boolean blackAlerted;
+        private long lastUpdate = System.currentTimeMillis();
+
+        GameSignals(String initialFen) {
+            this.currentFen = initialFen;
+        }
+
+        SideSignals side(boolean isWhite) {
+            return isWhite ? white : black;
+        }
+
+        boolean alerted(boolean isWhite) {
+            return isWhite ? whiteAlerted : blackAlerted;
+        }
+
+        void setAlerted(boolean isWhite) {
+            if (isWhite) {
+                whiteAlerted = true;
+            } else {
+                blackAlerted = true;
+            }
+        }
+    }
+
+    private static class PendingMove {
+        private final boolean white;
+        private final int moveNumber;
+        private final String fenBefore;
+        private final String fenAfter;
+        private final String playedUci;
+        private boolean engineChecked;
+        private Integer evaluationBefore;
+        private boolean centipawnLossRecorded;
+
+        PendingMove(boolean white, int moveNumber, String fenBefore, String fenAfter, String playedUci) {
+            this.white = white;
+            this.moveNumber = moveNumber;
+            this.fenBefore = fenBefore;
+            this.fenAfter = fenAfter;
+            this.playedUci = playedUci;
+        }
+
+        boolean resolved() {
+            return engineChecked && centipawnLossRecorded;
+        }
+    }
+}
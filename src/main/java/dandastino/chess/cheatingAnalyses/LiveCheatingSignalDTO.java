@@ -0,0 +1,23 @@
+package dandastino.chess.cheatingAnalyses;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * In-game cheating indicators of one side, as computed so far
+ */
+public record LiveCheatingSignalDTO(
+        UUID gameId,
+        UUID userId,
+        String color,
+        int moves,
+        int engineCheckedMoves,
+        double engineAccuracy,
+        double timingAnomaly,
+        double moveComplexity,
+        double averageCentipawnLoss,
+        double centipawnLossStdDev,
+        double suspicionScore,
+        boolean alerted,
+        LocalDateTime updatedAt
+) {}
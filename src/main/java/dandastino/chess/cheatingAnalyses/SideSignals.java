@@ -0,0 +1,150 @@
+package dandastino.chess.cheatingAnalyses;
+
+/**
+ * Running cheating indicators of one side of one game, updated a move at a time.
+ * The state has a fixed size whatever the length of the game: counters plus Welford
+ * accumulators (count, mean, sum of squared deviations) for move times and centipawn loss.
+ * The end-of-game analysis fills the same accumulators from the stored move reviews, one per player
+ * in a single pass over the moves, so live and end-of-game scores share one set of formulas.
+ */
+class SideSignals {
+
+    // Opening moves can be fast (theory), so timing and complexity skip them
+    static final int OPENING_MOVES = 10;
+    private static final int QUICK_MOVE_MS = 3000;
+    private static final double CONSISTENT_STD_DEV_MS = 2000;
+    // Losses beyond this are mates or lost pieces anyway
+    private static final int MAX_COUNTED_CPL = 1000;
+
+    private int moves;
+    private double moveTimeMean;
+    private double moveTimeM2;
+    private int lateMoves;
+    private int quickMoves;
+    private int engineChecked;
+    private int engineMatches;
+    private int complexChecked;
+    private int complexMatches;
+    private int cplCount;
+    private double cplMean;
+    private double cplM2;
+
+    SideSignals() {}
+
+    private SideSignals(SideSignals other) {
+        this.moves = other.moves;
+        this.moveTimeMean = other.moveTimeMean;
+        this.moveTimeM2 = other.moveTimeM2;
+        this.lateMoves = other.lateMoves;
+        this.quickMoves = other.quickMoves;
+        this.engineChecked = other.engineChecked;
+        this.engineMatches = other.engineMatches;
+        this.complexChecked = other.complexChecked;
+        this.complexMatches = other.complexMatches;
+        this.cplCount = other.cplCount;
+        this.cplMean = other.cplMean;
+        this.cplM2 = other.cplM2;
+    }
+
+    SideSignals copy() {
+        return new SideSignals(this);
+    }
+
+    /**
+     * Count a move and its thinking time
+     * @param moveNumber the move number as stored on the move
+     */
+    void recordMove(int moveNumber, int timeSpentMs) {
+        moves++;
+        double delta = timeSpentMs - moveTimeMean;
+        moveTimeMean += delta / moves;
+        moveTimeM2 += delta * (timeSpentMs - moveTimeMean);
+        if (moveNumber > OPENING_MOVES) {
+            lateMoves++;
+            if (timeSpentMs < QUICK_MOVE_MS) {
+                quickMoves++;
+            }
+        }
+    }
+
+    /**
+     * Count a move whose position the engine evaluated
+     * @param moveNumber the move number as stored on the move
+     * @param matched whether the move was the engine's best move
+     */
+    void recordEngineCheck(int moveNumber, boolean matched) {
+        engineChecked++;
+        if (matched) {
+            engineMatches++;
+        }
+        if (moveNumber > OPENING_MOVES) {
+            complexChecked++;
+            if (matched) {
+                complexMatches++;
+            }
+        }
+    }
+
+    void recordCentipawnLoss(int centipawnLoss) {
+        int loss = Math.min(Math.max(0, centipawnLoss), MAX_COUNTED_CPL);
+        cplCount++;
+        double delta = loss - cplMean;
+        cplMean += delta / cplCount;
+        cplM2 += delta * (loss - cplMean);
+    }
+
+    int getMoves() {
+        return moves;
+    }
+
+    int getEngineChecked() {
+        return engineChecked;
+    }
+
+    /**
+     * Share of the engine-checked moves that were the engine's best move
+     */
+    double engineAccuracy() {
+        return engineChecked == 0 ? 0.0 : engineMatches / (double) engineChecked;
+    }
+
+    /**
+     * Moves played too quickly after the opening, and thinking times too consistent to be human
+     */
+    double timingAnomaly() {
+        if (moves == 0) {
+            return 0.0;
+        }
+        double stdDev = Math.sqrt(moveTimeM2 / moves);
+        // Low standard deviation = too consistent = suspicious
+        double consistencyScore = stdDev < CONSISTENT_STD_DEV_MS ? 0.5 : 0.0;
+        double quickMoveScore = quickMoves / (double) Math.max(1, lateMoves);
+        return Math.min(1.0, (quickMoveScore * 0.6) + (consistencyScore * 0.4));
+    }
+
+    /**
+     * Engine matches after the opening, where finding the best move is hard
+     */
+    double moveComplexity() {
+        if (complexChecked == 0) {
+            return 0.0;
+        }
+        return Math.min(1.0, complexMatches / (double) complexChecked * 1.2);
+    }
+
+    double averageCentipawnLoss() {
+        return cplMean;
+    }
+
+    double centipawnLossStdDev() {
+        return cplCount > 1 ? Math.sqrt(cplM2 / (cplCount - 1)) : 0.0;
+    }
+
+    /**
+     * Suspicion from the in-game metrics, with the end-of-game weights; the skill spike needs the
+     * player's history and is added by the end-of-game analysis
+     */
+    double suspicionScore() {
+        return engineAccuracy() * 0.4 + timingAnomaly() * 0.25 + moveComplexity() * 0.15;
+    }
+}
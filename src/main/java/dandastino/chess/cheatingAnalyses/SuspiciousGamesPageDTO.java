@@ -0,0 +1,14 @@
+package dandastino.chess.cheatingAnalyses;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * One page of cheating analyses, most suspicious first.
+ * Pass nextAfterScore and nextAfterId back as afterScore and afterId to get the next page; both are null on the last page.
+ */
+public record SuspiciousGamesPageDTO(
+        List<CheatingAnalysisResponseDTO> analyses,
+        Double nextAfterScore,
+        UUID nextAfterId
+) {}
@@ -0,0 +1,179 @@
+package dandastino.chess.engine;
+
+import dandastino.chess.moveAnalyses.MoveAnalysis;
+import dandastino.chess.moveAnalyses.MoveAnalysisResponseDTO;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A full-game analysis claimed from the shared queue and running on this node's worker pool.
+ * Progress and move reviews are updated by the worker while the HTTP side reads them.
+ * Cancelling a running job stops the searches it has in flight.
+ */
+class AnalysisJob implements AnalysisProgressListener {
+
+    private final UUID jobId;
+    private final UUID gameId;
+    private final UUID userId;
+    private final LocalDateTime submittedAt;
+    private volatile AnalysisJobStatus status = AnalysisJobStatus.queued;
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+    private volatile int positionsTotal;
+    private final AtomicInteger positionsEvaluated = new AtomicInteger();
+    private final List<MoveAnalysisResponseDTO> moveAnalyses = new ArrayList<>();
+    private volatile GameAnalysisResult result;
+    private volatile String error;
+    private volatile boolean cancelled;
+    private final Set<StockfishEngine> searchingEngines = ConcurrentHashMap.newKeySet();
+
+    AnalysisJob(UUID jobId, UUID gameId, UUID userId, LocalDateTime submittedAt) {
+        this.jobId = jobId;
+        this.gameId = gameId;
+        this.userId = userId;
+        this.submittedAt = submittedAt;
+    }
+
+    @Override
+    public void positionsPlanned(int total) {
+        positionsTotal = total;
+    }
+
+    @Override
+    public void positionsEvaluated(int count) {
+        positionsEvaluated.addAndGet(count);
+    }
+
+    @Override
+    public void moveAnalyzed(MoveAnalysis analysis) {
+        MoveAnalysisResponseDTO dto = new MoveAnalysisResponseDTO(
+                analysis.getMove_analysis_id(),
+                analysis.getMove() != null ? analysis.getMove().getMoveId() : null,
+                analysis.getEvaluation_cp(),
+                analysis.getBest_move(),
+                analysis.getDepth(),
+                analysis.getReview());
+        synchronized (moveAnalyses) {
+            moveAnalyses.add(dto);
+        }
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    @Override
+    public void searchStarted(StockfishEngine engine) {
+        searchingEngines.add(engine);
+        // cancel() may have run between the caller's check and this registration
+        if (cancelled) {
+            engine.cancel();
+        }
+    }
+
+    @Override
+    public void searchFinished(StockfishEngine engine) {
+        searchingEngines.remove(engine);
+    }
+
+    /**
+     * Mark the job as running, unless it was cancelled while queued
+     */
+    synchronized boolean start() {
+        if (cancelled) {
+            return false;
+        }
+        startedAt = LocalDateTime.now();
+        status = AnalysisJobStatus.running;
+        return true;
+    }
+
+    /**
+     * Cancel the job: a queued job never starts, a running one stops its searches and ends as cancelled
+     */
+    synchronized void cancel() {
+        if (!isActive()) {
+            return;
+        }
+        cancelled = true;
+        if (status == AnalysisJobStatus.queued) {
+            finishedAt = LocalDateTime.now();
+            status = AnalysisJobStatus.cancelled;
+        }
+        searchingEngines.forEach(StockfishEngine::cancel);
+    }
+
+    synchronized void complete(GameAnalysisResult result) {
+        this.result = result;
+        finish(AnalysisJobStatus.done);
+    }
+
+    synchronized void fail(String error) {
+        this.error = error;
+        finish(AnalysisJobStatus.failed);
+    }
+
+    private void finish(AnalysisJobStatus outcome) {
+        finishedAt = LocalDateTime.now();
+        status = cancelled ? AnalysisJobStatus.cancelled : outcome;
+    }
+
+    boolean isActive() {
+        return status == AnalysisJobStatus.queued || status == AnalysisJobStatus.running;
+    }
+
+    UUID getJobId() {
+        return jobId;
+    }
+
+    UUID getGameId() {
+        return gameId;
+    }
+
+    UUID getUserId() {
+        return userId;
+    }
+
+    LocalDateTime getSubmittedAt() {
+        return submittedAt;
+    }
+
+    AnalysisJobStatus getStatus() {
+        return status;
+    }
+
+    LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    int getPositionsEvaluated() {
+        return positionsEvaluated.get();
+    }
+
+    int getPositionsTotal() {
+        return positionsTotal;
+    }
+
+    String getError() {
+        return error;
+    }
+
+    /**
+     * Snapshot safe to serialize while the worker keeps updating the job
+     */
+    AnalysisJobResponseDTO toResponse() {
+        List<MoveAnalysisResponseDTO> reviewed;
+        synchronized (moveAnalyses) {
+            reviewed = List.copyOf(moveAnalyses);
+        }
+        return new AnalysisJobResponseDTO(jobId, gameId, status, submittedAt, startedAt, finishedAt,
+                positionsEvaluated.get(), positionsTotal, reviewed, result, error);
+    }
+}
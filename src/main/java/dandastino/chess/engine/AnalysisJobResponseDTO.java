@@ -0,0 +1,25 @@
+package dandastino.chess.engine;
+
+import dandastino.chess.moveAnalyses.MoveAnalysisResponseDTO;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Status of a game analysis job. moveAnalyses holds the reviews saved so far,
+ * result is only set once the job is done.
+ */
+public record AnalysisJobResponseDTO(
+        UUID jobId,
+        UUID gameId,
+        AnalysisJobStatus status,
+        LocalDateTime submittedAt,
+        LocalDateTime startedAt,
+        LocalDateTime finishedAt,
+        int positionsEvaluated,
+        int positionsTotal,
+        List<MoveAnalysisResponseDTO> moveAnalyses,
+        GameAnalysisResult result,
+        String error
+) {}
@@ -0,0 +1,5 @@
+package dandastino.chess.engine;
+
+public enum AnalysisJobStatus {
+    queued, running, done, failed, cancelled
+}
@@ -0,0 +1,44 @@
+package dandastino.chess.engine;
+
+import dandastino.chess.moveAnalyses.MoveAnalysis;
+
+/**
+ * Callbacks fired while a game is being analyzed, so a caller can report progress and partial results
+ * or cancel the analysis. Callbacks run on the analyzing threads and must not block.
+ */
+public interface AnalysisProgressListener {
+
+    AnalysisProgressListener NONE = new AnalysisProgressListener() {};
+
+    /**
+     * Number of distinct positions the analysis needs an evaluation for
+     */
+    default void positionsPlanned(int total) {}
+
+    /**
+     * Some positions got their evaluation, from the cache or from a search
+     */
+    default void positionsEvaluated(int count) {}
+
+    /**
+     * A move review was computed and saved
+     */
+    default void moveAnalyzed(MoveAnalysis analysis) {}
+
+    /**
+     * Whether the caller no longer wants the analysis; checked before every search
+     */
+    default boolean isCancelled() {
+        return false;
+    }
+
+    /**
+     * A search started on this engine; cancelling the analysis should {@link StockfishEngine#cancel()} it
+     */
+    default void searchStarted(StockfishEngine engine) {}
+
+    /**
+     * The search on this engine is over
+     */
+    default void searchFinished(StockfishEngine engine) {}
+}
@@ -1,5 +1,8 @@
 package dandastino.chess.engine;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Represents the analysis result from Stockfish engine.
  */
@@ -7,6 +10,12 @@ public class EngineAnalysis {
     private String bestMove;
     private int evaluation; // in centipawns
     private int depth;
+    private Integer mateIn; // moves to mate for the side to move, null if no forced mate
+    private int selDepth;
+    private long nodes;
+    private long nps;
+    private int hashfull; // permille of the transposition table in use
+    private List<EngineLine> lines = new ArrayList<>(); // MultiPV lines, best first
 
     public EngineAnalysis(String bestMove, int evaluation, int depth) {
         this.bestMove = bestMove;
@@ -38,12 +47,89 @@ public class EngineAnalysis {
         this.depth = depth;
     }
 
+    public Integer getMateIn() {
+        return mateIn;
+    }
+
+    public void setMateIn(Integer mateIn) {
+        this.mateIn = mateIn;
+    }
+
+    public boolean isMate() {
+        return mateIn != null;
+    }
+
+    public int getSelDepth() {
+        return selDepth;
+    }
+
+    public void setSelDepth(int selDepth) {
+        this.selDepth = selDepth;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public void setNodes(long nodes) {
+        this.nodes = nodes;
+    }
+
+    public long getNps() {
+        return nps;
+    }
+
+    public void setNps(long nps) {
+        this.nps = nps;
+    }
+
+    public int getHashfull() {
+        return hashfull;
+    }
+
+    public void setHashfull(int hashfull) {
+        this.hashfull = hashfull;
+    }
+
+    public List<EngineLine> getLines() {
+        return lines;
+    }
+
+    public void setLines(List<EngineLine> lines) {
+        this.lines = lines;
+    }
+
+    /**
+     * Principal variation of the best line
+     */
+    public List<String> getPrincipalVariation() {
+        return lines.isEmpty() ? List.of() : lines.get(0).getPv();
+    }
+
+    /**
+     * The MultiPV line starting with the given UCI move, or null if the move was not among the candidates
+     */
+    public EngineLine findLine(String uciMove) {
+        for (EngineLine line : lines) {
+            if (uciMove != null && uciMove.equals(line.getMove())) {
+                return line;
+            }
+        }
+        return null;
+    }
+
     @Override
     public String toString() {
         return "EngineAnalysis{" +
                 "bestMove='" + bestMove + '\'' +
                 ", evaluation=" + evaluation +
                 ", depth=" + depth +
+                ", mateIn=" + mateIn +
+                ", selDepth=" + selDepth +
+                ", nodes=" + nodes +
+                ", nps=" + nps +
+                ", hashfull=" + hashfull +
+                ", lines=" + lines +
                 '}';
     }
 }
@@ -0,0 +1,75 @@
+package dandastino.chess.engine;
+
+import java.util.List;
+
+/**
+ * One principal variation reported by Stockfish (one per MultiPV slot).
+ * Scores are from the point of view of the side to move.
+ */
+public class EngineLine {
+    private int multiPv;
+    private int depth;
+    private Integer centipawns; // null when the line is a forced mate
+    private Integer mateIn;     // moves to mate, negative when the side to move gets mated
+    private List<String> pv;
+
+    public EngineLine(int multiPv, int depth, Integer centipawns, Integer mateIn, List<String> pv) {
+        this.multiPv = multiPv;
+        this.depth = depth;
+        this.centipawns = centipawns;
+        this.mateIn = mateIn;
+        this.pv = pv;
+    }
+
+    public int getMultiPv() {
+        return multiPv;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public Integer getCentipawns() {
+        return centipawns;
+    }
+
+    public Integer getMateIn() {
+        return mateIn;
+    }
+
+    public boolean isMate() {
+        return mateIn != null;
+    }
+
+    public List<String> getPv() {
+        return pv;
+    }
+
+    /**
+     * First move of the variation in UCI notation (e.g. e2e4)
+     */
+    public String getMove() {
+        return pv == null || pv.isEmpty() ? null : pv.get(0);
+    }
+
+    /**
+     * Score as a single comparable number: mate in X is mapped to a large evaluation
+     */
+    public int getEvaluation() {
+        if (mateIn == null) {
+            return centipawns != null ? centipawns : 0;
+        }
+        return mateIn > 0 ? 30000 - (mateIn * 100) : -30000 + (Math.abs(mateIn) * 100);
+    }
+
+    @Override
+    public String toString() {
+        return "EngineLine{" +
+                "multiPv=" + multiPv +
+                ", depth=" + depth +
+                ", centipawns=" + centipawns +
+                ", mateIn=" + mateIn +
+                ", pv=" + pv +
+                '}';
+    }
+}
@@ -0,0 +1,93 @@
+package dandastino.chess.engine;
+
+import dandastino.chess.gameLogic.ZobristHash;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Size-bounded LRU cache of engine evaluations keyed by the Zobrist key of the position.
+ * A cached search at depth >= the requested depth answers the request without calling Stockfish.
+ */
+@Component
+public class EvaluationCache {
+
+    private final int maxEntries;
+    private final Map<Long, EngineAnalysis> entries;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public EvaluationCache(@Value("${stockfish.cache.max-entries:100000}") int maxEntries) {
+        this.maxEntries = maxEntries;
+        // access-order LinkedHashMap: iteration order is least recently used first
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, EngineAnalysis> eldest) {
+                if (size() > EvaluationCache.this.maxEntries) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Cached evaluation of the position searched to at least minDepth, or null
+     */
+    public EngineAnalysis get(String fen, int minDepth) {
+        EngineAnalysis cached;
+        synchronized (entries) {
+            cached = entries.get(ZobristHash.hash(fen));
+        }
+        if (cached != null && cached.getDepth() >= minDepth) {
+            hits.incrementAndGet();
+            return cached;
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Store an evaluation, keeping the deeper search if the position is already cached
+     */
+    public void put(String fen, EngineAnalysis analysis) {
+        if (analysis == null || analysis.getBestMove() == null) {
+            return;
+        }
+        long key = ZobristHash.hash(fen);
+        synchronized (entries) {
+            EngineAnalysis existing = entries.get(key);
+            if (existing == null || existing.getDepth() <= analysis.getDepth()) {
+                entries.put(key, analysis);
+            }
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public CacheStats getStats() {
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        long lookups = hitCount + missCount;
+        return new CacheStats(size, maxEntries, hitCount, missCount, evictions.get(),
+                lookups == 0 ? 0.0 : (double) hitCount / lookups);
+    }
+
+    /**
+     * Snapshot of cache counters
+     */
+    public record CacheStats(int size, int maxEntries, long hits, long misses, long evictions, double hitRate) {}
+}
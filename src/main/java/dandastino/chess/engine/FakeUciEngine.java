@@ -0,0 +1,366 @@
+package dandastino.chess.engine;
+
+import dandastino.chess.gameLogic.BoardUtils;
+import dandastino.chess.gameLogic.ChessEngine;
+import dandastino.chess.gameLogic.ZobristHash;
+import dandastino.chess.moves.Move;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Stand-in for Stockfish that speaks the subset of UCI used by {@link StockfishEngine}:
+ * uci, isready, setoption (MultiPV), position, go depth/movetime/infinite, stop and quit.
+ * Scores are a deterministic function of the position, candidate moves are real legal moves,
+ * and every iteration takes a configurable time, so the analysis pipeline can be load-tested
+ * without a Stockfish binary. Crashes and hangs can be injected at a given rate per search.
+ * <p>
+ * Set {@code stockfish.path=fake:} to run it in-process, with options after the colon, e.g.
+ * {@code fake:ms-per-depth=5,depth-growth=1.3,crash-rate=0.01,seed=7}. It can also run as a child
+ * process through {@link #main(String[])}, with the same options as the only argument.
+ */
+public class FakeUciEngine {
+
+    public static final String PATH_PREFIX = "fake:";
+
+    private final Options options;
+    private final SplittableRandom faults;
+    private final PrintWriter out;
+    private final Object outputLock = new Object();
+    private final boolean standalone;
+    private InputStream input;
+    private String fen = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+    private int multiPv = 1;
+    private Thread search;
+    private volatile boolean stopRequested;
+    private volatile boolean hung;
+    private volatile boolean crashed;
+
+    /**
+     * Tunables, parsed from "key=value" pairs separated by commas
+     * @param msPerDepth time the first iteration takes
+     * @param depthGrowth factor applied to the iteration time at each deeper depth (branching factor)
+     * @param maxDepth deepest iteration of a "go movetime" or "go infinite" search
+     * @param startupMs delay before answering "uci"
+     * @param crashRate probability that a search ends with the process exiting
+     * @param hangRate probability that a search stops answering anything, "stop" and "isready" included
+     * @param seed seed of the fault injection
+     */
+    public record Options(double msPerDepth, double depthGrowth, int maxDepth, long startupMs,
+                          double crashRate, double hangRate, long seed) {
+
+        public static Options parse(String spec) {
+            double msPerDepth = 1;
+            double depthGrowth = 1.0;
+            int maxDepth = 30;
+            long startupMs = 0;
+            double crashRate = 0;
+            double hangRate = 0;
+            long seed = 1;
+            for (String pair : spec.split(",")) {
+                int equals = pair.indexOf('=');
+                if (equals < 0) {
+                    continue;
+                }
+                String key = pair.substring(0, equals).trim();
+                String value = pair.substring(equals + 1).trim();
+                switch (key) {
+                    case "ms-per-depth" -> msPerDepth = Double.parseDouble(value);
+                    case "depth-growth" -> depthGrowth = Double.parseDouble(value);
+                    case "max-depth" -> maxDepth = Integer.parseInt(value);
+                    case "startup-ms" -> startupMs = Long.parseLong(value);
+                    case "crash-rate" -> crashRate = Double.parseDouble(value);
+                    case "hang-rate" -> hangRate = Double.parseDouble(value);
+                    case "seed" -> seed = Long.parseLong(value);
+                    default -> throw new IllegalArgumentException("Unknown fake engine option: " + key);
+                }
+            }
+            return new Options(msPerDepth, depthGrowth, maxDepth, startupMs, crashRate, hangRate, seed);
+        }
+    }
+
+    private FakeUciEngine(Options options, OutputStream output, boolean standalone) {
+        this.options = options;
+        this.standalone = standalone;
+        this.faults = new SplittableRandom(options.seed());
+        this.out = new PrintWriter(output, false, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Run as a child process: point stockfish.path at a script that starts this class
+     */
+    public static void main(String[] args) {
+        Options options = Options.parse(args.length > 0 ? args[0] : "");
+        int exitCode = new FakeUciEngine(options, System.out, true).run(System.in);
+        System.exit(exitCode);
+    }
+
+    public static boolean isFakePath(String path) {
+        return path != null && path.startsWith(PATH_PREFIX);
+    }
+
+    /**
+     * Start an in-process engine for a "fake:..." path, wired to the returned process through in-memory pipes
+     */
+    static Process start(String path) {
+        Options options = Options.parse(path.substring(PATH_PREFIX.length()));
+        return new FakeUciProcess((input, output) -> new FakeUciEngine(options, output, false).run(input));
+    }
+
+    /**
+     * Read commands until "quit" or end of input
+     * @return the exit code of the process
+     */
+    int run(InputStream input) {
+        this.input = input;
+        BufferedReader in = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        try {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (crashed) {
+                    return 134;
+                }
+                if (hung) {
+                    // A hung engine reads its input but never answers again
+                    continue;
+                }
+                String command = line.trim();
+                if (command.equals("quit")) {
+                    stopSearch();
+                    return 0;
+                }
+                handle(command);
+            }
+            return crashed ? 134 : 0;
+        } catch (IOException e) {
+            return 1;
+        } finally {
+            stopSearch();
+            out.close();
+        }
+    }
+
+    private void handle(String command) {
+        if (command.equals("uci")) {
+            sleep(options.startupMs());
+            send("id name FakeUci");
+            send("id author dandastino");
+            send("option name MultiPV type spin default 1 min 1 max 500");
+            send("uciok");
+        } else if (command.equals("isready")) {
+            send("readyok");
+        } else if (command.startsWith("setoption name MultiPV value ")) {
+            multiPv = Math.max(1, Integer.parseInt(command.substring("setoption name MultiPV value ".length()).trim()));
+        } else if (command.startsWith("position fen ")) {
+            String position = command.substring("position fen ".length());
+            int moves = position.indexOf(" moves ");
+            fen = moves >= 0 ? position.substring(0, moves) : position;
+        } else if (command.startsWith("position startpos")) {
+            fen = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+        } else if (command.startsWith("go")) {
+            startSearch(command);
+        } else if (command.equals("stop")) {
+            stopRequested = true;
+        }
+        // ucinewgame, other options and unknown commands are ignored, like Stockfish does
+    }
+
+    private void startSearch(String command) {
+        stopSearch();
+        int depth = options.maxDepth();
+        long movetimeMs = -1;
+        String[] tokens = command.split(" ");
+        for (int i = 1; i + 1 < tokens.length; i++) {
+            if (tokens[i].equals("depth")) {
+                depth = Integer.parseInt(tokens[i + 1]);
+            } else if (tokens[i].equals("movetime")) {
+                movetimeMs = Long.parseLong(tokens[i + 1]);
+            }
+        }
+
+        // Faults are drawn when the search starts, so a given seed replays the same failures
+        boolean crash = faults.nextDouble() < options.crashRate();
+        boolean hang = !crash && faults.nextDouble() < options.hangRate();
+        int targetDepth = depth;
+        long deadline = movetimeMs >= 0 ? System.nanoTime() + movetimeMs * 1_000_000L : Long.MAX_VALUE;
+        String position = fen;
+        int lines = multiPv;
+        stopRequested = false;
+        search = new Thread(() -> search(position, lines, targetDepth, deadline, crash, hang), "fake-uci-search");
+        search.setDaemon(true);
+        search.start();
+    }
+
+    private void stopSearch() {
+        Thread running = search;
+        if (running != null) {
+            stopRequested = true;
+            try {
+                running.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            search = null;
+        }
+    }
+
+    private void search(String position, int lines, int targetDepth, long deadline, boolean crash, boolean hang) {
+        List<String> moves = legalMoves(position);
+        if (moves.isEmpty()) {
+            boolean mated = new ChessEngine(position).isCheck();
+            send("info depth 0 score " + (mated ? "mate 0" : "cp 0"));
+            send("bestmove (none)");
+            return;
+        }
+
+        long key = ZobristHash.hash(position);
+        int candidates = Math.min(lines, moves.size());
+        long nodes = 0;
+        long started = System.nanoTime();
+        // Fail halfway through the search, after some output, like a real crash would
+        int failAt = Math.max(1, targetDepth / 2);
+        for (int depth = 1; depth <= targetDepth; depth++) {
+            if (!waitForIteration(depth, deadline)) {
+                break;
+            }
+            if ((crash || hang) && depth == failAt) {
+                if (crash) {
+                    crash();
+                } else {
+                    hung = true;
+                }
+                return;
+            }
+            nodes += (long) (1000 * Math.pow(Math.max(1.0, options.depthGrowth()), depth));
+            long elapsedMs = Math.max(1, (System.nanoTime() - started) / 1_000_000);
+            for (int k = 1; k <= candidates; k++) {
+                send("info depth " + depth + " seldepth " + (depth + 4) + " multipv " + k
+                        + " score cp " + score(key, depth, k) + " nodes " + nodes
+                        + " nps " + (nodes * 1000 / elapsedMs) + " hashfull " + Math.min(1000, depth * 20)
+                        + " time " + elapsedMs + " pv " + moves.get(pick(key, k, moves.size())));
+            }
+            if (stopRequested || System.nanoTime() >= deadline) {
+                break;
+            }
+        }
+        if (!hung && !crashed) {
+            send("bestmove " + moves.get(pick(key, 1, moves.size())));
+        }
+    }
+
+    /**
+     * Sleep for the time the iteration at this depth takes
+     * @return false if the search was stopped or ran out of time first
+     */
+    private boolean waitForIteration(int depth, long deadline) {
+        double ms = options.msPerDepth() * Math.pow(options.depthGrowth(), depth - 1);
+        long end = System.nanoTime() + (long) (ms * 1_000_000);
+        while (System.nanoTime() < end) {
+            if (stopRequested || System.nanoTime() >= deadline) {
+                // Like Stockfish, always finish the first iteration so there is a line to report
+                return depth == 1;
+            }
+            sleep(Math.min(5, Math.max(0, (end - System.nanoTime()) / 1_000_000)));
+        }
+        return true;
+    }
+
+    /**
+     * Deterministic score of the k-th candidate at a depth: a base value from the position,
+     * a small depth-dependent wobble, and worse scores for lower candidates
+     */
+    private static int score(long key, int depth, int candidate) {
+        int base = (int) Math.floorMod(key, 301L) - 150;
+        int wobble = (int) ((key >>> (depth % 32)) & 15) - 8;
+        return base + wobble - 30 * (candidate - 1);
+    }
+
+    /**
+     * Index of the k-th distinct candidate move, the same for the same position every time
+     */
+    private static int pick(long key, int candidate, int size) {
+        int first = (int) Math.floorMod(key >>> 17, (long) size);
+        return (first + candidate - 1) % size;
+    }
+
+    private static List<String> legalMoves(String position) {
+        List<String> moves = new ArrayList<>();
+        char[] placement = placement(position);
+        for (Move move : new ChessEngine(position).getLegalMoves()) {
+            String uci = BoardUtils.toChessNotation(move.getStartRow(), move.getStartCol())
+                    + BoardUtils.toChessNotation(move.getEndRow(), move.getEndCol());
+            char piece = placement[move.getStartRow() * 8 + move.getStartCol()];
+            if ((piece == 'P' && move.getEndRow() == 0) || (piece == 'p' && move.getEndRow() == 7)) {
+                uci += "q";
+            }
+            moves.add(uci);
+        }
+        return moves;
+    }
+
+    /**
+     * Piece letters of the FEN board, index row * 8 + col with row 0 = rank 8
+     */
+    private static char[] placement(String position) {
+        char[] squares = new char[64];
+        int square = 0;
+        for (char c : position.split(" ")[0].toCharArray()) {
+            if (c == '/') {
+                continue;
+            }
+            if (Character.isDigit(c)) {
+                square += c - '0';
+            } else if (square < 64) {
+                squares[square++] = c;
+            }
+        }
+        return squares;
+    }
+
+    /**
+     * Die like a crashed process: output ends, input is no longer read and the exit code is non-zero
+     */
+    private void crash() {
+        synchronized (outputLock) {
+            crashed = true;
+            out.close();
+        }
+        if (standalone) {
+            Runtime.getRuntime().halt(134);
+        }
+        try {
+            input.close();
+        } catch (IOException ignored) {
+            // the run loop ends either way
+        }
+    }
+
+    private void send(String line) {
+        synchronized (outputLock) {
+            if (crashed || hung) {
+                return;
+            }
+            out.println(line);
+            out.flush();
+        }
+    }
+
+    private static void sleep(long ms) {
+        if (ms <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
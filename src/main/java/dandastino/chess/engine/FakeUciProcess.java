@@ -0,0 +1,208 @@
+package dandastino.chess.engine;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link Process} whose program runs on a thread of this JVM, connected through in-memory pipes,
+ * so {@link StockfishEngine} drives an in-process {@link FakeUciEngine} exactly like a child process.
+ * Destroying it closes both pipes, which ends the program even if it stopped answering.
+ */
+class FakeUciProcess extends Process {
+
+    interface Program {
+        /**
+         * @return the exit code
+         */
+        int run(InputStream stdin, OutputStream stdout);
+    }
+
+    private final Pipe stdin = new Pipe();
+    private final Pipe stdout = new Pipe();
+    private final CountDownLatch exited = new CountDownLatch(1);
+    private final Thread thread;
+    private volatile int exitCode;
+
+    FakeUciProcess(Program program) {
+        thread = new Thread(() -> {
+            try {
+                exitCode = program.run(stdin.source(), stdout.sink());
+            } catch (RuntimeException e) {
+                exitCode = 1;
+            } finally {
+                stdin.close();
+                stdout.close();
+                exited.countDown();
+            }
+        }, "fake-uci-engine");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public OutputStream getOutputStream() {
+        return stdin.sink();
+    }
+
+    @Override
+    public InputStream getInputStream() {
+        return stdout.source();
+    }
+
+    @Override
+    public InputStream getErrorStream() {
+        return InputStream.nullInputStream();
+    }
+
+    @Override
+    public int waitFor() throws InterruptedException {
+        exited.await();
+        return exitCode;
+    }
+
+    @Override
+    public boolean waitFor(long timeout, TimeUnit unit) throws InterruptedException {
+        return exited.await(timeout, unit);
+    }
+
+    @Override
+    public int exitValue() {
+        if (exited.getCount() > 0) {
+            throw new IllegalThreadStateException("Fake engine has not exited");
+        }
+        return exitCode;
+    }
+
+    @Override
+    public boolean isAlive() {
+        return exited.getCount() > 0;
+    }
+
+    @Override
+    public void destroy() {
+        if (isAlive()) {
+            exitCode = 143;
+        }
+        stdin.close();
+        stdout.close();
+        thread.interrupt();
+    }
+
+    /**
+     * One-way byte pipe. Unlike PipedInputStream it does not tie either end to the thread that used it
+     * last, so the writer may be any thread, and closing either end wakes a blocked reader with end of stream.
+     */
+    private static class Pipe {
+
+        private static final byte[] EOF = new byte[0];
+
+        private final BlockingQueue<byte[]> chunks = new LinkedBlockingQueue<>();
+        private volatile boolean closed;
+
+        private final InputStream source = new InputStream() {
+            private byte[] chunk = new byte[0];
+            private int position;
+
+            @Override
+            public int read() throws IOException {
+                byte[] one = new byte[1];
+                return read(one, 0, 1) < 0 ? -1 : one[0] & 0xff;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                if (length == 0) {
+                    return 0;
+                }
+                if (position == chunk.length && !nextChunk(true)) {
+                    return -1;
+                }
+                int read = 0;
+                while (read < length) {
+                    if (position == chunk.length && !nextChunk(false)) {
+                        break;
+                    }
+                    int count = Math.min(length - read, chunk.length - position);
+                    System.arraycopy(chunk, position, buffer, offset + read, count);
+                    position += count;
+                    read += count;
+                }
+                return read;
+            }
+
+            /**
+             * Move to the next chunk, waiting for one only if asked to
+             * @return false at end of stream, or when no chunk is ready and waiting was not asked for
+             */
+            private boolean nextChunk(boolean block) throws IOException {
+                byte[] next;
+                try {
+                    next = block ? chunks.take() : chunks.poll();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while reading from the fake engine");
+                }
+                if (next == null) {
+                    return false;
+                }
+                if (next == EOF) {
+                    // Leave the marker for any later read
+                    chunks.offer(EOF);
+                    return false;
+                }
+                chunk = next;
+                position = 0;
+                return true;
+            }
+
+            @Override
+            public void close() {
+                Pipe.this.close();
+            }
+        };
+
+        private final OutputStream sink = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                write(new byte[] {(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] buffer, int offset, int length) throws IOException {
+                if (closed) {
+                    throw new IOException("Broken pipe");
+                }
+                if (length > 0) {
+                    chunks.offer(Arrays.copyOfRange(buffer, offset, offset + length));
+                }
+            }
+
+            @Override
+            public void close() {
+                Pipe.this.close();
+            }
+        };
+
+        InputStream source() {
+            return source;
+        }
+
+        OutputStream sink() {
+            return sink;
+        }
+
+        synchronized void close() {
+            if (!closed) {
+                closed = true;
+                chunks.offer(EOF);
+            }
+        }
+    }
+}
@@ -1,20 +1,26 @@
 package dandastino.chess.engine;
 
 import dandastino.chess.exceptions.BadRequestException;
+import dandastino.chess.exceptions.ConflictException;
 import dandastino.chess.exceptions.NotFoundException;
 import dandastino.chess.games.Game;
 import dandastino.chess.games.GamesRepository;
 import dandastino.chess.games.Status;
+import dandastino.chess.moveAnalyses.PreAnalysisClassifier;
 import dandastino.chess.moves.MovesRepository;
+import dandastino.chess.positionEvaluations.PositionEvaluationService;
+import dandastino.chess.users.User;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.net.URI;
 import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * REST API endpoints for game analysis (Phase 2 AI features)
@@ -28,27 +34,45 @@ public class GameAnalysisController {
     @Autowired
     private GameAnalysisService gameAnalysisService;
     
+    @Autowired
+    private GameAnalysisJobService gameAnalysisJobService;
+    
     @Autowired
     private GamesRepository gamesRepository;
     
     @Autowired
     private MovesRepository movesRepository;
+    
+    @Autowired
+    private PositionEvaluationService positionEvaluationService;
+    
+    @Autowired
+    private PreAnalysisClassifier preAnalysisClassifier;
+    
+    @Autowired
+    private StockfishEngineSupervisor stockfishEngineSupervisor;
 
     /**
-     * Analyze a completed game
+     * Submit the analysis of a completed game as a background job
      * GET /api/analysis/game/{gameId}
      * 
+     * Returns at once with the job id; poll GET /api/analysis/jobs/{jobId} for progress and results.
+     * Submitting a game that is already being analyzed, on any node, returns the running job.
+     * The job runs on whichever node has a free engine.
+     * 
      * Status codes:
-     * - 200: Analysis completed successfully
+     * - 200: Game already analyzed, stored result returned
+     * - 202: Analysis job queued (or already running)
      * - 400: Invalid game state or incomplete game
      * - 404: Game not found
-     * - 500: Database constraint violation or internal error
-     * - 503: Analysis engine not initialized
+     * - 409: Too many analyses in progress for this user
+     * - 500: Internal error
+     * - 503: Analysis engine not initialized or job queue full
      */
     @GetMapping("/game/{gameId}")
-    public ResponseEntity<?> analyzeGame(@PathVariable UUID gameId) {
+    public ResponseEntity<?> analyzeGame(@PathVariable UUID gameId, @AuthenticationPrincipal User currentUser) {
         try {
-            logger.info("Analyzing game: {}", gameId);
+            logger.info("Submitting analysis of game: {}", gameId);
             
             // Validate gameId
             if (gameId == null) {
@@ -71,20 +95,21 @@ public class GameAnalysisController {
                 throw new BadRequestException("No moves found for game " + gameId);
             }
             
-            GameAnalysisResult result = gameAnalysisService.analyzeCompletedGame(game, moves);
+            // Already analyzed: serve the stored result without queuing a job
+            GameAnalysisResult stored = gameAnalysisService.getStoredResult(game, moves);
+            if (stored != null) {
+                return ResponseEntity.ok(stored);
+            }
             
-            if (result == null) {
+            if (!gameAnalysisService.isEngineRunning()) {
                 return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
                         .body("Analysis engine not initialized. Please call POST /api/analysis/init first.");
             }
             
-            if (result.isSuccess()) {
-                return ResponseEntity.ok(result);
-            } else {
-                logger.error("Analysis failed for game {}: {}", gameId, result.getError());
-                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                        .body("Analysis failed: " + result.getError());
-            }
+            AnalysisJobResponseDTO job = gameAnalysisJobService.submit(gameId, currentUser.getUser_id());
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .location(URI.create("/api/analysis/jobs/" + job.jobId()))
+                    .body(job);
             
         } catch (NotFoundException e) {
             logger.error("Game not found: {}", gameId);
@@ -94,17 +119,72 @@ public class GameAnalysisController {
             logger.error("Bad request for game analysis: {}", e.getMessage());
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body(e.getMessage());
-        } catch (DataIntegrityViolationException e) {
-            logger.error("Database constraint violation during analysis", e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body("Database error: Unable to save analysis results. Please check database schema.");
+        } catch (ConflictException e) {
+            logger.warn("Analysis of game {} refused: {}", gameId, e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(e.getMessage());
+        } catch (RejectedExecutionException e) {
+            logger.warn("Analysis queue full, refusing game {}", gameId);
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body("Too many analyses queued. Please try again later.");
         } catch (Exception e) {
-            logger.error("Unexpected error analyzing game {}", gameId, e);
+            logger.error("Unexpected error submitting analysis of game {}", gameId, e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body("Unexpected error: " + e.getMessage());
         }
     }
 
+    /**
+     * Status, progress and partial results of an analysis job
+     * GET /api/analysis/jobs/{jobId}
+     * 
+     * Status codes:
+     * - 200: Job returned (check "status": queued, running, done, failed or cancelled)
+     * - 404: No such job for the current user (finished jobs expire after a while)
+     */
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<?> getJob(@PathVariable UUID jobId, @AuthenticationPrincipal User currentUser) {
+        AnalysisJobResponseDTO job = gameAnalysisJobService.getJob(jobId, currentUser.getUser_id());
+        if (job == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body("Analysis job with ID " + jobId + " not found");
+        }
+        return ResponseEntity.ok(job);
+    }
+
+    /**
+     * Cancel an analysis job of the current user
+     * DELETE /api/analysis/jobs/{jobId}
+     * 
+     * A queued job never starts; a running job stops its engine searches at once and ends as cancelled.
+     * Positions searched so far stay stored, so submitting the game again resumes from there.
+     * 
+     * Status codes:
+     * - 202: Cancellation requested, the job is returned
+     * - 404: No such job for the current user
+     */
+    @DeleteMapping("/jobs/{jobId}")
+    public ResponseEntity<?> cancelJob(@PathVariable UUID jobId, @AuthenticationPrincipal User currentUser) {
+        AnalysisJobResponseDTO job = gameAnalysisJobService.cancel(jobId, currentUser.getUser_id());
+        if (job == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body("Analysis job with ID " + jobId + " not found");
+        }
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+    }
+
+    /**
+     * Analysis jobs of the current user, newest first (results are only included by GET /api/analysis/jobs/{jobId})
+     * GET /api/analysis/jobs
+     * 
+     * Status codes:
+     * - 200: Jobs returned
+     */
+    @GetMapping("/jobs")
+    public ResponseEntity<?> getMyJobs(@AuthenticationPrincipal User currentUser) {
+        return ResponseEntity.ok(gameAnalysisJobService.getJobsForUser(currentUser.getUser_id()));
+    }
+
     /**
      * Get move analysis for a specific move
      * GET /api/analysis/move/{moveId}
@@ -192,16 +272,21 @@ public class GameAnalysisController {
      * Get game insights
      * GET /api/analysis/insights/{gameId}
      * 
+     * Insights are served from the stored analysis; if the game was not analyzed yet an analysis job
+     * is queued and returned instead.
+     * 
      * Status codes:
      * - 200: Insights retrieved successfully
-     * - 204: No insights available (game not analyzed yet)
+     * - 202: Game not analyzed yet, analysis job queued
+     * - 204: No moves in this game
      * - 400: Invalid game ID
      * - 404: Game not found
+     * - 409: Too many analyses in progress for this user
      * - 500: Error retrieving insights
-     * - 503: Analysis engine not initialized
+     * - 503: Analysis engine not initialized or job queue full
      */
     @GetMapping("/insights/{gameId}")
-    public ResponseEntity<?> getGameInsights(@PathVariable UUID gameId) {
+    public ResponseEntity<?> getGameInsights(@PathVariable UUID gameId, @AuthenticationPrincipal User currentUser) {
         try {
             logger.info("Fetching insights for game: {}", gameId);
             
@@ -221,20 +306,20 @@ public class GameAnalysisController {
                         .body("No moves found for game " + gameId);
             }
             
-            // For now, return analysis result with insights
-            GameAnalysisResult result = gameAnalysisService.analyzeCompletedGame(game, moves);
+            GameAnalysisResult stored = gameAnalysisService.getStoredResult(game, moves);
+            if (stored != null) {
+                return ResponseEntity.ok(stored.getInsights());
+            }
             
-            if (result == null) {
+            if (!gameAnalysisService.isEngineRunning()) {
                 return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
                         .body("Analysis engine not initialized. Please call POST /api/analysis/init first.");
             }
             
-            if (result.isSuccess() && result.getInsights() != null) {
-                return ResponseEntity.ok(result.getInsights());
-            } else {
-                return ResponseEntity.status(HttpStatus.NO_CONTENT)
-                        .body("No insights available for game " + gameId);
-            }
+            AnalysisJobResponseDTO job = gameAnalysisJobService.submit(gameId, currentUser.getUser_id());
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .location(URI.create("/api/analysis/jobs/" + job.jobId()))
+                    .body(job);
             
         } catch (NotFoundException e) {
             logger.error("Game not found: {}", gameId);
@@ -244,6 +329,14 @@ public class GameAnalysisController {
             logger.error("Bad request for insights: {}", e.getMessage());
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body(e.getMessage());
+        } catch (ConflictException e) {
+            logger.warn("Analysis of game {} refused: {}", gameId, e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(e.getMessage());
+        } catch (RejectedExecutionException e) {
+            logger.warn("Analysis queue full, refusing game {}", gameId);
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body("Too many analyses queued. Please try again later.");
         } catch (Exception e) {
             logger.error("Unexpected error retrieving insights for game {}", gameId, e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -251,6 +344,42 @@ public class GameAnalysisController {
         }
     }
 
+    /**
+     * Evaluation cache size and hit rate, for the memory tier and the shared database tier
+     * GET /api/analysis/cache/stats
+     * 
+     * Status codes:
+     * - 200: Statistics returned
+     */
+    @GetMapping("/cache/stats")
+    public ResponseEntity<?> getCacheStats() {
+        return ResponseEntity.ok(positionEvaluationService.getStats());
+    }
+
+    /**
+     * Share of position searches skipped by the pre-analysis classifier (forced, book and decided moves)
+     * GET /api/analysis/shortcuts/stats
+     * 
+     * Status codes:
+     * - 200: Statistics returned
+     */
+    @GetMapping("/shortcuts/stats")
+    public ResponseEntity<?> getShortcutStats() {
+        return ResponseEntity.ok(preAnalysisClassifier.getStats());
+    }
+
+    /**
+     * State of every engine process: idle, busy or restarting, with its last isready latency
+     * GET /api/analysis/engines
+     * 
+     * Status codes:
+     * - 200: Engine states returned
+     */
+    @GetMapping("/engines")
+    public ResponseEntity<?> getEngineStatus() {
+        return ResponseEntity.ok(stockfishEngineSupervisor.getStats());
+    }
+
     /**
      * Health check for analysis service
      * GET /api/analysis/health
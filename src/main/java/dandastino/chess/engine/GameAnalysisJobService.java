@@ -0,0 +1,330 @@
+package dandastino.chess.engine;
+
+import dandastino.chess.analysisQueue.AnalysisQueueEntry;
+import dandastino.chess.analysisQueue.AnalysisQueueService;
+import dandastino.chess.exceptions.ConflictException;
+import dandastino.chess.games.Game;
+import dandastino.chess.games.GamesRepository;
+import dandastino.chess.games.Status;
+import dandastino.chess.moves.Move;
+import dandastino.chess.moves.MovesRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.net.InetAddress;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs full-game analyses as background jobs so HTTP requests return immediately.
+ * Jobs wait in a queue table shared by every node (see {@link AnalysisQueueService}); each node
+ * claims jobs while it has free workers and idle engines, so analysis load spreads over the cluster.
+ * Each user may only have a few jobs queued or running at once. Running jobs renew their lease
+ * with heartbeats; a job whose node dies is retried elsewhere, and finished jobs are kept for polling, then dropped.
+ */
+@Service
+public class GameAnalysisJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(GameAnalysisJobService.class);
+
+    @Autowired
+    private GameAnalysisService gameAnalysisService;
+
+    @Autowired
+    private AnalysisQueueService analysisQueueService;
+
+    @Autowired
+    private StockfishEnginePool enginePool;
+
+    @Autowired
+    private GamesRepository gamesRepository;
+
+    @Autowired
+    private MovesRepository movesRepository;
+
+    @Value("${stockfish.jobs.max-per-user:2}")
+    private int maxJobsPerUser;
+
+    // Queued jobs across the whole cluster
+    @Value("${stockfish.jobs.queue-capacity:100}")
+    private long queueCapacity;
+
+    @Value("${stockfish.jobs.retention-minutes:60}")
+    private long retentionMinutes;
+
+    @Value("${stockfish.queue.lease-ms:30000}")
+    private long leaseMs;
+
+    private final int workers;
+    private final String nodeId;
+    // Jobs claimed by this node and not finished yet
+    private final Map<UUID, AnalysisJob> runningJobs = new ConcurrentHashMap<>();
+    private final ThreadPoolExecutor executor;
+    private volatile boolean shuttingDown;
+
+    public GameAnalysisJobService(@Value("${stockfish.jobs.workers:2}") int workers,
+                                  @Value("${stockfish.queue.node-id:}") String nodeId) {
+        AtomicInteger threadCount = new AtomicInteger();
+        this.workers = workers;
+        this.nodeId = nodeId.isBlank() ? defaultNodeId() : nodeId;
+        this.executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(),
+                runnable -> new Thread(runnable, "analysis-worker-" + threadCount.incrementAndGet()));
+    }
+
+    /**
+     * Queue the analysis of a finished game.
+     * If the game is already queued or running on any node, the existing job is returned instead of starting another.
+     * @throws ConflictException if the user already has the maximum number of active jobs
+     * @throws RejectedExecutionException if the job queue is full
+     */
+    public synchronized AnalysisJobResponseDTO submit(UUID gameId, UUID userId) {
+        Optional<AnalysisQueueEntry> existing = analysisQueueService.findActiveForGame(gameId);
+        if (existing.isPresent()) {
+            return toResponse(existing.get(), false);
+        }
+
+        long activeForUser = analysisQueueService.countActiveForUser(userId);
+        if (activeForUser >= maxJobsPerUser) {
+            throw new ConflictException("You already have " + activeForUser
+                    + " analyses in progress. Wait for one to finish before submitting another.");
+        }
+        long queued = analysisQueueService.countQueued();
+        if (queued >= queueCapacity) {
+            throw new RejectedExecutionException("Analysis queue is full (" + queued + " jobs waiting)");
+        }
+
+        AnalysisQueueEntry entry = analysisQueueService.enqueue(gameId, userId);
+        logger.info("Queued analysis job {} for game {} ({} waiting)", entry.getJob_id(), gameId, queued + 1);
+        // Start right away if this node has room, instead of waiting for the next poll
+        claimJobs();
+        return toResponse(entry, false);
+    }
+
+    /**
+     * The job with this id if it belongs to the user, or null.
+     * A job running on this node includes the move reviews saved so far; a finished job includes its result.
+     */
+    public AnalysisJobResponseDTO getJob(UUID jobId, UUID userId) {
+        AnalysisJob local = runningJobs.get(jobId);
+        if (local != null && local.getUserId().equals(userId)) {
+            return local.toResponse();
+        }
+        return analysisQueueService.find(jobId, userId).map(entry -> toResponse(entry, true)).orElse(null);
+    }
+
+    /**
+     * Jobs of a user still kept in the queue, newest first, without their results
+     */
+    public List<AnalysisJobResponseDTO> getJobsForUser(UUID userId) {
+        return analysisQueueService.findForUser(userId).stream()
+                .map(entry -> toResponse(entry, false))
+                .toList();
+    }
+
+    /**
+     * Cancel a queued or running job of the user, whichever node runs it.
+     * @return the job, or null if the user has no job with this id
+     */
+    public AnalysisJobResponseDTO cancel(UUID jobId, UUID userId) {
+        if (analysisQueueService.requestCancel(jobId, userId)) {
+            logger.info("Cancelled analysis job {}", jobId);
+        }
+        // The owner of a job running elsewhere sees the request at its next heartbeat
+        AnalysisJob local = runningJobs.get(jobId);
+        if (local != null && local.getUserId().equals(userId)) {
+            local.cancel();
+        }
+        return getJob(jobId, userId);
+    }
+
+    /**
+     * Take back jobs of dead nodes, then claim jobs while this node has free workers and idle engines
+     */
+    @Scheduled(fixedDelayString = "${stockfish.queue.poll-interval-ms:1000}")
+    public void pollQueue() {
+        try {
+            analysisQueueService.requeueExpiredLeases();
+            claimJobs();
+        } catch (Exception e) {
+            logger.warn("Could not poll the analysis queue: {}", e.getMessage());
+        }
+    }
+
+    private synchronized void claimJobs() {
+        if (shuttingDown || !enginePool.isRunning()) {
+            return;
+        }
+        int capacity = Math.min(workers - runningJobs.size(), enginePool.getIdleCount());
+        for (int i = 0; i < capacity; i++) {
+            AnalysisQueueService.ClaimedJob claimed = analysisQueueService.claimNext(nodeId, leaseMs);
+            if (claimed == null) {
+                return;
+            }
+            AnalysisJob job = new AnalysisJob(claimed.jobId(), claimed.gameId(), claimed.userId(), claimed.submittedAt());
+            runningJobs.put(job.getJobId(), job);
+            logger.info("Claimed analysis job {} for game {} (attempt {})", job.getJobId(), job.getGameId(), claimed.attempts());
+            executor.execute(() -> run(job));
+        }
+    }
+
+    /**
+     * Renew the leases of the jobs running here, publish their progress and pick up cancellations
+     */
+    @Scheduled(fixedDelayString = "${stockfish.queue.heartbeat-interval-ms:5000}")
+    public void sendHeartbeats() {
+        for (AnalysisJob job : runningJobs.values()) {
+            try {
+                AnalysisQueueService.Heartbeat heartbeat = analysisQueueService.heartbeat(job.getJobId(), nodeId, leaseMs,
+                        job.getPositionsEvaluated(), job.getPositionsTotal());
+                if (heartbeat == AnalysisQueueService.Heartbeat.LEASE_LOST) {
+                    logger.warn("Lost the lease of analysis job {}, stopping it", job.getJobId());
+                    job.cancel();
+                } else if (heartbeat == AnalysisQueueService.Heartbeat.CANCEL_REQUESTED) {
+                    job.cancel();
+                }
+            } catch (Exception e) {
+                logger.warn("Could not renew the lease of analysis job {}: {}", job.getJobId(), e.getMessage());
+            }
+        }
+    }
+
+    private void run(AnalysisJob job) {
+        boolean retryable = true;
+        try {
+            if (!job.start()) {
+                logger.info("Skipping cancelled analysis job {}", job.getJobId());
+            } else {
+                logger.info("Running analysis job {} for game {}", job.getJobId(), job.getGameId());
+                retryable = analyze(job);
+            }
+        } finally {
+            runningJobs.remove(job.getJobId());
+        }
+        logger.info("Analysis job {} finished: {}", job.getJobId(), job.getStatus());
+
+        if (shuttingDown) {
+            // The lease is handed back on shutdown, another node picks the job up
+            return;
+        }
+        try {
+            if (job.getStatus() == AnalysisJobStatus.failed && retryable) {
+                analysisQueueService.retryOrFail(job.getJobId(), nodeId, job.getError());
+            } else {
+                analysisQueueService.finish(job.getJobId(), nodeId, job.getStatus(), job.getError());
+            }
+        } catch (Exception e) {
+            // The lease will expire and the job will run again, reusing whatever was stored
+            logger.error("Could not record the outcome of analysis job {}", job.getJobId(), e);
+        }
+    }
+
+    /**
+     * @return whether a failure may succeed on another attempt; a missing or unfinished game
+     * and an engine pool that is not started fail the same way every time
+     */
+    private boolean analyze(AnalysisJob job) {
+        try {
+            Game game = gamesRepository.findById(job.getGameId()).orElse(null);
+            if (game == null) {
+                job.fail("Game with ID " + job.getGameId() + " not found");
+                return false;
+            }
+            if (game.getStatus() != Status.done) {
+                job.fail("Game with ID " + job.getGameId() + " is not finished");
+                return false;
+            }
+            List<Move> moves = movesRepository.findByGameId(job.getGameId());
+            GameAnalysisResult result = gameAnalysisService.analyzeCompletedGame(game, moves, job);
+            if (result == null) {
+                // The pool is not started on this node: another attempt here would fail the same way
+                job.fail("Analysis engine not initialized. Please call POST /api/analysis/init first.");
+                return false;
+            } else if (!result.isSuccess()) {
+                job.fail(result.getError());
+            } else {
+                job.complete(result);
+            }
+        } catch (Exception e) {
+            logger.error("Analysis job {} failed", job.getJobId(), e);
+            job.fail(e.getMessage());
+        }
+        return true;
+    }
+
+    private AnalysisJobResponseDTO toResponse(AnalysisQueueEntry entry, boolean withResult) {
+        AnalysisJob local = runningJobs.get(entry.getJob_id());
+        if (local != null) {
+            return local.toResponse();
+        }
+        GameAnalysisResult result = withResult && entry.getStatus() == AnalysisJobStatus.done
+                ? loadStoredResult(entry.getGame_id())
+                : null;
+        return new AnalysisJobResponseDTO(entry.getJob_id(), entry.getGame_id(), entry.getStatus(),
+                AnalysisQueueService.toLocal(entry.getSubmitted_at()), AnalysisQueueService.toLocal(entry.getStarted_at()),
+                AnalysisQueueService.toLocal(entry.getFinished_at()),
+                entry.getPositions_evaluated(), entry.getPositions_total(), List.of(), result, entry.getError());
+    }
+
+    /**
+     * Result of a job that finished on any node, rebuilt from the stored report and move reviews
+     */
+    private GameAnalysisResult loadStoredResult(UUID gameId) {
+        Game game = gamesRepository.findById(gameId).orElse(null);
+        if (game == null) {
+            return null;
+        }
+        return gameAnalysisService.getStoredResult(game, movesRepository.findByGameId(gameId));
+    }
+
+    /**
+     * Drop finished jobs nobody polled within the retention period
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void evictFinishedJobs() {
+        try {
+            analysisQueueService.evictFinished(retentionMinutes);
+        } catch (Exception e) {
+            logger.warn("Could not evict finished analysis jobs: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        shuttingDown = true;
+        runningJobs.values().forEach(AnalysisJob::cancel);
+        executor.shutdownNow();
+        try {
+            int released = analysisQueueService.releaseLeases(nodeId);
+            if (released > 0) {
+                logger.info("Handed {} running analysis jobs back to the queue", released);
+            }
+        } catch (Exception e) {
+            logger.warn("Could not hand running analysis jobs back to the queue: {}", e.getMessage());
+        }
+    }
+
+    private static String defaultNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "node";
+        }
+        // Unique per process, so a restarted node never renews the leases of its previous run
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
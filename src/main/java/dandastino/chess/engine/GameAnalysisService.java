@@ -1,26 +1,48 @@
 package dandastino.chess.engine;
 
+import dandastino.chess.cheatingAnalyses.CheatingAnalysesRepository;
 import dandastino.chess.cheatingAnalyses.CheatingAnalysis;
 import dandastino.chess.cheatingAnalyses.CheatingAnalysisResponseDTO;
 import dandastino.chess.cheatingAnalyses.CheatingDetectionService;
+import dandastino.chess.gameAnalysisReports.GameAnalysisReport;
+import dandastino.chess.gameAnalysisReports.GameAnalysisReportsRepository;
 import dandastino.chess.games.Game;
+import dandastino.chess.gamesOpenings.GameOpening;
 import dandastino.chess.gamesOpenings.GameOpeningDTO;
 import dandastino.chess.gamesOpenings.GameOpeningService;
+import dandastino.chess.gamesOpenings.GameOpeningsRepository;
 import dandastino.chess.moveAnalyses.MoveAnalysis;
 import dandastino.chess.moveAnalyses.MoveAnalysisEngineService;
-import dandastino.chess.moveAnalyses.MoveAnalysesRepository;
+import dandastino.chess.moveAnalyses.MoveAnalysisService;
+import dandastino.chess.moveAnalyses.PreAnalysisClassifier;
 import dandastino.chess.moves.Move;
-import dandastino.chess.moves.MovesRepository;
 import dandastino.chess.openings.Opening;
 import dandastino.chess.openings.OpeningClassificationService;
+import dandastino.chess.playerStatistics.PlayerStatisticsService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Main orchestrator for AI analysis features (Phase 2).
@@ -31,8 +53,8 @@ public class GameAnalysisService {
     
     private static final Logger logger = LoggerFactory.getLogger(GameAnalysisService.class);
     
-    @Value("${stockfish.path:/usr/games/stockfish}")
-    private String stockfishPath;
+    @Autowired
+    private StockfishEnginePool enginePool;
     
     @Autowired
     private OpeningClassificationService openingService;
@@ -47,20 +69,48 @@ public class GameAnalysisService {
     private MoveAnalysisEngineService moveAnalysisEngineService;
     
     @Autowired
-    private MoveAnalysesRepository moveAnalysesRepository;
-    
+    private MoveAnalysisService moveAnalysisService;
+
     @Autowired
-    private MovesRepository movesRepository;
-    
-    private StockfishEngine stockfishEngine;
+    private PreAnalysisClassifier preAnalysisClassifier;
+
+    @Autowired
+    private GameAnalysisReportsRepository gameAnalysisReportsRepository;
+
+    @Autowired
+    private GameOpeningsRepository gameOpeningsRepository;
+
+    @Autowired
+    private CheatingAnalysesRepository cheatingAnalysesRepository;
+
+    @Autowired
+    private PlayerStatisticsService playerStatisticsService;
+
+    @Value("${stockfish.analysis.parallel:true}")
+    private boolean parallelAnalysis;
+
+    @Value("${stockfish.analysis.max-engines-per-game:0}")
+    private int maxEnginesPerGame;
+
+    // Threads for helper searches; each one holds a pooled engine, so the pool bounds their number
+    private final ExecutorService searchExecutor = Executors.newCachedThreadPool(new ThreadFactory() {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "analysis-search-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
 
     /**
-     * Initialize Stockfish engine (called on application startup)
+     * Initialize the Stockfish engine pool (called on application startup)
      */
     public void initializeEngine() {
         try {
-            stockfishEngine = new StockfishEngine(stockfishPath);
-            logger.info("Game Analysis Service initialized with Stockfish");
+            enginePool.start();
+            logger.info("Game Analysis Service initialized with {} Stockfish engine(s)", enginePool.getSize());
             
             // Initialize common openings database
             openingService.initializeCommonOpenings();
@@ -76,7 +126,23 @@ public class GameAnalysisService {
      * - Detect cheating indicators
      */
     public GameAnalysisResult analyzeCompletedGame(Game game, List<Move> moves) {
-        if (stockfishEngine == null) {
+        return analyzeCompletedGame(game, moves, AnalysisProgressListener.NONE);
+    }
+
+    /**
+     * Perform complete analysis on a finished game, reporting progress to the listener.
+     * Work saved by earlier runs is reused: a stored report is returned as is when every move review
+     * is still valid, otherwise only the moves without a valid review are searched.
+     */
+    public GameAnalysisResult analyzeCompletedGame(Game game, List<Move> moves, AnalysisProgressListener listener) {
+        GameAnalysisResult stored = getStoredResult(game, moves);
+        if (stored != null) {
+            logger.info("Serving stored analysis of game {}", game.getGame_id());
+            stored.getMoveAnalyses().forEach(listener::moveAnalyzed);
+            return stored;
+        }
+
+        if (!enginePool.isRunning()) {
             logger.error("Stockfish engine not initialized. Please call POST /api/analysis/init first.");
             return null;
         }
@@ -87,42 +153,54 @@ public class GameAnalysisService {
         result.setGameId(game.getGame_id());
 
         try {
+            long staleMoves = moves.stream().filter(this::needsAnalysis).count();
+
             // 1. Analyze each move
-            List<MoveAnalysis> moveAnalyses = analyzeMoves(game, moves);
+            List<MoveAnalysis> moveAnalyses = analyzeMoves(game, moves, listener);
             result.setMoveAnalyses(moveAnalyses);
             logger.info("Analyzed {} moves", moveAnalyses.size());
 
-            // 2. Classify opening
-            Opening opening = openingService.classifyOpening(moves);
+            // 2. Classify opening, unless an earlier run already recorded it
+            Opening opening = findRecordedOpening(game);
+            if (opening == null) {
+                opening = openingService.classifyOpening(moves);
+                if (opening != null) {
+                    // Save the game-opening relationship to database
+                    try {
+                        GameOpeningDTO gameOpeningDTO = new GameOpeningDTO(game.getGame_id(), opening.getOpening_id());
+                        gameOpeningService.createGameOpening(gameOpeningDTO);
+                        logger.info("Saved game opening relationship for game {} and opening {}", game.getGame_id(), opening.getOpening_id());
+                    } catch (Exception e) {
+                        logger.error("Failed to save game opening relationship: {}", e.getMessage());
+                    }
+                }
+            }
             result.setOpening(opening);
             if (opening != null) {
                 logger.info("Opening: {} ({})", opening.getName(), opening.getEco_code());
-                // Save the game-opening relationship to database
-                try {
-                    GameOpeningDTO gameOpeningDTO = new GameOpeningDTO(game.getGame_id(), opening.getOpening_id());
-                    gameOpeningService.createGameOpening(gameOpeningDTO);
-                    logger.info("Saved game opening relationship for game {} and opening {}", game.getGame_id(), opening.getOpening_id());
-                } catch (Exception e) {
-                    logger.error("Failed to save game opening relationship: {}", e.getMessage());
-                }
             }
 
-            // 3. Detect cheating - now with proper error handling
+            // 3. Detect cheating - reuse the latest result if no move review changed since, rescore otherwise
+            CheatingAnalysis cheatingAnalysis = null;
+            // Games a bot played are not analysed, which is not an error
+            boolean botGame = CheatingDetectionService.involvesBot(game);
             try {
-                CheatingAnalysis cheatingAnalysis = cheatingDetectionService.analyzeGame(game, moves);
+                if (botGame) {
+                    logger.info("No cheating analysis for game {}: a bot played it", game.getGame_id());
+                } else if (staleMoves > 0) {
+                    // The stored scores were computed from the previous reviews
+                    cheatingAnalysis = cheatingDetectionService.rescoreGame(game, moves);
+                } else {
+                    cheatingAnalysis = findCheatingAnalysis(game);
+                    if (cheatingAnalysis == null) {
+                        cheatingAnalysis = cheatingDetectionService.analyzeGame(game, moves);
+                    }
+                }
                 if (cheatingAnalysis != null) {
                     // Convert entity to DTO to avoid lazy loading issues
-                    CheatingAnalysisResponseDTO dto = new CheatingAnalysisResponseDTO(
-                            cheatingAnalysis.getCheating_analysis_id(),
-                            cheatingAnalysis.getCheating_game() != null ? cheatingAnalysis.getCheating_game().getGame_id() : null,
-                            cheatingAnalysis.getCheating_user() != null ? cheatingAnalysis.getCheating_user().getUser_id() : null,
-                            cheatingAnalysis.getMatch_accuracy_perc(),
-                            cheatingAnalysis.getSuspicion_score(),
-                            cheatingAnalysis.getCreated_at()
-                    );
-                    result.setCheatingAnalysis(dto);
+                    result.setCheatingAnalysis(toCheatingAnalysisDTO(cheatingAnalysis));
                     logger.info("Cheating analysis: suspicion={}", cheatingAnalysis.getSuspicion_score());
-                } else {
+                } else if (!botGame) {
                     logger.warn("Cheating analysis returned null for game {}", game.getGame_id());
                     result.setCheatingAnalysisError("Cheating analysis could not be completed");
                 }
@@ -135,6 +213,12 @@ public class GameAnalysisService {
             GameInsights insights = generateInsights(game, moveAnalyses, opening);
             result.setInsights(insights);
 
+            // 5. Store the game-level results so later requests skip the engine
+            saveReport(game, opening, cheatingAnalysis, result.getCheatingAnalysisError(), insights);
+
+            // 6. Add the game to the players' rolling statistics, once even if it is analysed again
+            recordPlayerStatistics(game, moves);
+
             result.setSuccess(true);
             return result;
 
@@ -147,10 +231,118 @@ public class GameAnalysisService {
     }
 
     /**
-     * Analyze individual moves in a game using Stockfish engine
+     * The stored analysis of a game, or null if the game was never fully analyzed
+     * or some of its move reviews are missing or shallower than the current analysis depth
      */
-    private List<MoveAnalysis> analyzeMoves(Game game, List<Move> moves) {
-        if (stockfishEngine == null) {
+    public GameAnalysisResult getStoredResult(Game game, List<Move> moves) {
+        GameAnalysisReport report = gameAnalysisReportsRepository.findByGameId(game.getGame_id()).orElse(null);
+        if (report == null || report.getAnalysis_depth() < moveAnalysisEngineService.getAnalysisDepth()) {
+            return null;
+        }
+
+        List<MoveAnalysis> moveAnalyses = new ArrayList<>(moves.size());
+        for (Move move : moves) {
+            if (needsAnalysis(move)) {
+                return null;
+            }
+            if (move.getMoveAnalysis() != null) {
+                moveAnalyses.add(move.getMoveAnalysis());
+            }
+        }
+
+        GameInsights insights = new GameInsights();
+        insights.setOpeningPlayed(report.getOpening() != null ? report.getOpening().getName() : null);
+        insights.setBlunderCount(report.getBlunder_count());
+        insights.setMistakeCount(report.getMistake_count());
+        if (report.getInsights() != null && !report.getInsights().isEmpty()) {
+            insights.setInsights(new ArrayList<>(List.of(report.getInsights().split("\n"))));
+        }
+
+        GameAnalysisResult result = new GameAnalysisResult();
+        result.setGameId(game.getGame_id());
+        result.setMoveAnalyses(moveAnalyses);
+        result.setOpening(report.getOpening());
+        if (report.getCheating_analysis() != null) {
+            result.setCheatingAnalysis(toCheatingAnalysisDTO(report.getCheating_analysis()));
+        }
+        result.setCheatingAnalysisError(report.getCheating_analysis_error());
+        result.setInsights(insights);
+        result.setSuccess(true);
+        return result;
+    }
+
+    /**
+     * A move needs (re-)analysis if it has a position after it and no valid review at the current depth
+     */
+    private boolean needsAnalysis(Move move) {
+        return move.getFenAfterMove() != null && !move.getFenAfterMove().isEmpty()
+                && !moveAnalysisEngineService.isUpToDate(move.getMoveAnalysis());
+    }
+
+    private Opening findRecordedOpening(Game game) {
+        List<GameOpening> recorded = gameOpeningsRepository.findByGameId(game.getGame_id());
+        return recorded.isEmpty() ? null : recorded.get(0).getOpening();
+    }
+
+    /**
+     * The analysis of the more suspicious player; each player has one analysis per game
+     */
+    private CheatingAnalysis findCheatingAnalysis(Game game) {
+        return cheatingAnalysesRepository.findByGameId(game.getGame_id()).stream()
+                .max(Comparator.comparingDouble(CheatingAnalysis::getSuspicion_score))
+                .orElse(null);
+    }
+
+    private CheatingAnalysisResponseDTO toCheatingAnalysisDTO(CheatingAnalysis cheatingAnalysis) {
+        return new CheatingAnalysisResponseDTO(
+                cheatingAnalysis.getCheating_analysis_id(),
+                cheatingAnalysis.getCheating_game() != null ? cheatingAnalysis.getCheating_game().getGame_id() : null,
+                cheatingAnalysis.getCheating_user() != null ? cheatingAnalysis.getCheating_user().getUser_id() : null,
+                cheatingAnalysis.getMatch_accuracy_perc(),
+                cheatingAnalysis.getSuspicion_score(),
+                cheatingAnalysis.getCreated_at()
+        );
+    }
+
+    /**
+     * Create or update the single stored report of the game
+     */
+    private void saveReport(Game game, Opening opening, CheatingAnalysis cheatingAnalysis,
+                            String cheatingAnalysisError, GameInsights insights) {
+        try {
+            GameAnalysisReport report = gameAnalysisReportsRepository.findByGameId(game.getGame_id())
+                    .orElseGet(() -> new GameAnalysisReport(game));
+            report.setOpening(opening);
+            report.setCheating_analysis(cheatingAnalysis);
+            report.setCheating_analysis_error(cheatingAnalysisError);
+            report.setAnalysis_depth(moveAnalysisEngineService.getAnalysisDepth());
+            report.setBlunder_count(insights.getBlunderCount());
+            report.setMistake_count(insights.getMistakeCount());
+            report.setInsights(String.join("\n", insights.getInsights()));
+            report.setUpdated_at(LocalDateTime.now());
+            gameAnalysisReportsRepository.save(report);
+        } catch (Exception e) {
+            logger.error("Failed to store analysis report of game {}: {}", game.getGame_id(), e.getMessage());
+        }
+    }
+
+    private void recordPlayerStatistics(Game game, List<Move> moves) {
+        try {
+            // Flag and merges are one transaction: a failure leaves the game for the next analysis
+            playerStatisticsService.recordAnalysis(game, moves);
+        } catch (Exception e) {
+            logger.error("Failed to record player statistics of game {}: {}", game.getGame_id(), e.getMessage());
+        }
+    }
+
+    /**
+     * Analyze individual moves in a game using Stockfish engine.
+     * Moves that already have a review at the analysis depth keep it; only the positions around the
+     * other moves are evaluated, and positions searched by an interrupted run come back from the
+     * evaluation store, so a repeated request resumes where the previous one stopped.
+     */
+    private List<MoveAnalysis> analyzeMoves(Game game, List<Move> moves, AnalysisProgressListener listener) throws InterruptedException {
+        if (!enginePool.isRunning()) {
             logger.error("Stockfish engine not initialized, cannot analyze moves");
             throw new IllegalStateException("Stockfish engine not initialized. Please call POST /api/analysis/init first.");
         }
@@ -160,26 +352,68 @@ public class GameAnalysisService {
             return List.of();
         }
         
-        logger.info("Analyzing {} moves with Stockfish engine", moves.size());
-        
-        List<MoveAnalysis> analysisResults = new ArrayList<>();
-        
         // Start with initial FEN from game
         String initialFen = game.getInitialFen();
         if (initialFen == null || initialFen.isEmpty()) {
             initialFen = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1"; // Standard starting position
         }
         
-        String fenBefore = initialFen;
+        // Position i is the one before move i, position i + 1 the one after it
+        List<String> positions = new ArrayList<>(moves.size() + 1);
+        positions.add(initialFen);
+        for (Move move : moves) {
+            positions.add(move.getFenAfterMove());
+        }
+        
+        // Forced, book and decided moves are labelled without the engine
+        MoveAnalysis[] shortcuts = preAnalysisClassifier.classify(moves, positions);
+        
+        // Only the positions on both sides of a move that still needs the engine have to be evaluated
+        boolean[] needed = new boolean[positions.size()];
+        boolean[] neededWithoutShortcuts = new boolean[positions.size()];
+        int reused = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            if (needsAnalysis(moves.get(i))) {
+                neededWithoutShortcuts[i] = true;
+                neededWithoutShortcuts[i + 1] = true;
+                if (shortcuts[i] == null) {
+                    needed[i] = true;
+                    needed[i + 1] = true;
+                }
+            } else if (moves.get(i).getMoveAnalysis() != null) {
+                reused++;
+                listener.moveAnalyzed(moves.get(i).getMoveAnalysis());
+            }
+        }
+        if (reused > 0) {
+            logger.info("Reusing {} move reviews from an earlier analysis", reused);
+        }
+        preAnalysisClassifier.recordSavings(collectPositions(positions, neededWithoutShortcuts, moves).size(),
+                collectPositions(positions, needed, moves).size());
+        
+        // 1. Search every distinct position once: move i's "after" is move i + 1's "before"
+        Map<String, EngineAnalysis> evaluations = evaluatePositions(positions, needed, moves, listener);
+        if (listener.isCancelled()) {
+            // Finished searches are in the evaluation store, so a new request picks up from here
+            throw new CancellationException("Analysis cancelled");
+        }
         
-        // Analyze each move
+        // 2. Derive each move's review from the evaluations on both sides of it
+        List<MoveAnalysis> reviews = new ArrayList<>(moves.size());
         for (int i = 0; i < moves.size(); i++) {
             Move move = moves.get(i);
-            String fenAfter = move.getFenAfterMove();
+            String fenBefore = positions.get(i);
+            String fenAfter = positions.get(i + 1);
             
             if (fenAfter == null || fenAfter.isEmpty()) {
                 logger.warn("Move {} has no FEN after move, skipping analysis", i + 1);
-                fenBefore = fenAfter; // Continue to next move
+                continue;
+            }
+            if (!needsAnalysis(move)) {
+                continue;
+            }
+            if (shortcuts[i] != null) {
+                reviews.add(shortcuts[i]);
                 continue;
             }
             
@@ -187,44 +421,172 @@ public class GameAnalysisService {
                 logger.debug("Analyzing move {}/{}: {} (from {} to {})", 
                            i + 1, moves.size(), move.getSanMove(), fenBefore, fenAfter);
                 
-                // Analyze the move quality using Stockfish
                 MoveAnalysis analysis = moveAnalysisEngineService.analyzeMoveQuality(
-                    stockfishEngine, 
-                    fenBefore, 
-                    move, 
-                    fenAfter
+                    move,
+                    evaluations.get(fenBefore),
+                    evaluations.get(fenAfter)
                 );
+                if (analysis == null) {
+                    // Never searched: leave the move unreviewed so the next analysis picks it up
+                    logger.warn("Position before move {} was not evaluated, leaving it for the next analysis", i + 1);
+                    continue;
+                }
                 
                 // Set bidirectional relationship
                 analysis.setMove(move);
-                
-                // Save analysis to database
-                MoveAnalysis savedAnalysis = moveAnalysesRepository.save(analysis);
-                
-                // Link analysis to move and save
-                move.setMoveAnalysis(savedAnalysis);
-                movesRepository.save(move);
-                
-                analysisResults.add(savedAnalysis);
-                
-                logger.debug("Move analysis saved: {} - Review: {}", 
-                           move.getSanMove(), savedAnalysis.getReview());
+                reviews.add(analysis);
                 
             } catch (Exception e) {
                 logger.error("Error analyzing move {}: {}", i + 1, e.getMessage(), e);
                 // Continue with next move even if one fails
             }
-            
-            // Update fenBefore for next iteration
-            fenBefore = fenAfter;
         }
         
-        logger.info("Completed analysis of {} moves, {} successful analyses", 
-                   moves.size(), analysisResults.size());
+        // 3. Save every new analysis and link it to its move in a single transaction
+        for (MoveAnalysis savedAnalysis : moveAnalysisService.saveGameAnalyses(reviews)) {
+            listener.moveAnalyzed(savedAnalysis);
+        }
+        
+        // Reused and new reviews, in ply order
+        List<MoveAnalysis> analysisResults = new ArrayList<>(moves.size());
+        for (Move move : moves) {
+            if (move.getMoveAnalysis() != null) {
+                analysisResults.add(move.getMoveAnalysis());
+            }
+        }
+        
+        logger.info("Completed analysis of {} moves, {} successful analyses ({} reused)", 
+                   moves.size(), analysisResults.size(), reused);
         
         return analysisResults;
     }
 
+    /**
+     * Run one engine search per distinct position of the game.
+     * Positions are independent, so they are spread over every idle engine of the pool;
+     * the caller computes the reviews afterwards, in ply order.
+     * @param positions FEN before the first move followed by the FEN after every move
+     * @param needed whether each position has to be evaluated
+     * @return evaluations keyed by FEN; positions the engine could not search are absent
+     */
+    private Map<String, EngineAnalysis> evaluatePositions(List<String> positions, boolean[] needed, List<Move> moves,
+                                                         AnalysisProgressListener listener) throws InterruptedException {
+        Set<String> pending = collectPositions(positions, needed, moves);
+        listener.positionsPlanned(pending.size());
+        // Openings and common endgames are usually stored from earlier games, possibly by another node
+        Map<String, EngineAnalysis> evaluations = new HashMap<>(moveAnalysisEngineService.getCachedEvaluations(pending));
+        pending.removeAll(evaluations.keySet());
+        listener.positionsEvaluated(evaluations.size());
+        
+        logger.info("{} positions served from the evaluation cache, {} to search for {} moves",
+                evaluations.size(), pending.size(), moves.size());
+        if (pending.isEmpty()) {
+            return evaluations;
+        }
+        
+        // The calling thread searches with one engine; in parallel mode idle engines join in as helpers.
+        // Each searcher takes the next position from a shared queue, so a slow position does not hold up the others.
+        Map<String, EngineAnalysis> results = new ConcurrentHashMap<>(evaluations);
+        Queue<String> queue = new ConcurrentLinkedQueue<>(pending);
+        StockfishEngine stockfishEngine = enginePool.borrow();
+        List<CompletableFuture<Void>> helpers = new ArrayList<>();
+        if (parallelAnalysis) {
+            int maxEngines = maxEnginesPerGame > 0 ? maxEnginesPerGame : enginePool.getSize();
+            for (int i = 1; i < Math.min(maxEngines, pending.size()); i++) {
+                StockfishEngine helperEngine = enginePool.tryBorrow();
+                if (helperEngine == null) {
+                    break;
+                }
+                helpers.add(CompletableFuture.runAsync(
+                        () -> searchQueue(helperEngine, queue, results, listener), searchExecutor));
+            }
+        }
+        logger.info("Searching {} positions with {} engine(s)", pending.size(), helpers.size() + 1);
+        searchQueue(stockfishEngine, queue, results, listener);
+        CompletableFuture.allOf(helpers.toArray(new CompletableFuture[0])).join();
+        
+        return results;
+    }
+
+    /**
+     * Distinct positions to search, in ply order
+     */
+    private Set<String> collectPositions(List<String> positions, boolean[] needed, List<Move> moves) {
+        Set<String> pending = new LinkedHashSet<>();
+        for (int i = 0; i < positions.size(); i++) {
+            String fen = positions.get(i);
+            // A checkmated position has no best move, nothing to search
+            boolean mated = i > 0 && moves.get(i - 1).isCheckmate();
+            if (needed[i] && fen != null && !fen.isEmpty() && !mated) {
+                pending.add(fen);
+            }
+        }
+        return pending;
+    }
+
+    /**
+     * Search positions from the queue until it is empty, then hand the engine back to the pool.
+     * A search preempted by an interactive request goes back on the queue and is resumed
+     * as soon as an engine is free again; a cancelled analysis stops taking positions.
+     * If the engine crashes or hangs, the position is retried once on another engine
+     * while the supervisor restarts the failed one.
+     */
+    private void searchQueue(StockfishEngine stockfishEngine, Queue<String> queue,
+                             Map<String, EngineAnalysis> results, AnalysisProgressListener listener) {
+        StockfishEngine engine = stockfishEngine;
+        Set<String> retried = new HashSet<>();
+        try {
+            String fen;
+            while (!listener.isCancelled() && (fen = queue.poll()) != null) {
+                try {
+                    results.put(fen, searchPosition(engine, fen, listener));
+                } catch (SearchCancelledException e) {
+                    if (!e.isPreempted()) {
+                        break;
+                    }
+                    queue.add(fen);
+                    enginePool.release(engine);
+                    // No longer ours: if no engine comes back, the finally block must not release it again
+                    engine = null;
+                    engine = enginePool.borrow();
+                    continue;
+                } catch (Exception e) {
+                    logger.warn("Could not evaluate position {}: {}", fen, e.getMessage());
+                    if (!engine.isHealthy()) {
+                        // The pool keeps the failed engine for the supervisor; carry on with a healthy one
+                        enginePool.release(engine);
+                        engine = null;
+                        engine = enginePool.borrow();
+                        if (retried.add(fen)) {
+                            queue.add(fen);
+                            continue;
+                        }
+                    }
+                }
+                listener.positionsEvaluated(1);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IllegalStateException e) {
+            logger.warn("Stopped searching, no engine available: {}", e.getMessage());
+        } finally {
+            enginePool.release(engine);
+        }
+    }
+
+    /**
+     * Search one position, letting the listener stop the engine while it runs
+     */
+    private EngineAnalysis searchPosition(StockfishEngine stockfishEngine, String fen,
+                                          AnalysisProgressListener listener) throws Exception {
+        listener.searchStarted(stockfishEngine);
+        try {
+            return moveAnalysisEngineService.searchPosition(stockfishEngine, fen);
+        } finally {
+            listener.searchFinished(stockfishEngine);
+        }
+    }
+
     /**
      * Generate personalized insights for the player
      */
@@ -261,23 +623,16 @@ public class GameAnalysisService {
         return insights;
     }
 
+    public boolean isEngineRunning() {
+        return enginePool.isRunning();
+    }
+
     /**
-     * Shutdown engine gracefully
+     * Shutdown engine pool gracefully
      */
     public void shutdownEngine() {
-        if (stockfishEngine != null) {
-            try {
-                stockfishEngine.quit();
-                logger.info("Stockfish engine terminated successfully");
-            } catch (Exception e) {
-                logger.warn("Error during Stockfish shutdown (this is normal if process already terminated): {}", e.getMessage());
-            } finally {
-                stockfishEngine = null;
-                logger.info("Game Analysis Service shutdown complete");
-            }
-        } else {
-            logger.info("Stockfish engine was not running");
-        }
+        enginePool.shutdown();
+        logger.info("Game Analysis Service shutdown complete");
     }
 }
 
@@ -0,0 +1,218 @@
+package dandastino.chess.engine;
+
+import dandastino.chess.cheatingAnalyses.LiveCheatingDetector;
+import dandastino.chess.positionEvaluations.PositionEvaluationService;
+import dandastino.chess.websocket.LiveEvaluationMessage;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Streams a live evaluation of each game's current position to /topic/game/{id}/eval.
+ * One time-boxed search runs per position, however many spectators are subscribed; updates are
+ * throttled while the search deepens, and when moves arrive faster than searches finish the running
+ * search is cancelled and only the newest position of the game is searched next.
+ * Live searches borrow engines at interactive priority, preempting background analysis when the pool is busy;
+ * finished searches go to the evaluation store, so game analysis and other spectators can reuse them.
+ */
+@Service
+public class LiveEvaluationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LiveEvaluationService.class);
+
+    @Autowired
+    private StockfishEnginePool enginePool;
+
+    @Autowired
+    private PositionEvaluationService positionEvaluationService;
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Autowired
+    private LiveCheatingDetector liveCheatingDetector;
+
+    @Value("${stockfish.live.enabled:true}")
+    private boolean enabled;
+
+    @Value("${stockfish.live.movetime-ms:1500}")
+    private int movetimeMs;
+
+    @Value("${stockfish.live.publish-interval-ms:250}")
+    private long publishIntervalMs;
+
+    // Stored evaluations at least this deep are published instead of searching
+    @Value("${stockfish.live.store-min-depth:18}")
+    private int storeMinDepth;
+
+    private final Map<UUID, LiveGame> liveGames = new ConcurrentHashMap<>();
+    private final ExecutorService executor;
+
+    public LiveEvaluationService(@Value("${stockfish.live.workers:2}") int workers) {
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "live-eval-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Evaluate the new position of a game in the background.
+     * If the game's previous position is still being searched, that search is cancelled
+     * and this position replaces any position waiting behind it.
+     */
+    public void requestEvaluation(UUID gameId, String fen) {
+        if (!enabled || gameId == null || fen == null || fen.isEmpty()) {
+            return;
+        }
+        while (true) {
+            LiveGame game = liveGames.computeIfAbsent(gameId, id -> new LiveGame());
+            synchronized (game) {
+                if (game.closed) {
+                    // The worker just retired this entry; start a fresh one
+                    continue;
+                }
+                game.pendingFen = fen;
+                if (game.running) {
+                    if (game.engine != null) {
+                        game.engine.cancel();
+                    }
+                    return;
+                }
+                game.running = true;
+            }
+            executor.execute(() -> drain(gameId, game));
+            return;
+        }
+    }
+
+    /**
+     * Search the game's newest position until no newer one is waiting
+     */
+    private void drain(UUID gameId, LiveGame game) {
+        while (true) {
+            String fen;
+            synchronized (game) {
+                fen = game.pendingFen;
+                game.pendingFen = null;
+                if (fen == null) {
+                    game.running = false;
+                    game.closed = true;
+                    liveGames.remove(gameId, game);
+                    return;
+                }
+            }
+            try {
+                evaluate(gameId, fen, game);
+            } catch (Exception e) {
+                logger.warn("Live evaluation failed for game {}: {}", gameId, e.getMessage());
+            }
+        }
+    }
+
+    private void evaluate(UUID gameId, String fen, LiveGame game) throws Exception {
+        EngineAnalysis stored = positionEvaluationService.get(fen, storeMinDepth);
+        if (stored != null) {
+            liveCheatingDetector.onEvaluation(gameId, fen, stored);
+            publish(gameId, fen, stored, true);
+            return;
+        }
+        if (!enginePool.isRunning()) {
+            return;
+        }
+
+        StockfishEngine engine;
+        try {
+            engine = enginePool.borrow(SearchPriority.INTERACTIVE, movetimeMs);
+        } catch (IllegalStateException e) {
+            logger.debug("No engine free for live evaluation of game {}", gameId);
+            return;
+        }
+        try {
+            synchronized (game) {
+                if (game.pendingFen != null) {
+                    // Superseded while waiting for the engine
+                    return;
+                }
+                game.engine = engine;
+            }
+            long[] lastPublished = {0L};
+            EngineAnalysis result = engine.analyzeWithTimeLimit(fen, movetimeMs, partial -> {
+                long now = System.currentTimeMillis();
+                if (now - lastPublished[0] >= publishIntervalMs && !game.hasPending()) {
+                    lastPublished[0] = now;
+                    publish(gameId, fen, partial, false);
+                }
+            });
+            // Shared with analysis and other nodes; every tier keeps the deeper of this and an earlier search
+            positionEvaluationService.put(fen, result);
+            // Still useful to the cheating signals of the move that reached this position
+            liveCheatingDetector.onEvaluation(gameId, fen, result);
+            // A newer position is already waiting: this result is stale for spectators
+            if (!game.hasPending()) {
+                publish(gameId, fen, result, true);
+            }
+        } catch (SearchCancelledException e) {
+            logger.debug("Live evaluation of game {} superseded by a newer position", gameId);
+        } finally {
+            synchronized (game) {
+                game.engine = null;
+            }
+            enginePool.release(engine);
+        }
+    }
+
+    private void publish(UUID gameId, String fen, EngineAnalysis analysis, boolean isFinal) {
+        // Engine scores are from the side to move; flip them to White's point of view
+        int sign = fen.contains(" b ") ? -1 : 1;
+        Integer mateIn = analysis.getMateIn() != null ? sign * analysis.getMateIn() : null;
+        LiveEvaluationMessage message = new LiveEvaluationMessage(
+                gameId.toString(),
+                fen,
+                mateIn == null ? sign * analysis.getEvaluation() : null,
+                mateIn,
+                analysis.getBestMove(),
+                analysis.getPrincipalVariation(),
+                analysis.getDepth(),
+                isFinal,
+                System.currentTimeMillis()
+        );
+        messagingTemplate.convertAndSend("/topic/game/" + gameId + "/eval", message);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Live evaluation state of one game: the newest position waiting to be searched
+     * and the engine searching the current one
+     */
+    private static class LiveGame {
+        private String pendingFen;
+        private StockfishEngine engine;
+        private boolean running;
+        private boolean closed;
+
+        synchronized boolean hasPending() {
+            return pendingFen != null;
+        }
+    }
+}
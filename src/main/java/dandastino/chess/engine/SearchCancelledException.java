@@ -0,0 +1,28 @@
+package dandastino.chess.engine;
+
+/**
+ * Thrown when a running search was stopped on purpose before it finished.
+ * A preempted search gave its engine to a more urgent request and can simply be run again;
+ * a cancelled one is no longer wanted by anybody.
+ */
+public class SearchCancelledException extends Exception {
+
+    public enum Reason { CANCELLED, PREEMPTED }
+
+    private final Reason reason;
+
+    public SearchCancelledException(Reason reason) {
+        super(reason == Reason.PREEMPTED
+                ? "Search preempted by a higher priority request"
+                : "Search cancelled");
+        this.reason = reason;
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+
+    public boolean isPreempted() {
+        return reason == Reason.PREEMPTED;
+    }
+}
@@ -0,0 +1,9 @@
+package dandastino.chess.engine;
+
+/**
+ * Who is waiting for an engine. Interactive requests (live evaluation of a game in progress)
+ * are served before background batch work and may preempt a batch search.
+ */
+public enum SearchPriority {
+    INTERACTIVE, BATCH
+}
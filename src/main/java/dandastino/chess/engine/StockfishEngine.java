@@ -5,13 +5,20 @@ import org.slf4j.LoggerFactory;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.InputStreamReader;
+import java.io.IOException;
 import java.io.OutputStreamWriter;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 /**
  * Interface with Stockfish chess engine via UCI protocol.
  * Handles position analysis and best move calculation.
+ * A dedicated reader thread parses engine output into a queue, so every wait has a real timeout.
  */
 public class StockfishEngine {
     
@@ -19,7 +26,20 @@ public class StockfishEngine {
     private Process stockfishProcess;
     private BufferedWriter stockfishInput;
     private BufferedReader stockfishOutput;
+    private final BlockingQueue<UciEvent> events = new LinkedBlockingQueue<>();
+    private static final AtomicInteger ENGINE_IDS = new AtomicInteger();
     private static final int DEFAULT_TIMEOUT_MS = 5000;
+    // Fixed-depth searches have no natural time bound, this only catches a stuck engine
+    private static final int DEPTH_SEARCH_TIMEOUT_MS = 120000;
+    // Grace period for the engine to answer "stop" with its bestmove
+    private static final int STOP_GRACE_MS = 1000;
+    private int multiPv = 1;
+    // Set by another thread to make the running (or next) search stop early, cleared when it is reported
+    private volatile SearchCancelledException.Reason pendingStop;
+    private volatile boolean searching;
+    // Set once the process crashed or stopped answering; the engine must then be replaced
+    private volatile boolean failed;
+    private final int id = ENGINE_IDS.incrementAndGet();
 
     public StockfishEngine(String stockfishPath) throws Exception {
         initializeEngine(stockfishPath);
@@ -30,25 +50,45 @@ public class StockfishEngine {
      */
     private void initializeEngine(String stockfishPath) throws Exception {
         try {
-            stockfishProcess = new ProcessBuilder(stockfishPath).start();
+            stockfishProcess = FakeUciEngine.isFakePath(stockfishPath)
+                    ? FakeUciEngine.start(stockfishPath)
+                    : new ProcessBuilder(stockfishPath).start();
             stockfishInput = new BufferedWriter(new OutputStreamWriter(stockfishProcess.getOutputStream()));
             stockfishOutput = new BufferedReader(new InputStreamReader(stockfishProcess.getInputStream()));
+
+            Thread reader = new Thread(this::readOutput, "stockfish-reader-" + id);
+            reader.setDaemon(true);
+            reader.start();
             
             // Send UCI command and wait for response
             sendCommand("uci");
-            waitForResponse("uciok", DEFAULT_TIMEOUT_MS);
+            waitForResponse(UciEvent.Type.UCIOK, DEFAULT_TIMEOUT_MS);
             
             logger.info("Stockfish engine initialized successfully");
         } catch (Exception e) {
             logger.error("Failed to initialize Stockfish engine", e);
+            if (stockfishProcess != null) {
+                stockfishProcess.destroyForcibly();
+            }
             throw e;
         }
     }
 
+    /**
+     * Set a UCI option (e.g. Threads, Hash) and wait until the engine has applied it
+     */
+    public void setOption(String name, String value) throws Exception {
+        sendCommand("setoption name " + name + " value " + value);
+        sendCommand("isready");
+        waitForResponse(UciEvent.Type.READYOK, DEFAULT_TIMEOUT_MS);
+    }
+
     /**
      * Set the position using FEN notation
      */
     public void setPosition(String fen) throws Exception {
+        // Drop leftovers of an aborted search so they can't be read as this search's answer
+        events.clear();
         String command = "position fen " + fen;
         sendCommand(command);
     }
@@ -57,12 +97,28 @@ public class StockfishEngine {
      * Analyze a position and return the best move
      */
     public EngineAnalysis analyze(String fen, int depth) throws Exception {
+        return analyze(fen, depth, 1);
+    }
+
+    /**
+     * Analyze a position and return the top candidate moves (MultiPV) from a single search
+     */
+    public EngineAnalysis analyze(String fen, int depth, int candidates) throws Exception {
+        return analyze(fen, depth, candidates, DEPTH_SEARCH_TIMEOUT_MS);
+    }
+
+    /**
+     * Analyze a position to the given depth, but stop the search once timeLimitMs has elapsed
+     * and return the deepest iteration it completed
+     */
+    public EngineAnalysis analyze(String fen, int depth, int candidates, long timeLimitMs) throws Exception {
+        setMultiPv(candidates);
         setPosition(fen);
         
         String command = "go depth " + depth;
-        sendCommand(command);
+        go(command);
         
-        EngineAnalysis analysis = parseAnalysis(DEFAULT_TIMEOUT_MS);
+        EngineAnalysis analysis = parseAnalysis(timeLimitMs);
         logger.debug("Analysis: bestMove={}, eval={}, depth={}", 
                     analysis.getBestMove(), analysis.getEvaluation(), analysis.getDepth());
         
@@ -73,92 +129,312 @@ public class StockfishEngine {
      * Analyze a position with time limit (milliseconds)
      */
     public EngineAnalysis analyzeWithTimeLimit(String fen, int timeLimitMs) throws Exception {
+        return analyzeWithTimeLimit(fen, timeLimitMs, null);
+    }
+
+    /**
+     * Analyze a position with time limit (milliseconds), handing the best line to onDepth
+     * every time the search finishes a deeper iteration
+     */
+    public EngineAnalysis analyzeWithTimeLimit(String fen, int timeLimitMs, Consumer<EngineAnalysis> onDepth) throws Exception {
+        setMultiPv(1);
         setPosition(fen);
         
         String command = "go movetime " + timeLimitMs;
-        sendCommand(command);
+        go(command);
         
-        EngineAnalysis analysis = parseAnalysis(timeLimitMs + 1000);
+        EngineAnalysis analysis = parseAnalysis(timeLimitMs + 1000, onDepth);
         return analysis;
     }
 
+    private EngineAnalysis parseAnalysis(long timeoutMs) throws Exception {
+        return parseAnalysis(timeoutMs, null);
+    }
+
     /**
-     * Parse the "bestmove" response from Stockfish
+     * Round-trip an "isready" to check the engine still answers.
+     * Only call it on an idle engine; an engine that does not answer in time is marked as failed.
+     * @return the response time in milliseconds
      */
-    private EngineAnalysis parseAnalysis(long timeoutMs) throws Exception {
-        long startTime = System.currentTimeMillis();
-        String bestMove = null;
-        int evaluation = 0;
-        int depth = 0;
-
-        while (System.currentTimeMillis() - startTime < timeoutMs) {
-            String line = stockfishOutput.readLine();
-            if (line == null) continue;
-
-            logger.debug("Stockfish output: {}", line);
-
-            // Parse "info depth X ... eval Y ... pv Z"
-            if (line.startsWith("info")) {
-                Pattern depthPattern = Pattern.compile("depth (\\d+)");
-                Matcher depthMatcher = depthPattern.matcher(line);
-                if (depthMatcher.find()) {
-                    depth = Integer.parseInt(depthMatcher.group(1));
+    public long ping(long timeoutMs) throws Exception {
+        events.clear();
+        long start = System.nanoTime();
+        try {
+            sendCommand("isready");
+            waitForResponse(UciEvent.Type.READYOK, timeoutMs);
+        } catch (InterruptedException e) {
+            throw e;
+        } catch (Exception e) {
+            failed = true;
+            throw e;
+        }
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    /**
+     * Whether the process is alive and has not crashed or hung in a search
+     */
+    public boolean isHealthy() {
+        return !failed && stockfishProcess != null && stockfishProcess.isAlive();
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Stop the running search (or the next one, if called between searches).
+     * The searching thread gets a {@link SearchCancelledException}; safe to call from any thread.
+     */
+    public void cancel() {
+        requestStop(SearchCancelledException.Reason.CANCELLED);
+    }
+
+    /**
+     * Stop the running batch search so the engine can serve a more urgent request
+     */
+    void preempt() {
+        requestStop(SearchCancelledException.Reason.PREEMPTED);
+    }
+
+    /**
+     * Forget a stop request nobody consumed, before the engine goes to its next user
+     */
+    void clearStopRequest() {
+        pendingStop = null;
+    }
+
+    private void requestStop(SearchCancelledException.Reason reason) {
+        pendingStop = reason;
+        if (searching) {
+            try {
+                sendCommand("stop");
+            } catch (Exception e) {
+                logger.warn("Could not send stop to Stockfish: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Start a search, stopping it right away if a stop was requested before it began
+     */
+    private void go(String command) throws Exception {
+        sendCommand(command);
+        searching = true;
+        if (pendingStop != null) {
+            sendCommand("stop");
+        }
+    }
+
+    /**
+     * Consume events until "bestmove" arrives. When the time limit expires the search is
+     * stopped and the deepest completed iteration is returned.
+     */
+    private EngineAnalysis parseAnalysis(long timeoutMs, Consumer<EngineAnalysis> onDepth) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        boolean stopSent = false;
+        EngineLine[] lines = new EngineLine[multiPv];
+        EngineAnalysis stats = new EngineAnalysis(null, 0, 0);
+        int reportedDepth = 0;
+
+        while (true) {
+            UciEvent event;
+            try {
+                event = events.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                // Don't leave the engine searching for a thread that has gone away
+                stopSearch();
+                throw e;
+            }
+            if (event == null) {
+                if (stopSent) {
+                    searching = false;
+                    failed = true;
+                    throw new Exception("Stockfish did not answer stop within " + STOP_GRACE_MS + "ms");
                 }
+                logger.debug("Search time limit of {}ms reached, stopping", timeoutMs);
+                sendCommand("stop");
+                stopSent = true;
+                deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(STOP_GRACE_MS);
+                continue;
+            }
 
-                Pattern evalPattern = Pattern.compile("cp (-?\\d+)|mate (-?\\d+)");
-                Matcher evalMatcher = evalPattern.matcher(line);
-                if (evalMatcher.find()) {
-                    if (evalMatcher.group(1) != null) {
-                        evaluation = Integer.parseInt(evalMatcher.group(1));
-                    } else if (evalMatcher.group(2) != null) {
-                        // Mate in X - convert to large evaluation
-                        int mateIn = Integer.parseInt(evalMatcher.group(2));
-                        evaluation = mateIn > 0 ? 30000 - (mateIn * 100) : -30000 + (Math.abs(mateIn) * 100);
+            switch (event.getType()) {
+                case INFO -> {
+                    recordStats(stats, event);
+                    EngineLine line = event.toLine();
+                    if (line != null && line.getMultiPv() >= 1 && line.getMultiPv() <= lines.length) {
+                        lines[line.getMultiPv() - 1] = line;
+                        if (onDepth != null && line.getMultiPv() == 1 && line.getDepth() > reportedDepth) {
+                            reportedDepth = line.getDepth();
+                            onDepth.accept(snapshot(line, stats));
+                        }
                     }
                 }
+                case BESTMOVE -> {
+                    searching = false;
+                    SearchCancelledException.Reason reason = pendingStop;
+                    if (reason != null) {
+                        pendingStop = null;
+                        throw new SearchCancelledException(reason);
+                    }
+                    if (event.getBestMove() == null) {
+                        throw new Exception("Stockfish found no legal move in this position");
+                    }
+                    if (stopSent && lines[0] == null) {
+                        throw new Exception("Stockfish did not finish a single iteration within " + timeoutMs + "ms");
+                    }
+                    return buildAnalysis(event.getBestMove(), lines, stats);
+                }
+                case EOF -> {
+                    searching = false;
+                    failed = true;
+                    throw new Exception("Stockfish process terminated during analysis");
+                }
+                default -> {
+                    // uciok/readyok/other chatter is irrelevant while searching
+                }
             }
+        }
+    }
 
-            // Parse "bestmove X ponder Y"
-            if (line.startsWith("bestmove")) {
-                Pattern bestMovePattern = Pattern.compile("bestmove ([a-h][1-8][a-h][1-8][qrbn]?)");
-                Matcher bestMoveMatcher = bestMovePattern.matcher(line);
-                if (bestMoveMatcher.find()) {
-                    bestMove = bestMoveMatcher.group(1);
-                    break;
-                }
+    /**
+     * Keep the latest search statistics; not every info line carries all of them.
+     * The depth is left to the best line: currmove lines and unfinished iterations report depths
+     * the search has not completed.
+     */
+    private void recordStats(EngineAnalysis stats, UciEvent event) {
+        if (event.getSelDepth() > 0) {
+            stats.setSelDepth(event.getSelDepth());
+        }
+        if (event.getNodes() >= 0) {
+            stats.setNodes(event.getNodes());
+        }
+        if (event.getNps() >= 0) {
+            stats.setNps(event.getNps());
+        }
+        if (event.getHashfull() >= 0) {
+            stats.setHashfull(event.getHashfull());
+        }
+    }
+
+    /**
+     * Assemble the final analysis from the last line reported for each MultiPV slot.
+     * Depth and score are those of the MultiPV 1 line, the deepest iteration the search completed.
+     */
+    private EngineAnalysis buildAnalysis(String bestMove, EngineLine[] lines, EngineAnalysis stats) {
+        List<EngineLine> candidates = new ArrayList<>(lines.length);
+        for (EngineLine line : lines) {
+            if (line != null) {
+                candidates.add(line);
             }
         }
 
-        if (bestMove == null) {
-            throw new Exception("Stockfish did not return a best move within timeout");
+        EngineLine best = lines[0];
+        stats.setBestMove(bestMove);
+        stats.setDepth(best != null ? best.getDepth() : 0);
+        stats.setEvaluation(best != null ? best.getEvaluation() : 0);
+        stats.setMateIn(best != null ? best.getMateIn() : null);
+        stats.setLines(candidates);
+        return stats;
+    }
+
+    /**
+     * Intermediate result of a running search, built from its current best line
+     */
+    private EngineAnalysis snapshot(EngineLine best, EngineAnalysis stats) {
+        EngineAnalysis partial = new EngineAnalysis(best.getMove(), best.getEvaluation(), best.getDepth());
+        partial.setMateIn(best.getMateIn());
+        partial.setSelDepth(stats.getSelDepth());
+        partial.setNodes(stats.getNodes());
+        partial.setNps(stats.getNps());
+        partial.setHashfull(stats.getHashfull());
+        partial.setLines(List.of(best));
+        return partial;
+    }
+
+    /**
+     * Switch the number of reported lines, only talking to the engine when it changes
+     */
+    private void setMultiPv(int candidates) throws Exception {
+        int requested = Math.max(1, candidates);
+        if (requested != multiPv) {
+            setOption("MultiPV", String.valueOf(requested));
+            multiPv = requested;
         }
+    }
 
-        return new EngineAnalysis(bestMove, evaluation, depth);
+    /**
+     * Abort the running search and swallow its bestmove so the next command starts clean
+     */
+    private void stopSearch() {
+        try {
+            sendCommand("stop");
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(STOP_GRACE_MS);
+            UciEvent event;
+            do {
+                event = events.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            } while (event != null && event.getType() != UciEvent.Type.BESTMOVE && event.getType() != UciEvent.Type.EOF);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            logger.warn("Could not stop Stockfish search: {}", e.getMessage());
+        } finally {
+            searching = false;
+        }
+    }
+
+    /**
+     * Reader thread body: parse every output line and hand it to the waiting caller
+     */
+    private void readOutput() {
+        try {
+            String line;
+            while ((line = stockfishOutput.readLine()) != null) {
+                logger.debug("Stockfish output: {}", line);
+                events.offer(UciLineParser.parse(line));
+            }
+        } catch (IOException e) {
+            logger.debug("Stockfish output closed: {}", e.getMessage());
+        } finally {
+            events.offer(UciEvent.END_OF_STREAM);
+        }
     }
 
     /**
      * Send a command to Stockfish
      */
-    private void sendCommand(String command) throws Exception {
+    private synchronized void sendCommand(String command) throws Exception {
         logger.debug("Sending to Stockfish: {}", command);
-        stockfishInput.write(command + "\n");
-        stockfishInput.flush();
+        try {
+            stockfishInput.write(command + "\n");
+            stockfishInput.flush();
+        } catch (IOException e) {
+            // Broken pipe: the process is gone
+            failed = true;
+            throw e;
+        }
     }
 
     /**
      * Wait for a specific response from Stockfish
      */
-    private void waitForResponse(String expectedResponse, long timeoutMs) throws Exception {
-        long startTime = System.currentTimeMillis();
-        
-        while (System.currentTimeMillis() - startTime < timeoutMs) {
-            String line = stockfishOutput.readLine();
-            if (line != null && line.contains(expectedResponse)) {
+    private void waitForResponse(UciEvent.Type expectedResponse, long timeoutMs) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+
+        while (true) {
+            UciEvent event = events.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            if (event == null) {
+                throw new Exception("Timeout waiting for response: " + expectedResponse);
+            }
+            if (event.getType() == expectedResponse) {
                 return;
             }
+            if (event.getType() == UciEvent.Type.EOF) {
+                failed = true;
+                throw new Exception("Stockfish process terminated while waiting for: " + expectedResponse);
+            }
         }
-        
-        throw new Exception("Timeout waiting for response: " + expectedResponse);
     }
 
     /**
@@ -169,8 +445,13 @@ public class StockfishEngine {
             if (stockfishProcess != null && stockfishProcess.isAlive()) {
                 try {
                     sendCommand("quit");
-                    stockfishProcess.waitFor();
-                    logger.info("Stockfish engine terminated gracefully");
+                    // A hung engine never reads "quit"
+                    if (stockfishProcess.waitFor(STOP_GRACE_MS, TimeUnit.MILLISECONDS)) {
+                        logger.info("Stockfish engine terminated gracefully");
+                    } else {
+                        logger.warn("Stockfish engine did not quit, forcing termination");
+                        stockfishProcess.destroyForcibly();
+                    }
                 } catch (Exception e) {
                     logger.warn("Could not send quit command, forcing termination: {}", e.getMessage());
                     stockfishProcess.destroyForcibly();
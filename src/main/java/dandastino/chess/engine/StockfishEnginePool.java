@@ -0,0 +1,365 @@
+package dandastino.chess.engine;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fixed-size pool of Stockfish processes.
+ * Callers borrow an engine, use it exclusively, then return it. Interactive callers are served
+ * before batch callers and may preempt a batch search; within a priority, waiters are served in FIFO order.
+ */
+@Component
+public class StockfishEnginePool {
+
+    private static final Logger logger = LoggerFactory.getLogger(StockfishEnginePool.class);
+
+    @Value("${stockfish.path:/usr/games/stockfish}")
+    private String stockfishPath;
+
+    // 0 = one engine per (available cores / threads per engine)
+    @Value("${stockfish.pool.size:0}")
+    private int poolSize;
+
+    @Value("${stockfish.pool.threads-per-engine:1}")
+    private int threadsPerEngine;
+
+    @Value("${stockfish.pool.hash-mb:64}")
+    private int hashMb;
+
+    @Value("${stockfish.pool.borrow-timeout-ms:30000}")
+    private long borrowTimeoutMs;
+
+    private final List<StockfishEngine> engines = new ArrayList<>();
+    private final ReentrantLock lock = new ReentrantLock(true);
+    private final Condition interactiveAvailable = lock.newCondition();
+    private final Condition batchAvailable = lock.newCondition();
+    private final Deque<StockfishEngine> idleEngines = new ArrayDeque<>();
+    // Borrowed engines and the priority of the work running on them
+    private final Map<StockfishEngine, SearchPriority> leases = new IdentityHashMap<>();
+    private final Set<StockfishEngine> preempted = Collections.newSetFromMap(new IdentityHashMap<>());
+    // Crashed or hung engines taken out of rotation until the supervisor replaces them
+    private final Set<StockfishEngine> failedEngines = Collections.newSetFromMap(new IdentityHashMap<>());
+    private int interactiveWaiting;
+    private volatile boolean running;
+
+    /**
+     * Start all engine processes. Calling it on a running pool is a no-op.
+     */
+    public synchronized void start() throws Exception {
+        if (isRunning()) {
+            logger.info("Stockfish engine pool already running with {} engines", engines.size());
+            return;
+        }
+
+        int size = resolvePoolSize();
+        try {
+            for (int i = 0; i < size; i++) {
+                engines.add(createEngine());
+            }
+        } catch (Exception e) {
+            // Don't leave half a pool of orphan processes behind
+            engines.forEach(StockfishEngine::quit);
+            engines.clear();
+            throw e;
+        }
+
+        lock.lock();
+        try {
+            idleEngines.addAll(engines);
+            running = true;
+        } finally {
+            lock.unlock();
+        }
+        logger.info("Stockfish engine pool started: {} engines, {} thread(s) and {} MB hash each",
+                size, threadsPerEngine, hashMb);
+    }
+
+    /**
+     * Borrow an engine for batch work, waiting up to the configured borrow timeout
+     */
+    public StockfishEngine borrow() throws InterruptedException {
+        return borrow(borrowTimeoutMs);
+    }
+
+    /**
+     * Borrow an engine for batch work, waiting up to timeoutMs for one to become free.
+     * The caller must hand it back with {@link #release(StockfishEngine)}.
+     */
+    public StockfishEngine borrow(long timeoutMs) throws InterruptedException {
+        return borrow(SearchPriority.BATCH, timeoutMs);
+    }
+
+    /**
+     * Borrow an engine, waiting up to timeoutMs for one to become free.
+     * Interactive callers are served before batch callers. When no engine is idle, an interactive
+     * caller preempts one batch search: that search stops with {@link SearchCancelledException}
+     * and its engine comes here as soon as the batch caller releases it.
+     * The caller must hand the engine back with {@link #release(StockfishEngine)}.
+     */
+    public StockfishEngine borrow(SearchPriority priority, long timeoutMs) throws InterruptedException {
+        long remaining = TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        lock.lockInterruptibly();
+        try {
+            if (priority == SearchPriority.INTERACTIVE) {
+                interactiveWaiting++;
+            }
+            try {
+                while (true) {
+                    if (!running) {
+                        throw new IllegalStateException("Stockfish engine pool not initialized. Please call POST /api/analysis/init first.");
+                    }
+                    if (!idleEngines.isEmpty() && (priority == SearchPriority.INTERACTIVE || interactiveWaiting == 0)) {
+                        return lease(idleEngines.poll(), priority);
+                    }
+                    if (priority == SearchPriority.INTERACTIVE) {
+                        preemptBatchSearch();
+                    }
+                    if (remaining <= 0) {
+                        throw new IllegalStateException("No Stockfish engine became available within " + timeoutMs + "ms");
+                    }
+                    remaining = (priority == SearchPriority.INTERACTIVE ? interactiveAvailable : batchAvailable)
+                            .awaitNanos(remaining);
+                }
+            } finally {
+                if (priority == SearchPriority.INTERACTIVE) {
+                    interactiveWaiting--;
+                    if (interactiveWaiting == 0 && !idleEngines.isEmpty()) {
+                        batchAvailable.signalAll();
+                    }
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Borrow an engine for batch work only if one is idle right now, otherwise return null without waiting
+     */
+    public StockfishEngine tryBorrow() {
+        lock.lock();
+        try {
+            if (!running || idleEngines.isEmpty() || interactiveWaiting > 0) {
+                return null;
+            }
+            return lease(idleEngines.poll(), SearchPriority.BATCH);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Borrow this particular engine if it is idle right now, for a health check
+     */
+    StockfishEngine tryBorrow(StockfishEngine engine) {
+        lock.lock();
+        try {
+            if (!running || interactiveWaiting > 0 || !idleEngines.remove(engine)) {
+                return null;
+            }
+            return lease(engine, SearchPriority.BATCH);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Return a borrowed engine to the pool, handing it to a waiting interactive caller first.
+     * An engine that crashed or hung is kept out of rotation until the supervisor replaces it.
+     */
+    public void release(StockfishEngine engine) {
+        if (engine == null) {
+            return;
+        }
+        engine.clearStopRequest();
+        lock.lock();
+        try {
+            if (leases.remove(engine) == null || !running) {
+                return;
+            }
+            preempted.remove(engine);
+            if (!engine.isHealthy()) {
+                failedEngines.add(engine);
+                logger.warn("Stockfish engine {} failed, taking it out of the pool ({} healthy engines left)",
+                        engine.getId(), engines.size() - failedEngines.size());
+                return;
+            }
+            idleEngines.push(engine);
+            if (interactiveWaiting > 0) {
+                interactiveAvailable.signal();
+            } else {
+                batchAvailable.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public synchronized int getSize() {
+        return engines.size();
+    }
+
+    public int getIdleCount() {
+        lock.lock();
+        try {
+            return idleEngines.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Every engine of the pool, failed ones included
+     */
+    synchronized List<StockfishEngine> getEngines() {
+        return List.copyOf(engines);
+    }
+
+    /**
+     * Engines waiting to be replaced
+     */
+    List<StockfishEngine> getFailedEngines() {
+        lock.lock();
+        try {
+            return List.copyOf(failedEngines);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    boolean isBusy(StockfishEngine engine) {
+        lock.lock();
+        try {
+            return leases.containsKey(engine);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Start a new process in place of a failed engine and put it to work.
+     * The process is started and handshaken outside the pool's monitor, so callers of
+     * {@link #getSize()}, {@link #getEngines()} or {@link #shutdown()} are not held up by a restart;
+     * only the swap happens under it.
+     * @return the new engine, or null if the pool was shut down or no longer holds the failed engine
+     * @throws Exception if the new process does not start; the failed engine stays queued for replacement
+     */
+    StockfishEngine replaceEngine(StockfishEngine failed) throws Exception {
+        synchronized (this) {
+            if (!running || !engines.contains(failed)) {
+                return null;
+            }
+        }
+        failed.quit();
+        StockfishEngine replacement = createEngine();
+        synchronized (this) {
+            int index = engines.indexOf(failed);
+            if (!running || index < 0) {
+                // Shut down while the new process was starting
+                replacement.quit();
+                return null;
+            }
+            engines.set(index, replacement);
+            lock.lock();
+            try {
+                failedEngines.remove(failed);
+                idleEngines.push(replacement);
+                if (interactiveWaiting > 0) {
+                    interactiveAvailable.signal();
+                } else {
+                    batchAvailable.signal();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        logger.info("Replaced failed Stockfish engine {} with engine {}", failed.getId(), replacement.getId());
+        return replacement;
+    }
+
+    private StockfishEngine createEngine() throws Exception {
+        StockfishEngine engine = new StockfishEngine(stockfishPath);
+        engine.setOption("Threads", String.valueOf(threadsPerEngine));
+        engine.setOption("Hash", String.valueOf(hashMb));
+        return engine;
+    }
+
+    private StockfishEngine lease(StockfishEngine engine, SearchPriority priority) {
+        leases.put(engine, priority);
+        return engine;
+    }
+
+    /**
+     * Stop one batch search that is not already being preempted, one per waiting interactive caller
+     */
+    private void preemptBatchSearch() {
+        if (preempted.size() >= interactiveWaiting) {
+            return;
+        }
+        for (Map.Entry<StockfishEngine, SearchPriority> lease : leases.entrySet()) {
+            if (lease.getValue() == SearchPriority.BATCH && preempted.add(lease.getKey())) {
+                logger.debug("Preempting a batch search for an interactive request");
+                lease.getKey().preempt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Terminate every engine process in the pool
+     */
+    public synchronized void shutdown() {
+        if (!isRunning()) {
+            logger.info("Stockfish engine pool was not running");
+            return;
+        }
+        lock.lock();
+        try {
+            running = false;
+            idleEngines.clear();
+            leases.clear();
+            preempted.clear();
+            failedEngines.clear();
+            // Wake every waiting borrower so it fails instead of waiting out its timeout
+            interactiveAvailable.signalAll();
+            batchAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        for (StockfishEngine engine : engines) {
+            try {
+                engine.quit();
+            } catch (Exception e) {
+                logger.warn("Error during Stockfish shutdown (this is normal if process already terminated): {}", e.getMessage());
+            }
+        }
+        logger.info("Stockfish engine pool terminated ({} engines)", engines.size());
+        engines.clear();
+    }
+
+    private int resolvePoolSize() {
+        if (poolSize > 0) {
+            return poolSize;
+        }
+        int cores = Runtime.getRuntime().availableProcessors();
+        return Math.max(1, cores / Math.max(1, threadsPerEngine));
+    }
+}
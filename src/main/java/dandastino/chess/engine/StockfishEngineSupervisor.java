@@ -0,0 +1,166 @@
+package dandastino.chess.engine;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the engine pool at full strength.
+ * Idle engines are pinged with "isready" to measure their response time and catch crashed or hung
+ * processes; engines that fail a ping, crash or stop answering during a search are taken out of the
+ * pool, so queued work only goes to healthy engines, and are restarted with exponential backoff.
+ */
+@Component
+public class StockfishEngineSupervisor {
+
+    private static final Logger logger = LoggerFactory.getLogger(StockfishEngineSupervisor.class);
+
+    @Autowired
+    private StockfishEnginePool enginePool;
+
+    @Value("${stockfish.supervisor.ping-interval-ms:10000}")
+    private long pingIntervalMs;
+
+    @Value("${stockfish.supervisor.ping-timeout-ms:2000}")
+    private long pingTimeoutMs;
+
+    @Value("${stockfish.supervisor.restart-backoff-ms:1000}")
+    private long restartBackoffMs;
+
+    @Value("${stockfish.supervisor.restart-max-backoff-ms:60000}")
+    private long restartMaxBackoffMs;
+
+    private final Map<Integer, EngineHealth> health = new ConcurrentHashMap<>();
+    // Failed engines waiting for a restart, keyed by engine id
+    private final Map<Integer, RestartAttempts> restarts = new ConcurrentHashMap<>();
+
+    /**
+     * Ping the idle engines that are due and restart the failed ones whose backoff has elapsed
+     */
+    @Scheduled(fixedDelayString = "${stockfish.supervisor.check-interval-ms:1000}")
+    public void superviseEngines() {
+        if (!enginePool.isRunning()) {
+            health.clear();
+            restarts.clear();
+            return;
+        }
+        pingIdleEngines();
+        restartFailedEngines();
+    }
+
+    private void pingIdleEngines() {
+        long now = System.nanoTime();
+        for (StockfishEngine engine : enginePool.getEngines()) {
+            EngineHealth engineHealth = health.computeIfAbsent(engine.getId(), id -> new EngineHealth());
+            if (now - engineHealth.lastPingNanos < TimeUnit.MILLISECONDS.toNanos(pingIntervalMs)) {
+                continue;
+            }
+            // Busy engines are checked by their search deadlines instead
+            StockfishEngine borrowed = enginePool.tryBorrow(engine);
+            if (borrowed == null) {
+                continue;
+            }
+            try {
+                engineHealth.lastPingNanos = now;
+                engineHealth.lastPingAt = LocalDateTime.now();
+                engineHealth.latencyMs = borrowed.ping(pingTimeoutMs);
+                engineHealth.failedPings = 0;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                engineHealth.failedPings++;
+                engineHealth.latencyMs = null;
+                logger.warn("Stockfish engine {} failed its health check: {}", engine.getId(), e.getMessage());
+            } finally {
+                enginePool.release(borrowed);
+            }
+        }
+    }
+
+    private void restartFailedEngines() {
+        long now = System.nanoTime();
+        for (StockfishEngine failed : enginePool.getFailedEngines()) {
+            RestartAttempts attempts = restarts.computeIfAbsent(failed.getId(), id -> new RestartAttempts(now));
+            if (now < attempts.nextAttemptNanos) {
+                continue;
+            }
+            try {
+                StockfishEngine replacement = enginePool.replaceEngine(failed);
+                restarts.remove(failed.getId());
+                EngineHealth previous = health.remove(failed.getId());
+                if (replacement != null) {
+                    // The replacement takes over the slot, and its restart count
+                    EngineHealth fresh = new EngineHealth();
+                    fresh.restarts = previous != null ? previous.restarts + 1 : 1;
+                    health.put(replacement.getId(), fresh);
+                }
+            } catch (Exception e) {
+                attempts.failures++;
+                long backoffMs = Math.min(restartMaxBackoffMs, restartBackoffMs << Math.min(attempts.failures - 1, 20));
+                attempts.nextAttemptNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(backoffMs);
+                logger.error("Could not restart Stockfish engine {} (attempt {}), retrying in {}ms: {}",
+                        failed.getId(), attempts.failures, backoffMs, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Health of every engine in the pool
+     */
+    public SupervisorStats getStats() {
+        List<EngineStatus> statuses = new ArrayList<>();
+        List<StockfishEngine> failedEngines = enginePool.getFailedEngines();
+        int healthy = 0;
+        for (StockfishEngine engine : enginePool.getEngines()) {
+            EngineHealth engineHealth = health.getOrDefault(engine.getId(), new EngineHealth());
+            String state;
+            if (failedEngines.contains(engine) || !engine.isHealthy()) {
+                state = "restarting";
+            } else {
+                healthy++;
+                state = enginePool.isBusy(engine) ? "busy" : "idle";
+            }
+            RestartAttempts attempts = restarts.get(engine.getId());
+            statuses.add(new EngineStatus(engine.getId(), state, engineHealth.latencyMs, engineHealth.lastPingAt,
+                    engineHealth.failedPings, engineHealth.restarts, attempts != null ? attempts.failures : 0));
+        }
+        return new SupervisorStats(enginePool.isRunning(), statuses.size(), healthy, enginePool.getIdleCount(), statuses);
+    }
+
+    /**
+     * Ping results of one engine; updated by the scheduler thread only
+     */
+    private static class EngineHealth {
+        private volatile long lastPingNanos = System.nanoTime();
+        private volatile LocalDateTime lastPingAt;
+        private volatile Long latencyMs;
+        private volatile int failedPings;
+        private volatile int restarts;
+    }
+
+    private static class RestartAttempts {
+        private long nextAttemptNanos;
+        private int failures;
+
+        RestartAttempts(long nextAttemptNanos) {
+            this.nextAttemptNanos = nextAttemptNanos;
+        }
+    }
+
+    public record EngineStatus(int engineId, String state, Long pingLatencyMs, LocalDateTime lastPingAt,
+                               int failedPings, int restarts, int failedRestartAttempts) {}
+
+    public record SupervisorStats(boolean running, int engines, int healthyEngines, int idleEngines,
+                                  List<EngineStatus> engineStatuses) {}
+}
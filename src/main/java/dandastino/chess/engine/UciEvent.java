@@ -0,0 +1,140 @@
+package dandastino.chess.engine;
+
+import java.util.List;
+
+/**
+ * One parsed line of Stockfish output, as pushed by the engine's reader thread.
+ */
+class UciEvent {
+
+    enum Type { INFO, BESTMOVE, READYOK, UCIOK, OTHER, EOF }
+
+    static final UciEvent READY_OK = new UciEvent(Type.READYOK);
+    static final UciEvent UCI_OK = new UciEvent(Type.UCIOK);
+    static final UciEvent OTHER = new UciEvent(Type.OTHER);
+    static final UciEvent END_OF_STREAM = new UciEvent(Type.EOF);
+
+    private final Type type;
+    private int depth;
+    private int selDepth;
+    private int multiPv = 1;
+    private boolean hasScore;
+    private boolean mate;
+    private boolean bound; // lowerbound/upperbound scores are not final for the depth
+    private int score; // centipawns, or moves to mate when mate is true
+    private long nodes = -1;
+    private long nps = -1;
+    private int hashfull = -1;
+    private List<String> pv;
+    private String bestMove;
+
+    UciEvent(Type type) {
+        this.type = type;
+    }
+
+    static UciEvent bestMove(String move) {
+        UciEvent event = new UciEvent(Type.BESTMOVE);
+        event.bestMove = move;
+        return event;
+    }
+
+    Type getType() {
+        return type;
+    }
+
+    int getDepth() {
+        return depth;
+    }
+
+    void setDepth(int depth) {
+        this.depth = depth;
+    }
+
+    int getSelDepth() {
+        return selDepth;
+    }
+
+    void setSelDepth(int selDepth) {
+        this.selDepth = selDepth;
+    }
+
+    int getMultiPv() {
+        return multiPv;
+    }
+
+    void setMultiPv(int multiPv) {
+        this.multiPv = multiPv;
+    }
+
+    boolean hasScore() {
+        return hasScore;
+    }
+
+    boolean isMate() {
+        return mate;
+    }
+
+    int getScore() {
+        return score;
+    }
+
+    void setScore(int score, boolean mate) {
+        this.score = score;
+        this.mate = mate;
+        this.hasScore = true;
+    }
+
+    boolean isBound() {
+        return bound;
+    }
+
+    void setBound(boolean bound) {
+        this.bound = bound;
+    }
+
+    long getNodes() {
+        return nodes;
+    }
+
+    void setNodes(long nodes) {
+        this.nodes = nodes;
+    }
+
+    long getNps() {
+        return nps;
+    }
+
+    void setNps(long nps) {
+        this.nps = nps;
+    }
+
+    int getHashfull() {
+        return hashfull;
+    }
+
+    void setHashfull(int hashfull) {
+        this.hashfull = hashfull;
+    }
+
+    List<String> getPv() {
+        return pv;
+    }
+
+    void setPv(List<String> pv) {
+        this.pv = pv;
+    }
+
+    /**
+     * The variation carried by this info line, or null if it has no exact score and pv
+     */
+    EngineLine toLine() {
+        if (!hasScore || bound || pv == null || pv.isEmpty()) {
+            return null;
+        }
+        return new EngineLine(multiPv, depth, mate ? null : score, mate ? score : null, pv);
+    }
+
+    String getBestMove() {
+        return bestMove;
+    }
+}
@@ -0,0 +1,186 @@
+package dandastino.chess.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hand-written tokenizer for Stockfish output lines.
+ * Walks the line once by index instead of compiling regexes or splitting, since
+ * "info" lines arrive thousands of times per search.
+ */
+final class UciLineParser {
+
+    private UciLineParser() {
+    }
+
+    /**
+     * Parse one line of engine output into an event
+     */
+    static UciEvent parse(String line) {
+        int start = skipSpaces(line, 0);
+        int end = tokenEnd(line, start);
+
+        if (tokenEquals(line, start, end, "info")) {
+            return parseInfo(line, end);
+        }
+        if (tokenEquals(line, start, end, "bestmove")) {
+            int moveStart = skipSpaces(line, end);
+            int moveEnd = tokenEnd(line, moveStart);
+            // "bestmove (none)" is sent when the side to move has no legal move
+            return UciEvent.bestMove(isUciMove(line, moveStart, moveEnd) ? line.substring(moveStart, moveEnd) : null);
+        }
+        if (tokenEquals(line, start, end, "readyok")) {
+            return UciEvent.READY_OK;
+        }
+        if (tokenEquals(line, start, end, "uciok")) {
+            return UciEvent.UCI_OK;
+        }
+        return UciEvent.OTHER;
+    }
+
+    /**
+     * Parse "info depth X seldepth Y multipv Z score cp|mate N nodes ... pv m1 m2 ..."
+     * starting right after the "info" keyword
+     */
+    private static UciEvent parseInfo(String line, int position) {
+        UciEvent event = new UciEvent(UciEvent.Type.INFO);
+        int length = line.length();
+
+        while (position < length) {
+            int start = skipSpaces(line, position);
+            int end = tokenEnd(line, start);
+            if (start == end) {
+                break;
+            }
+
+            if (tokenEquals(line, start, end, "string")) {
+                // Free text runs to the end of the line
+                break;
+            } else if (tokenEquals(line, start, end, "pv")) {
+                event.setPv(parseMoves(line, end));
+                break;
+            } else if (tokenEquals(line, start, end, "lowerbound") || tokenEquals(line, start, end, "upperbound")) {
+                event.setBound(true);
+            } else if (isIntField(line, start, end)) {
+                int valueStart = skipSpaces(line, end);
+                int valueEnd = tokenEnd(line, valueStart);
+                setIntField(event, line, start, end, valueStart, valueEnd);
+                end = valueEnd;
+            } else if (tokenEquals(line, start, end, "score")) {
+                int kindStart = skipSpaces(line, end);
+                int kindEnd = tokenEnd(line, kindStart);
+                int valueStart = skipSpaces(line, kindEnd);
+                end = tokenEnd(line, valueStart);
+                if (tokenEquals(line, kindStart, kindEnd, "cp")) {
+                    event.setScore(parseInt(line, valueStart, end), false);
+                } else if (tokenEquals(line, kindStart, kindEnd, "mate")) {
+                    event.setScore(parseInt(line, valueStart, end), true);
+                }
+            }
+            position = end;
+        }
+        return event;
+    }
+
+    private static boolean isIntField(String line, int start, int end) {
+        return tokenEquals(line, start, end, "depth") || tokenEquals(line, start, end, "seldepth")
+                || tokenEquals(line, start, end, "multipv") || tokenEquals(line, start, end, "nodes")
+                || tokenEquals(line, start, end, "nps") || tokenEquals(line, start, end, "hashfull");
+    }
+
+    private static void setIntField(UciEvent event, String line, int start, int end, int valueStart, int valueEnd) {
+        switch (line.charAt(start)) {
+            case 'd' -> event.setDepth(parseInt(line, valueStart, valueEnd));
+            case 's' -> event.setSelDepth(parseInt(line, valueStart, valueEnd));
+            case 'm' -> event.setMultiPv(parseInt(line, valueStart, valueEnd));
+            case 'h' -> event.setHashfull(parseInt(line, valueStart, valueEnd));
+            case 'n' -> {
+                if (end - start == 5) {
+                    event.setNodes(parseLong(line, valueStart, valueEnd));
+                } else {
+                    event.setNps(parseLong(line, valueStart, valueEnd));
+                }
+            }
+            default -> {
+            }
+        }
+    }
+
+    /**
+     * Remaining tokens of the line as a move list
+     */
+    private static List<String> parseMoves(String line, int position) {
+        List<String> moves = new ArrayList<>();
+        while (position < line.length()) {
+            int start = skipSpaces(line, position);
+            int end = tokenEnd(line, start);
+            if (start == end) {
+                break;
+            }
+            moves.add(line.substring(start, end));
+            position = end;
+        }
+        return moves;
+    }
+
+    private static int skipSpaces(String line, int position) {
+        while (position < line.length() && line.charAt(position) == ' ') {
+            position++;
+        }
+        return position;
+    }
+
+    private static int tokenEnd(String line, int position) {
+        while (position < line.length() && line.charAt(position) != ' ') {
+            position++;
+        }
+        return position;
+    }
+
+    private static boolean tokenEquals(String line, int start, int end, String keyword) {
+        return end - start == keyword.length() && line.regionMatches(start, keyword, 0, keyword.length());
+    }
+
+    private static int parseInt(String line, int start, int end) {
+        if (start >= end) {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(line, start, end, 10);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static long parseLong(String line, int start, int end) {
+        if (start >= end) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(line, start, end, 10);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Long algebraic move as sent by UCI: e2e4, e7e8q
+     */
+    private static boolean isUciMove(String line, int start, int end) {
+        int length = end - start;
+        if (length != 4 && length != 5) {
+            return false;
+        }
+        return isFile(line.charAt(start)) && isRank(line.charAt(start + 1))
+                && isFile(line.charAt(start + 2)) && isRank(line.charAt(start + 3))
+                && (length == 4 || "qrbn".indexOf(line.charAt(start + 4)) >= 0);
+    }
+
+    private static boolean isFile(char c) {
+        return c >= 'a' && c <= 'h';
+    }
+
+    private static boolean isRank(char c) {
+        return c >= '1' && c <= '8';
+    }
+}
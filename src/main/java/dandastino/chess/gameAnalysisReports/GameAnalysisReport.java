@@ -0,0 +1,154 @@
+package dandastino.chess.gameAnalysisReports;
+
+import dandastino.chess.cheatingAnalyses.CheatingAnalysis;
+import dandastino.chess.games.Game;
+import dandastino.chess.openings.Opening;
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Outcome of the full analysis of a game, stored so repeated requests do not run the engine again.
+ * Move reviews live on the moves themselves (move_analyses); this row keeps the game-level parts.
+ */
+@Entity
+@Table(name="game_analysis_reports")
+public class GameAnalysisReport {
+
+    @Id
+    @GeneratedValue
+    @Column(name = "game_analysis_report_id")
+    private UUID game_analysis_report_id;
+
+    @OneToOne
+    @JoinColumn(name = "game_id", unique = true)
+    private Game game;
+
+    @ManyToOne
+    @JoinColumn(name = "opening_id")
+    private Opening opening;
+
+    @ManyToOne
+    @JoinColumn(name = "cheating_analysis_id")
+    private CheatingAnalysis cheating_analysis;
+
+    @Column(name = "cheating_analysis_error")
+    private String cheating_analysis_error;
+    @Column(name = "analysis_depth")
+    private int analysis_depth;
+    @Column(name = "blunder_count")
+    private int blunder_count;
+    @Column(name = "mistake_count")
+    private int mistake_count;
+    @Column(name = "insights", length = 4096)
+    private String insights; // one insight per line
+    @Column(name = "statistics_recorded")
+    private Boolean statistics_recorded; // the game was added to the players' rolling statistics; null on older rows
+    @Column(name = "created_at")
+    private LocalDateTime created_at;
+    @Column(name = "updated_at")
+    private LocalDateTime updated_at;
+
+    public GameAnalysisReport(){}
+
+    public GameAnalysisReport(Game game) {
+        this.game = game;
+        this.created_at = LocalDateTime.now();
+    }
+
+    public UUID getGame_analysis_report_id() {
+        return game_analysis_report_id;
+    }
+
+    public Game getGame() {
+        return game;
+    }
+
+    public void setGame(Game game) {
+        this.game = game;
+    }
+
+    public Opening getOpening() {
+        return opening;
+    }
+
+    public void setOpening(Opening opening) {
+        this.opening = opening;
+    }
+
+    public CheatingAnalysis getCheating_analysis() {
+        return cheating_analysis;
+    }
+
+    public void setCheating_analysis(CheatingAnalysis cheating_analysis) {
+        this.cheating_analysis = cheating_analysis;
+    }
+
+    public String getCheating_analysis_error() {
+        return cheating_analysis_error;
+    }
+
+    public void setCheating_analysis_error(String cheating_analysis_error) {
+        this.cheating_analysis_error = cheating_analysis_error;
+    }
+
+    public int getAnalysis_depth() {
+        return analysis_depth;
+    }
+
+    public void setAnalysis_depth(int analysis_depth) {
+        this.analysis_depth = analysis_depth;
+    }
+
+    public int getBlunder_count() {
+        return blunder_count;
+    }
+
+    public void setBlunder_count(int blunder_count) {
+        this.blunder_count = blunder_count;
+    }
+
+    public int getMistake_count() {
+        return mistake_count;
+    }
+
+    public void setMistake_count(int mistake_count) {
+        this.mistake_count = mistake_count;
+    }
+
+    public String getInsights() {
+        return insights;
+    }
+
+    public void setInsights(String insights) {
+        this.insights = insights;
+    }
+
+    public boolean isStatistics_recorded() {
+        return Boolean.TRUE.equals(statistics_recorded);
+    }
+
+    public LocalDateTime getCreated_at() {
+        return created_at;
+    }
+
+    public LocalDateTime getUpdated_at() {
+        return updated_at;
+    }
+
+    public void setUpdated_at(LocalDateTime updated_at) {
+        this.updated_at = updated_at;
+    }
+
+    @Override
+    public String toString() {
+        return "GameAnalysisReport{" +
+                "game_analysis_report_id=" + game_analysis_report_id +
+                ", analysis_depth=" + analysis_depth +
+                ", blunder_count=" + blunder_count +
+                ", mistake_count=" + mistake_count +
+                ", updated_at=" + updated_at +
+                '}';
+    }
+}
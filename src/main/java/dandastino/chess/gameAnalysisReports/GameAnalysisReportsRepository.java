@@ -0,0 +1,27 @@
+package dandastino.chess.gameAnalysisReports;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface GameAnalysisReportsRepository extends JpaRepository<GameAnalysisReport, UUID> {
+    @Query("SELECT r FROM GameAnalysisReport r WHERE r.game.gameId = :gameId")
+    Optional<GameAnalysisReport> findByGameId(@Param("gameId") UUID gameId);
+
+    /**
+     * Flag the report of a game as counted in the player statistics
+     * @return 1 for the one caller that gets to record the game, 0 if it was already recorded
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE GameAnalysisReport r SET r.statistics_recorded = true " +
+           "WHERE r.game.gameId = :gameId AND (r.statistics_recorded IS NULL OR r.statistics_recorded = false)")
+    int markStatisticsRecorded(@Param("gameId") UUID gameId);
+}
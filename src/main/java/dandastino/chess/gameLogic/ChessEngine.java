@@ -6,6 +6,7 @@ import dandastino.chess.piece.Color;
 import dandastino.chess.piece.Piece;
 import dandastino.chess.piece.PieceType;
 
+import java.util.ArrayList;
 import java.util.List;
 
 public class ChessEngine {
@@ -119,6 +120,22 @@ public class ChessEngine {
         return validator.isSquareAttacked(board, kingPos[0], kingPos[1], opponent);
     }
 
+    /**
+     * Generates every legal move of the player to move: pseudo-legal moves that do not leave
+     * the player's own king in check.
+     *
+     * @return the legal moves in the current position, empty on checkmate or stalemate
+     */
+    public List<Move> getLegalMoves() {
+        List<Move> legalMoves = new ArrayList<>();
+        for (Move move : generator.generatePseudoLegalMoves(board)) {
+            if (isMoveSafe(move)) {
+                legalMoves.add(move);
+            }
+        }
+        return legalMoves;
+    }
+
     /**
      * Determines whether a given chess move is safe to make, meaning it does not put the player's own king in check.
      *
@@ -335,6 +352,100 @@ public class ChessEngine {
         );
     }
 
+    /**
+     * Finds the legal move written in Standard Algebraic Notation (SAN) in the current position,
+     * e.g. "Nf3", "exd5", "Nbd7", "O-O" or "e8=Q+". Check, checkmate and annotation markers are ignored,
+     * and so is the promotion piece since promotions are always to a queen.
+     *
+     * @param san the move in SAN, without a move number
+     * @return the matching legal move, or null if the notation matches no legal move or more than one
+     */
+    public Move findSanMove(String san) {
+        if (san == null) return null;
+        String notation = san.trim();
+        while (!notation.isEmpty() && "+#!?".indexOf(notation.charAt(notation.length() - 1)) >= 0) {
+            notation = notation.substring(0, notation.length() - 1);
+        }
+        if (notation.length() < 2) return null;
+
+        // 1. Castling
+        String castling = notation.replace('0', 'O');
+        if (castling.equals("O-O") || castling.equals("O-O-O")) {
+            boolean kingSide = castling.equals("O-O");
+            for (Move move : generator.generatePseudoLegalMoves(board)) {
+                Piece piece = board.getPieceAt(move.getStartRow(), move.getStartCol());
+                if (piece.getType().equals(PieceType.KING) && Math.abs(move.getEndCol() - move.getStartCol()) == 2
+                        && (move.getEndCol() > move.getStartCol()) == kingSide && isMoveSafe(move)) {
+                    return move;
+                }
+            }
+            return null;
+        }
+
+        // 2. Piece letter and promotion suffix
+        PieceType type = PieceType.PAWN;
+        int promotion = notation.indexOf('=');
+        if (promotion > 0) {
+            notation = notation.substring(0, promotion);
+        } else if (notation.length() > 2 && "QRBN".indexOf(notation.charAt(notation.length() - 1)) >= 0) {
+            notation = notation.substring(0, notation.length() - 1); // "e8Q"
+        }
+        switch (notation.charAt(0)) {
+            case 'K' -> type = PieceType.KING;
+            case 'Q' -> type = PieceType.QUEEN;
+            case 'R' -> type = PieceType.ROOK;
+            case 'B' -> type = PieceType.BISHOP;
+            case 'N' -> type = PieceType.KNIGHT;
+            default -> { }
+        }
+        if (!type.equals(PieceType.PAWN)) {
+            notation = notation.substring(1);
+        }
+        if (notation.length() < 2) return null;
+
+        // 3. Target square, then whatever is left disambiguates (file, rank or both)
+        String targetSquare = notation.substring(notation.length() - 2);
+        String disambiguation = notation.substring(0, notation.length() - 2).replace("x", "").replace("-", "");
+
+        // Only the candidates matching the notation are checked for king safety
+        Move found = null;
+        for (Move move : generator.generatePseudoLegalMoves(board)) {
+            Piece piece = board.getPieceAt(move.getStartRow(), move.getStartCol());
+            if (!piece.getType().equals(type)
+                    || !BoardUtils.toChessNotation(move.getEndRow(), move.getEndCol()).equals(targetSquare)) {
+                continue;
+            }
+            String startSquare = BoardUtils.toChessNotation(move.getStartRow(), move.getStartCol());
+            boolean matches = true;
+            for (char c : disambiguation.toCharArray()) {
+                if (startSquare.indexOf(c) < 0) {
+                    matches = false;
+                    break;
+                }
+            }
+            if (matches && isMoveSafe(move)) {
+                if (found != null) return null; // ambiguous
+                found = move;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Plays a move written in Standard Algebraic Notation (see {@link #findSanMove(String)}).
+     * Unlike {@link #makeMove(String, String)} no game status is computed, which keeps replaying
+     * long lists of known lines cheap.
+     *
+     * @param san the move in SAN, without a move number
+     * @return true if the move was legal and has been played, false if the board is unchanged
+     */
+    public boolean makeSanMove(String san) {
+        Move move = findSanMove(san);
+        if (move == null) return false;
+        board.MovePiece(move.getStartRow(), move.getEndRow(), move.getStartCol(), move.getEndCol());
+        return true;
+    }
+
     /**
      * Generates a new FEN (Forsyth-Edwards Notation) string representing the current state
      * of the chessboard. The FEN string captures the board configuration, active player,
@@ -0,0 +1,113 @@
+package dandastino.chess.gameLogic;
+
+import java.util.SplittableRandom;
+
+public class ZobristHash {
+    private static final String PIECES = "PNBRQKpnbrqk";
+    private static final long[][] PIECE_SQUARE = new long[12][64];
+    private static final long BLACK_TO_MOVE;
+    private static final long[] CASTLING = new long[4]; // K, Q, k, q
+    private static final long[] EN_PASSANT_FILE = new long[8];
+
+    static {
+        // Fixed seed: keys must be identical on every node and across restarts
+        SplittableRandom random = new SplittableRandom(0x5EEDC4E55L);
+        for (long[] squares : PIECE_SQUARE) {
+            for (int i = 0; i < squares.length; i++) {
+                squares[i] = random.nextLong();
+            }
+        }
+        BLACK_TO_MOVE = random.nextLong();
+        for (int i = 0; i < CASTLING.length; i++) {
+            CASTLING[i] = random.nextLong();
+        }
+        for (int i = 0; i < EN_PASSANT_FILE.length; i++) {
+            EN_PASSANT_FILE[i] = random.nextLong();
+        }
+    }
+
+    /**
+     * Computes the 64-bit Zobrist key of the position described by a FEN string.
+     * Only piece placement, side to move, castling rights and en passant square are hashed,
+     * so the same position reached at different move numbers gets the same key.
+     * An en passant square no pawn can capture on is left out: "1.d4 d5 2.Nf3" and "1.Nf3 d5 2.d4"
+     * would otherwise reach the same position under two keys.
+     *
+     * @param fen the FEN string of the position; the halfmove clock and fullmove number are optional
+     * @return the Zobrist key of the position
+     * @throws IllegalArgumentException if the FEN has no piece placement or side to move field
+     */
+    public static long hash(String fen) {
+        if (fen == null) {
+            throw new IllegalArgumentException("FEN cannot be null");
+        }
+        String[] parts = fen.trim().split(" ");
+        if (parts.length < 2) {
+            throw new IllegalArgumentException("Invalid FEN: " + fen);
+        }
+
+        long key = 0L;
+        int square = 0;
+        String placement = parts[0];
+        for (int i = 0; i < placement.length() && square < 64; i++) {
+            char c = placement.charAt(i);
+            if (c == '/') {
+                continue;
+            }
+            if (Character.isDigit(c)) {
+                square += c - '0';
+            } else {
+                int piece = PIECES.indexOf(c);
+                if (piece < 0) {
+                    throw new IllegalArgumentException("Invalid piece '" + c + "' in FEN: " + fen);
+                }
+                key ^= PIECE_SQUARE[piece][square++];
+            }
+        }
+
+        if (parts[1].equals("b")) {
+            key ^= BLACK_TO_MOVE;
+        }
+
+        if (parts.length > 2) {
+            String castling = parts[2];
+            if (castling.indexOf('K') >= 0) key ^= CASTLING[0];
+            if (castling.indexOf('Q') >= 0) key ^= CASTLING[1];
+            if (castling.indexOf('k') >= 0) key ^= CASTLING[2];
+            if (castling.indexOf('q') >= 0) key ^= CASTLING[3];
+        }
+
+        if (parts.length > 3 && parts[3].length() == 2) {
+            int file = parts[3].charAt(0) - 'a';
+            if (file >= 0 && file < 8 && enPassantPossible(placement, file, parts[3].charAt(1))) {
+                key ^= EN_PASSANT_FILE[file];
+            }
+        }
+
+        return key;
+    }
+
+    /**
+     * Whether a pawn stands next to the pawn that just moved two squares, ready to capture it
+     * @param rank rank of the en passant target square, '3' or '6'
+     */
+    private static boolean enPassantPossible(String placement, int file, char rank) {
+        // Target on rank 6: a white pawn on rank 5 captures; on rank 3: a black pawn on rank 4
+        char pawn = rank == '6' ? 'P' : 'p';
+        int row = rank == '6' ? 3 : 4; // rows counted from rank 8
+        String[] ranks = placement.split("/");
+        if (ranks.length != 8) return true;
+        String squares = ranks[row];
+        int col = 0;
+        for (int i = 0; i < squares.length() && col < 8; i++) {
+            char c = squares.charAt(i);
+            if (Character.isDigit(c)) {
+                col += c - '0';
+                continue;
+            }
+            if (c == pawn && Math.abs(col - file) == 1) return true;
+            col++;
+        }
+        return false;
+    }
+}
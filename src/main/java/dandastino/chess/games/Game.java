@@ -12,7 +12,11 @@ import java.util.List;
 import java.util.UUID;
 
 @Entity
-@Table(name="games")
+@Table(name="games", indexes = {
+        @Index(name = "idx_games_white_finished", columnList = "white_player_id, finished_at"),
+        @Index(name = "idx_games_black_finished", columnList = "black_player_id, finished_at"),
+        @Index(name = "idx_games_status_id", columnList = "status, game_id")
+})
 public class Game {
 
     @Id
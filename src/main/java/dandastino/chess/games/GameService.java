@@ -9,6 +9,7 @@ import dandastino.chess.users.UsersRepository;
 import dandastino.chess.websocket.GameBroadcastService;
 import dandastino.chess.gameStates.GameStateService;
 import dandastino.chess.gameStates.GameStateDTO;
+import dandastino.chess.playerStatistics.PlayerStatisticsService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -31,6 +32,9 @@ public class GameService {
     @Autowired
     private GameStateService gameStateService;
 
+    @Autowired
+    private PlayerStatisticsService playerStatisticsService;
+
     public List<GameResponseDTO> getAllGames() {
         return gamesRepository.findAll().stream()
                 .map(this::convertToDTO)
@@ -118,9 +122,9 @@ public class GameService {
         Game game = gamesRepository.findById(gameId)
                 .orElseThrow(() -> new NotFoundException(gameId));
         ensureParticipant(game, player);
+        boolean finishedNow = markFinished(game);
 
         game.setStatus(Status.done);
-        game.setFinishedAt(LocalDateTime.now());
         game.setFinalFen(finalFen);
 
         // Auto-determine result and winner
@@ -158,6 +162,9 @@ public class GameService {
         game.setResult(finalResult);
 
         Game saved = gamesRepository.save(game);
+        if (finishedNow) {
+            playerStatisticsService.recordGameResult(saved);
+        }
         GameResponseDTO responseDTO = convertToDTO(saved);
         
         // Create final GameState snapshot at game end
@@ -179,6 +186,20 @@ public class GameService {
         return responseDTO;
     }
 
+    /**
+     * Set the finish time of a game with a conditional update, so that of several concurrent requests
+     * finishing the same game (finish, resign, draw) exactly one records its result
+     * @return true for the request that finished the game
+     */
+    private boolean markFinished(Game game) {
+        LocalDateTime now = LocalDateTime.now();
+        boolean finishedNow = gamesRepository.markFinished(game.getGame_id(), now) > 0;
+        if (finishedNow || game.getFinishedAt() == null) {
+            game.setFinishedAt(now);
+        }
+        return finishedNow;
+    }
+
     public void deleteGame(UUID gameId, User player) {
         Game game = gamesRepository.findById(gameId)
                 .orElseThrow(() -> new NotFoundException(gameId));
@@ -221,9 +242,9 @@ public class GameService {
         Game game = gamesRepository.findById(gameId)
                 .orElseThrow(() -> new NotFoundException(gameId));
         ensureParticipant(game, player);
+        boolean finishedNow = markFinished(game);
 
         game.setStatus(Status.done);
-        game.setFinishedAt(LocalDateTime.now());
 
         // Determine winner based on who resigned
         if (game.getWhitePlayer() != null && game.getWhitePlayer().getId().equals(player.getId())) {
@@ -237,6 +258,9 @@ public class GameService {
         }
 
         Game saved = gamesRepository.save(game);
+        if (finishedNow) {
+            playerStatisticsService.recordGameResult(saved);
+        }
         GameResponseDTO responseDTO = convertToDTO(saved);
         
         // Create final GameState snapshot on resignation
@@ -282,10 +306,13 @@ public class GameService {
         ensureParticipant(game, player);
 
         if (accept) {
+            boolean finishedNow = markFinished(game);
             game.setStatus(Status.done);
-            game.setFinishedAt(LocalDateTime.now());
             game.setResult(Result.draw);
             Game saved = gamesRepository.save(game);
+            if (finishedNow) {
+                playerStatisticsService.recordGameResult(saved);
+            }
             GameResponseDTO responseDTO = convertToDTO(saved);
             
             // Create final GameState snapshot on draw acceptance
@@ -1,10 +1,14 @@
 package dandastino.chess.games;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -13,6 +17,42 @@ public interface GamesRepository extends JpaRepository<Game, UUID> {
     @Query("SELECT g FROM Game g WHERE g.whitePlayer.user_id = :playerId OR g.blackPlayer.user_id = :playerId")
     List<Game> findByWhitePlayerIdOrBlackPlayerId(@Param("playerId") UUID playerId);
     List<Game> findByStatus(Status status);
+    long countByStatus(Status status);
     @Query("SELECT g FROM Game g WHERE g.winner.user_id = :winnerId")
     List<Game> findByWinnerId(@Param("winnerId") UUID winnerId);
+
+    /**
+     * Whether the player won each of their last games finished before a time, newest first.
+     * Each side is read from its (player, finished_at) index and cut at the limit before the merge,
+     * so at most 2 * limit rows are touched however many games the player or the platform has.
+     */
+    @Query(value = "SELECT COALESCE(h.winner_id = :playerId, FALSE) FROM (" +
+            "(SELECT finished_at, winner_id FROM games WHERE white_player_id = :playerId AND finished_at < :before " +
+            "ORDER BY finished_at DESC LIMIT :limit) " +
+            "UNION ALL " +
+            "(SELECT finished_at, winner_id FROM games WHERE black_player_id = :playerId AND finished_at < :before " +
+            "ORDER BY finished_at DESC LIMIT :limit)" +
+            ") h ORDER BY h.finished_at DESC LIMIT :limit", nativeQuery = true)
+    List<Boolean> findRecentResultsOfPlayer(@Param("playerId") UUID playerId, @Param("before") LocalDateTime before, @Param("limit") int limit);
+
+    /**
+     * Ids of finished games after a cursor, in id order: one keyset page read from the (status, game_id) index,
+     * as cheap at the millionth game as at the first
+     */
+    @Query(value = "SELECT game_id FROM games WHERE status = 'done' AND game_id > :after ORDER BY game_id LIMIT :limit",
+            nativeQuery = true)
+    List<UUID> findFinishedGameIdsAfter(@Param("after") UUID after, @Param("limit") int limit);
+
+    @Query("SELECT g FROM Game g LEFT JOIN FETCH g.whitePlayer LEFT JOIN FETCH g.blackPlayer LEFT JOIN FETCH g.winner " +
+            "WHERE g.gameId IN :gameIds")
+    List<Game> findWithPlayersByIdIn(@Param("gameIds") Collection<UUID> gameIds);
+
+    /**
+     * Set the finish time of a game that has none yet
+     * @return 1 for the one request that finishes the game, 0 if it was already finished
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Game g SET g.finishedAt = :finishedAt WHERE g.gameId = :gameId AND g.finishedAt IS NULL")
+    int markFinished(@Param("gameId") UUID gameId, @Param("finishedAt") LocalDateTime finishedAt);
 }
@@ -17,8 +17,12 @@ public class MoveAnalysis {
     private String evaluation_cp;
     @Column(name = "best_move")
     private String best_move;
+    @Column(name = "candidate_moves")
+    private String candidate_moves; // engine's top moves in UCI notation, best first, space separated
     @Column(name = "deph")
     private int depth;
+    @Column(name = "centipawn_loss")
+    private Integer centipawn_loss; // null when the move was not searched (book, forced, engine failure)
     @Enumerated(EnumType.STRING)
     @Column(name = "review")
     private Review review;
@@ -57,6 +61,14 @@ public class MoveAnalysis {
         this.best_move = best_move;
     }
 
+    public String getCandidate_moves() {
+        return candidate_moves;
+    }
+
+    public void setCandidate_moves(String candidate_moves) {
+        this.candidate_moves = candidate_moves;
+    }
+
     public int getDepth() {
         return depth;
     }
@@ -65,6 +77,14 @@ public class MoveAnalysis {
         this.depth = depth;
     }
 
+    public Integer getCentipawn_loss() {
+        return centipawn_loss;
+    }
+
+    public void setCentipawn_loss(Integer centipawn_loss) {
+        this.centipawn_loss = centipawn_loss;
+    }
+
     public Review getReview() {
         return review;
     }
@@ -87,7 +107,9 @@ public class MoveAnalysis {
                 "move_analysis_id=" + move_analysis_id +
                 ", evaluation_cp='" + evaluation_cp + '\'' +
                 ", best_move='" + best_move + '\'' +
+                ", candidate_moves='" + candidate_moves + '\'' +
                 ", depth=" + depth +
+                ", centipawn_loss=" + centipawn_loss +
                 ", review=" + review +
                 ", move=" + move +
                 '}';
@@ -1,12 +1,19 @@
 package dandastino.chess.moveAnalyses;
 
 import dandastino.chess.engine.EngineAnalysis;
+import dandastino.chess.engine.EngineLine;
 import dandastino.chess.engine.StockfishEngine;
 import dandastino.chess.moves.Move;
+import dandastino.chess.positionEvaluations.PositionEvaluationService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Collection;
+import java.util.Map;
+
 /**
  * Service to analyze chess moves using Stockfish engine.
  * Calculates move quality metrics and detects blunders.
@@ -22,13 +29,84 @@ public class MoveAnalysisEngineService {
     private static final int MISTAKE_THRESHOLD = 150;      // 150-300cp loss
     private static final int INACCURACY_THRESHOLD = 50;    // 50-150cp loss
 
+    @Autowired
+    private PositionEvaluationService positionEvaluationService;
+
+    // A search still running after this long is stopped and its deepest finished iteration kept
+    @Value("${stockfish.analysis.search-time-limit-ms:120000}")
+    private long searchTimeLimitMs;
+
+    // Top moves (MultiPV) searched when reviewing a single move: a played move among them needs no search
+    // of the position after it. Full-game analysis searches that position anyway and asks for one line.
+    @Value("${stockfish.analysis.candidate-lines:3}")
+    private int candidateLines;
+
+    public int getAnalysisDepth() {
+        return DEFAULT_ANALYSIS_DEPTH;
+    }
+
+    /**
+     * Whether a stored review was computed at the current analysis depth and can be reused as is.
+     * Book and forced labels do not depend on a search, so they never go stale.
+     */
+    public boolean isUpToDate(MoveAnalysis analysis) {
+        if (analysis == null) {
+            return false;
+        }
+        if (analysis.getReview() == Review.Book || analysis.getReview() == Review.Forced) {
+            return true;
+        }
+        return analysis.getBest_move() != null && analysis.getDepth() >= DEFAULT_ANALYSIS_DEPTH;
+    }
+
+    /**
+     * Evaluation of a position already searched at the analysis depth on any node, or null
+     */
+    public EngineAnalysis getCachedEvaluation(String fen) {
+        return positionEvaluationService.get(fen, DEFAULT_ANALYSIS_DEPTH);
+    }
+
+    /**
+     * Evaluations already searched at the analysis depth, keyed by FEN; positions never searched are absent
+     */
+    public Map<String, EngineAnalysis> getCachedEvaluations(Collection<String> fens) {
+        return positionEvaluationService.getAll(fens, DEFAULT_ANALYSIS_DEPTH);
+    }
+
+    /**
+     * Search a position once at the analysis depth, unless any node already has.
+     * The result serves both as "after" evaluation of one move and "before" evaluation of the next.
+     */
+    public EngineAnalysis evaluatePosition(StockfishEngine stockfishEngine, String fen) throws Exception {
+        return evaluatePosition(stockfishEngine, fen, 1);
+    }
+
+    private EngineAnalysis evaluatePosition(StockfishEngine stockfishEngine, String fen, int lines) throws Exception {
+        EngineAnalysis cached = getCachedEvaluation(fen);
+        return cached != null ? cached : searchPosition(stockfishEngine, fen, lines);
+    }
+
+    /**
+     * Search a position with the engine, bypassing the cache lookup, and store the result for every node.
+     * Only the best line is searched: full-game analysis evaluates the position after each move anyway.
+     */
+    public EngineAnalysis searchPosition(StockfishEngine stockfishEngine, String fen) throws Exception {
+        return searchPosition(stockfishEngine, fen, 1);
+    }
+
+    private EngineAnalysis searchPosition(StockfishEngine stockfishEngine, String fen, int lines) throws Exception {
+        EngineAnalysis analysis = stockfishEngine.analyze(fen, DEFAULT_ANALYSIS_DEPTH, Math.max(1, lines), searchTimeLimitMs);
+        positionEvaluationService.put(fen, analysis);
+        return analysis;
+    }
+
     /**
      * Analyze a move and calculate its quality
      * @param stockfishEngine initialized Stockfish engine
      * @param fenBefore FEN position before the move
      * @param move the move to analyze
      * @param fenAfter FEN position after the move
-     * @return MoveAnalysis with review classification
+     * @return MoveAnalysis with review classification, or null if the engine could not evaluate the move
      */
     public MoveAnalysis analyzeMoveQuality(
             StockfishEngine stockfishEngine,
@@ -37,54 +115,96 @@ public class MoveAnalysisEngineService {
             String fenAfter) {
         
         try {
-            // Get engine's best move and evaluation before the move
-            EngineAnalysis engineBestAnalysis = stockfishEngine.analyze(fenBefore, DEFAULT_ANALYSIS_DEPTH);
-            int evaluationBefore = engineBestAnalysis.getEvaluation();
-            String engineBestMove = engineBestAnalysis.getBestMove();
-            
-            // Get evaluation after the player's move
-            EngineAnalysis afterMoveAnalysis = stockfishEngine.analyze(fenAfter, DEFAULT_ANALYSIS_DEPTH);
-            int evaluationAfter = afterMoveAnalysis.getEvaluation();
-            
-            // Calculate centipawn loss (CPL)
-            // Positive CPL means the position got worse
-            int centipawnLoss = calculateCentipawnLoss(evaluationBefore, evaluationAfter);
-            
-            // Classify the move
-            Review review = classifyMove(centipawnLoss, engineBestMove.equals(move.getSanMove()));
-            
-            // Create analysis
-            MoveAnalysis analysis = new MoveAnalysis();
-            analysis.setMove(move);
-            analysis.setReview(review);
-            analysis.setDepth(DEFAULT_ANALYSIS_DEPTH);
-            analysis.setBest_move(engineBestMove);
-            analysis.setEvaluation_cp(String.valueOf(evaluationBefore));
-            
-            logger.info("Move analysis complete: {} - {} - CPL: {}", 
-                       move.getSanMove(), review, centipawnLoss);
-            
-            return analysis;
-            
+            EngineAnalysis before = evaluatePosition(stockfishEngine, fenBefore, candidateLines);
+            // Skip the second search when the played move was already scored as a candidate
+            EngineAnalysis after = before.findLine(toUciMove(move)) != null || move.isCheckmate()
+                    ? null
+                    : evaluatePosition(stockfishEngine, fenAfter);
+            return analyzeMoveQuality(move, before, after);
         } catch (Exception e) {
             logger.error("Error analyzing move", e);
-            // Return analysis with neutral review if engine fails
-            MoveAnalysis analysis = new MoveAnalysis();
-            analysis.setMove(move);
-            analysis.setReview(Review.Great);
-            analysis.setDepth(0);
-            return analysis;
+            return null;
+        }
+    }
+
+    /**
+     * Classify a move from already computed evaluations of the positions before and after it.
+     * Both evaluations are from the side to move, so "after" is from the opponent's point of view.
+     * @param move the move to analyze
+     * @param before engine analysis of the position before the move
+     * @param after engine analysis of the position after the move, null if unavailable (e.g. checkmate)
+     * @return MoveAnalysis with review classification, or null if the position before the move was not searched;
+     *         the move then keeps no review and is analyzed again by the next run
+     */
+    public MoveAnalysis analyzeMoveQuality(Move move, EngineAnalysis before, EngineAnalysis after) {
+        if (before == null || before.getBestMove() == null) {
+            return null;
+        }
+
+        int evaluationBefore = before.getEvaluation();
+        String engineBestMove = before.getBestMove();
+        String playedMove = toUciMove(move);
+
+        // Calculate centipawn loss (CPL)
+        // Positive CPL means the position got worse
+        int centipawnLoss;
+        EngineLine playedLine = before.findLine(playedMove);
+        if (playedLine != null) {
+            // The played move is one of the candidates: both scores come from the same search
+            centipawnLoss = Math.max(0, evaluationBefore - playedLine.getEvaluation());
+        } else if (after != null) {
+            centipawnLoss = calculateCentipawnLoss(evaluationBefore, after.getEvaluation());
+        } else {
+            // No position to compare with: only a mating move ends the game without an "after" search
+            centipawnLoss = 0;
+        }
+
+        // Classify the move
+        Review review = classifyMove(centipawnLoss, engineBestMove.equals(playedMove) || move.isCheckmate());
+
+        // Create analysis
+        MoveAnalysis analysis = new MoveAnalysis();
+        analysis.setMove(move);
+        analysis.setReview(review);
+        analysis.setDepth(before.getDepth() > 0 ? before.getDepth() : DEFAULT_ANALYSIS_DEPTH);
+        analysis.setBest_move(engineBestMove);
+        analysis.setCandidate_moves(String.join(" ", before.getLines().stream()
+                .map(EngineLine::getMove)
+                .toList()));
+        analysis.setEvaluation_cp(String.valueOf(evaluationBefore));
+        analysis.setCentipawn_loss(centipawnLoss);
+
+        logger.info("Move analysis complete: {} - {} - CPL: {}",
+                   move.getSanMove(), review, centipawnLoss);
+
+        return analysis;
+    }
+
+    /**
+     * Played move in UCI notation (e.g. e2e4, e7e8q) so it can be compared with engine output
+     */
+    public static String toUciMove(Move move) {
+        if (move.getFromSquare() == null || move.getToSquare() == null) {
+            return null;
+        }
+        String uci = (move.getFromSquare() + move.getToSquare()).toLowerCase();
+        String san = move.getSanMove();
+        int promotion = san != null ? san.indexOf('=') : -1;
+        if (promotion >= 0 && promotion + 1 < san.length()) {
+            uci += Character.toLowerCase(san.charAt(promotion + 1));
         }
+        return uci;
     }
 
     /**
      * Calculate centipawn loss for a move
      * Positive value means position got worse
+     * @param evaluationBefore evaluation before the move, from the mover's point of view
+     * @param evaluationAfter evaluation after the move, from the opponent's point of view (now to move)
      */
     private int calculateCentipawnLoss(int evaluationBefore, int evaluationAfter) {
-        // Simple calculation: if the evaluation went down (got worse), that's CPL
-        // Note: This is simplified and should account for whose turn it is
-        return Math.max(0, evaluationBefore - evaluationAfter);
+        // Flip the "after" score back to the mover before comparing
+        return Math.max(0, evaluationBefore - (-evaluationAfter));
     }
 
     /**
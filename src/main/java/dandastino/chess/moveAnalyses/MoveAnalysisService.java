@@ -3,21 +3,72 @@ package dandastino.chess.moveAnalyses;
 import dandastino.chess.exceptions.NotFoundException;
 import dandastino.chess.moves.Move;
 import dandastino.chess.moves.MovesRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 @Service
 public class MoveAnalysisService {
 
+    private static final Logger logger = LoggerFactory.getLogger(MoveAnalysisService.class);
+
+    // Check constraints Hibernate generated for the review column, with their definitions
+    private static final String REVIEW_CHECKS_SQL =
+            "SELECT conname, pg_get_constraintdef(oid) FROM pg_constraint " +
+            "WHERE conrelid = 'move_analyses'::regclass AND contype = 'c' " +
+            "AND pg_get_constraintdef(oid) LIKE '%review%'";
+
     @Autowired
     private MoveAnalysesRepository moveAnalysesRepository;
 
     @Autowired
     private MovesRepository movesRepository;
 
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Recreate the check constraint on move_analyses.review when it predates a Review value.
+     * Hibernate writes the enum values into the constraint when it creates the table, and ddl-auto=update
+     * never changes it afterwards, so inserting a newer value (Book, Forced) would otherwise fail.
+     * The old constraints are dropped and the new one added in a single statement.
+     */
+    @PostConstruct
+    public void updateReviewConstraint() {
+        try {
+            List<Map<String, Object>> checks = jdbcTemplate.queryForList(REVIEW_CHECKS_SQL);
+            String definition = checks.size() == 1 ? String.valueOf(checks.get(0).get("pg_get_constraintdef")) : "";
+            boolean current = Arrays.stream(Review.values())
+                    .allMatch(review -> definition.contains("'" + review.name() + "'"));
+            if (current) {
+                return;
+            }
+            StringBuilder sql = new StringBuilder("ALTER TABLE move_analyses ");
+            for (Map<String, Object> check : checks) {
+                sql.append("DROP CONSTRAINT \"").append(check.get("conname")).append("\", ");
+            }
+            sql.append("ADD CONSTRAINT move_analyses_review_check CHECK (review IN (")
+                    .append(Arrays.stream(Review.values()).map(review -> "'" + review.name() + "'").collect(Collectors.joining(", ")))
+                    .append("))");
+            jdbcTemplate.execute(sql.toString());
+            logger.info("Updated the review check constraint of move_analyses to {} values", Review.values().length);
+        } catch (Exception e) {
+            logger.warn("Could not update the review check constraint of move_analyses: {}", e.getMessage());
+        }
+    }
+
     public List<MoveAnalysisResponseDTO> getAllMoveAnalyses() {
         return moveAnalysesRepository.findAll().stream()
                 .map(this::convertToDTO)
@@ -45,6 +96,52 @@ public class MoveAnalysisService {
         return convertToDTO(saved);
     }
 
+    /**
+     * Save the analyses of a game and link them to their moves in one transaction.
+     * A move that already has an analysis gets its row updated instead of a second row.
+     * Rows are flushed together as JDBC batches (see hibernate.jdbc.batch_size); UUID ids are generated
+     * in memory, so inserts need no sequence round trip.
+     * @param analyses new analyses, each with its move set
+     * @return the saved analyses, in the same order
+     */
+    @Transactional
+    public List<MoveAnalysis> saveGameAnalyses(List<MoveAnalysis> analyses) {
+        // Moves loaded in one query become managed, so the links are written as batched updates at commit
+        // instead of one merge (select + update) per move
+        Map<UUID, Move> managedMoves = new HashMap<>();
+        for (Move move : movesRepository.findAllById(analyses.stream().map(a -> a.getMove().getMoveId()).toList())) {
+            managedMoves.put(move.getMoveId(), move);
+        }
+
+        List<MoveAnalysis> saved = new ArrayList<>(analyses.size());
+        List<MoveAnalysis> inserts = new ArrayList<>();
+        for (MoveAnalysis analysis : analyses) {
+            Move move = managedMoves.get(analysis.getMove().getMoveId());
+            MoveAnalysis existing = move != null ? move.getMoveAnalysis() : null;
+            MoveAnalysis target;
+            if (existing != null) {
+                existing.setEvaluation_cp(analysis.getEvaluation_cp());
+                existing.setBest_move(analysis.getBest_move());
+                existing.setCandidate_moves(analysis.getCandidate_moves());
+                existing.setDepth(analysis.getDepth());
+                existing.setCentipawn_loss(analysis.getCentipawn_loss());
+                existing.setReview(analysis.getReview());
+                target = existing;
+            } else {
+                inserts.add(analysis);
+                if (move != null) {
+                    move.setMoveAnalysis(analysis);
+                }
+                target = analysis;
+            }
+            // Keep the caller's copy of the move in sync
+            analysis.getMove().setMoveAnalysis(target);
+            saved.add(target);
+        }
+        moveAnalysesRepository.saveAll(inserts);
+        return saved;
+    }
+
     public MoveAnalysisResponseDTO updateMoveAnalysis(UUID moveAnalysisId, MoveAnalysisDTO moveAnalysisDTO) {
         MoveAnalysis moveAnalysis = moveAnalysesRepository.findById(moveAnalysisId)
                 .orElseThrow(() -> new NotFoundException(moveAnalysisId));
@@ -0,0 +1,136 @@
+package dandastino.chess.moveAnalyses;
+
+import dandastino.chess.gameLogic.ChessEngine;
+import dandastino.chess.moves.Move;
+import dandastino.chess.openings.OpeningClassificationService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Labels moves that need no engine search before any Stockfish call is made:
+ * - forced moves: the player had exactly one legal move
+ * - book moves: the game still follows a known opening line
+ * - decided positions: the move mates, or leaves only material that cannot mate
+ * Keeps counters of how many position searches these shortcuts saved.
+ */
+@Service
+public class PreAnalysisClassifier {
+
+    private static final Logger logger = LoggerFactory.getLogger(PreAnalysisClassifier.class);
+
+    @Autowired
+    private OpeningClassificationService openingService;
+
+    @Autowired
+    private MoveAnalysisEngineService moveAnalysisEngineService;
+
+    private final AtomicLong positionsRequired = new AtomicLong();
+    private final AtomicLong positionsSkipped = new AtomicLong();
+    private final AtomicLong forcedMoves = new AtomicLong();
+    private final AtomicLong bookMoves = new AtomicLong();
+    private final AtomicLong decidedMoves = new AtomicLong();
+
+    /**
+     * Label the moves of a game that can be reviewed without the engine
+     * @param moves the moves of the game in ply order
+     * @param positions FEN before the first move followed by the FEN after every move
+     * @return one entry per move: the review to use, or null if the move needs the engine
+     */
+    public MoveAnalysis[] classify(List<Move> moves, List<String> positions) {
+        MoveAnalysis[] shortcuts = new MoveAnalysis[moves.size()];
+        int bookPlies = openingService.countBookPlies(moves);
+
+        for (int i = 0; i < moves.size(); i++) {
+            Move move = moves.get(i);
+            String playedMove = MoveAnalysisEngineService.toUciMove(move);
+            if (i < bookPlies) {
+                shortcuts[i] = label(move, Review.Book, playedMove, null, 0);
+                bookMoves.incrementAndGet();
+            } else if (move.isCheckmate()) {
+                // Mate is the best result there is; a deeper search could not change the review
+                shortcuts[i] = label(move, Review.Best, playedMove, null, moveAnalysisEngineService.getAnalysisDepth());
+                shortcuts[i].setCentipawn_loss(0);
+                decidedMoves.incrementAndGet();
+            } else if (isInsufficientMaterial(positions.get(i + 1))) {
+                // Dead draw whatever is played next
+                shortcuts[i] = label(move, Review.Great, playedMove, "0", moveAnalysisEngineService.getAnalysisDepth());
+                shortcuts[i].setCentipawn_loss(0);
+                decidedMoves.incrementAndGet();
+            } else if (isOnlyLegalMove(positions.get(i))) {
+                shortcuts[i] = label(move, Review.Forced, playedMove, null, 0);
+                forcedMoves.incrementAndGet();
+            }
+        }
+        return shortcuts;
+    }
+
+    /**
+     * Record how many position searches a game would have needed and how many the shortcuts removed
+     */
+    public void recordSavings(int required, int searched) {
+        positionsRequired.addAndGet(required);
+        positionsSkipped.addAndGet(Math.max(0, required - searched));
+        logger.info("Pre-analysis skipped {} of {} position searches", Math.max(0, required - searched), required);
+    }
+
+    public ShortcutStats getStats() {
+        long required = positionsRequired.get();
+        long skipped = positionsSkipped.get();
+        return new ShortcutStats(required, skipped, required == 0 ? 0.0 : (double) skipped / required,
+                forcedMoves.get(), bookMoves.get(), decidedMoves.get());
+    }
+
+    /**
+     * Snapshot of the shortcut counters since startup
+     */
+    public record ShortcutStats(long positionsRequired, long positionsSkipped, double savedShare,
+                                long forcedMoves, long bookMoves, long decidedMoves) {}
+
+    private MoveAnalysis label(Move move, Review review, String bestMove, String evaluation, int depth) {
+        MoveAnalysis analysis = new MoveAnalysis();
+        analysis.setMove(move);
+        analysis.setReview(review);
+        analysis.setBest_move(bestMove);
+        analysis.setEvaluation_cp(evaluation);
+        analysis.setDepth(depth);
+        return analysis;
+    }
+
+    private boolean isOnlyLegalMove(String fen) {
+        if (fen == null || fen.isEmpty()) {
+            return false;
+        }
+        try {
+            return new ChessEngine(fen).getLegalMoves().size() == 1;
+        } catch (Exception e) {
+            logger.debug("Could not generate legal moves for {}: {}", fen, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Only kings left, or kings and a single knight or bishop: no side can ever mate
+     */
+    private boolean isInsufficientMaterial(String fen) {
+        if (fen == null || fen.isEmpty()) {
+            return false;
+        }
+        int minorPieces = 0;
+        for (int i = 0; i < fen.length() && fen.charAt(i) != ' '; i++) {
+            switch (fen.charAt(i)) {
+                case 'N', 'n', 'B', 'b' -> minorPieces++;
+                case 'P', 'p', 'R', 'r', 'Q', 'q' -> {
+                    return false;
+                }
+                default -> {
+                }
+            }
+        }
+        return minorPieces <= 1;
+    }
+}
@@ -1,5 +1,5 @@
 package dandastino.chess.moveAnalyses;
 
 public enum Review {
-    Brilliant, Great, Best, Mistake, Miss, Blunder
+    Brilliant, Great, Best, Book, Forced, Mistake, Miss, Blunder
 }
@@ -1,5 +1,6 @@
 package dandastino.chess.moves;
 
+import dandastino.chess.cheatingAnalyses.LiveCheatingDetector;
 import dandastino.chess.exceptions.NotFoundException;
 import dandastino.chess.games.Game;
 import dandastino.chess.games.GamesRepository;
@@ -32,6 +33,9 @@ public class MoveService {
     @Autowired
     private GameBroadcastService broadcastService;
 
+    @Autowired
+    private LiveCheatingDetector liveCheatingDetector;
+
     public List<MoveResponseDTO> getAllMoves() {
         return movesRepository.findAll().stream()
                 .map(this::convertToDTO)
@@ -77,6 +81,9 @@ public class MoveService {
         }
         
         MoveResponseDTO responseDTO = convertToDTO(saved);
+
+        // Update the in-game cheating signals before the move triggers the live evaluation of the new position
+        liveCheatingDetector.onMove(game, saved);
         
         // Broadcast the move to all connected players via WebSocket
         broadcastService.broadcastMove(responseDTO);
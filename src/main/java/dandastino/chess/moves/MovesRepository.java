@@ -5,14 +5,22 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
 @Repository
 public interface MovesRepository extends JpaRepository<Move, UUID> {
-    @Query("SELECT m FROM Move m WHERE m.gameAnalysis.gameId = :gameId")
+    @Query("SELECT m FROM Move m WHERE m.gameAnalysis.gameId = :gameId ORDER BY m.moveNumber, m.timestamp")
     List<Move> findByGameId(@Param("gameId") UUID gameId);
 
     @Query("SELECT m FROM Move m WHERE m.userMove.user_id = :playerId")
     List<Move> findByPlayerId(@Param("playerId") UUID playerId);
+
+    /**
+     * Moves of several games with their players and reviews in one query, ordered by game then move
+     */
+    @Query("SELECT m FROM Move m JOIN FETCH m.gameAnalysis g LEFT JOIN FETCH m.userMove LEFT JOIN FETCH m.moveAnalysis " +
+            "WHERE g.gameId IN :gameIds ORDER BY g.gameId, m.moveNumber, m.timestamp")
+    List<Move> findByGameIdIn(@Param("gameIds") Collection<UUID> gameIds);
 }
@@ -7,7 +7,10 @@ import java.util.List;
 import java.util.UUID;
 
 @Entity
-@Table(name="openings")
+@Table(name="openings", indexes = {
+        // One opening per position: catalogue imports skip lines whose position is already named
+        @Index(name = "uq_openings_position_key", columnList = "position_key", unique = true)
+})
 public class Opening {
 
     @Id
@@ -20,8 +23,12 @@ public class Opening {
     private String eco_code;
     @Column(name = "fen_start")
     private String fen_start;
-    @Column(name = "moves")
+    // Full catalogue lines can run past a varchar(255)
+    @Column(name = "moves", columnDefinition = "TEXT")
     private String moves;
+    // Zobrist key of the position the opening names (see OpeningPositionIndex)
+    @Column(name = "position_key")
+    private Long position_key;
 
     @OneToMany(mappedBy = "opening")
     private List<GameOpening> gamesOpenings;
@@ -71,6 +78,14 @@ public class Opening {
         this.moves = moves;
     }
 
+    public Long getPosition_key() {
+        return position_key;
+    }
+
+    public void setPosition_key(Long position_key) {
+        this.position_key = position_key;
+    }
+
     @Override
     public String toString() {
         return "Opening{" +
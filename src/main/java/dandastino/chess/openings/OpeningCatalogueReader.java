@@ -0,0 +1,204 @@
+package dandastino.chess.openings;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads an opening catalogue one line at a time, so files of any size are streamed rather than loaded.
+ * Two formats are understood:
+ * <ul>
+ *     <li>TSV with the ECO code, the name and the moves on each row ("C50	Italian Game	1. e4 e5 2. Nf3 Nc6 3. Bc4"),
+ *     optionally with a header row naming the columns (eco, name, pgn or moves) in any order</li>
+ *     <li>PGN, one game per opening, named by its ECO, Opening and Variation tags</li>
+ * </ul>
+ * Moves are returned as SAN separated by single spaces, without move numbers, comments, variations or results.
+ * An I/O failure while reading surfaces as an {@link UncheckedIOException}.
+ */
+final class OpeningCatalogueReader implements Iterator<OpeningCatalogueReader.Line> {
+
+    private final BufferedReader reader;
+    private final boolean pgn;
+
+    // TSV column positions, from the header when there is one
+    private int ecoColumn = 0;
+    private int nameColumn = 1;
+    private int movesColumn = 2;
+    private boolean firstRow = true;
+
+    // PGN game being read
+    private String pendingTagLine;
+
+    private Line next;
+
+    OpeningCatalogueReader(BufferedReader reader, boolean pgn) {
+        this.reader = reader;
+        this.pgn = pgn;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null) {
+            try {
+                next = pgn ? readPgnGame() : readTsvRow();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return next != null;
+    }
+
+    @Override
+    public Line next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Line line = next;
+        next = null;
+        return line;
+    }
+
+    private Line readTsvRow() throws IOException {
+        String row;
+        while ((row = reader.readLine()) != null) {
+            if (row.isBlank() || row.startsWith("#")) continue;
+            String[] columns = row.split("\t");
+            if (firstRow) {
+                firstRow = false;
+                if (readHeader(columns)) continue;
+            }
+            if (columns.length <= Math.max(ecoColumn, Math.max(nameColumn, movesColumn))) {
+                // Kept so the import counts it as invalid
+                return new Line(null, row.trim(), null);
+            }
+            return new Line(columns[ecoColumn].trim(), columns[nameColumn].trim(), sanMoves(columns[movesColumn]));
+        }
+        return null;
+    }
+
+    private boolean readHeader(String[] columns) {
+        int eco = -1, name = -1, moves = -1;
+        for (int i = 0; i < columns.length; i++) {
+            switch (columns[i].trim().toLowerCase(Locale.ROOT)) {
+                case "eco", "eco_code" -> eco = i;
+                case "name", "opening" -> name = i;
+                case "pgn", "moves", "san" -> moves = i;
+                default -> { }
+            }
+        }
+        if (eco < 0 || name < 0 || moves < 0) {
+            return false;
+        }
+        ecoColumn = eco;
+        nameColumn = name;
+        movesColumn = moves;
+        return true;
+    }
+
+    private Line readPgnGame() throws IOException {
+        String eco = null;
+        String opening = null;
+        String variation = null;
+        StringBuilder movetext = new StringBuilder();
+        boolean inGame = false;
+
+        String row = pendingTagLine;
+        pendingTagLine = null;
+        if (row == null) {
+            row = reader.readLine();
+        }
+        for (; row != null; row = reader.readLine()) {
+            String trimmed = row.trim();
+            if (trimmed.startsWith("[")) {
+                if (!movetext.isEmpty()) {
+                    // Tags of the next game: this one is complete
+                    pendingTagLine = row;
+                    break;
+                }
+                inGame = true;
+                String value = tagValue(trimmed);
+                switch (tagName(trimmed)) {
+                    case "ECO" -> eco = value;
+                    case "Opening" -> opening = value;
+                    case "Variation" -> variation = value;
+                    default -> { }
+                }
+            } else if (!trimmed.isEmpty()) {
+                inGame = true;
+                movetext.append(trimmed).append(' ');
+            }
+        }
+        if (!inGame) {
+            return null;
+        }
+        String name = opening;
+        if (name != null && variation != null && !variation.isBlank()) {
+            name = name + ": " + variation;
+        }
+        return new Line(eco, name, sanMoves(movetext.toString()));
+    }
+
+    private static String tagName(String tag) {
+        int space = tag.indexOf(' ');
+        return space > 1 ? tag.substring(1, space) : "";
+    }
+
+    private static String tagValue(String tag) {
+        int start = tag.indexOf('"');
+        int end = tag.lastIndexOf('"');
+        return start >= 0 && end > start ? tag.substring(start + 1, end) : null;
+    }
+
+    /**
+     * Movetext reduced to SAN moves separated by single spaces
+     */
+    static String sanMoves(String movetext) {
+        List<String> moves = new ArrayList<>();
+        StringBuilder token = new StringBuilder();
+        int variationDepth = 0;
+        boolean inComment = false;
+        for (int i = 0; i <= movetext.length(); i++) {
+            char c = i < movetext.length() ? movetext.charAt(i) : ' ';
+            if (inComment) {
+                if (c == '}') inComment = false;
+                continue;
+            }
+            if (c == '{') {
+                inComment = true;
+            } else if (c == '(') {
+                variationDepth++;
+            } else if (c == ')') {
+                variationDepth = Math.max(0, variationDepth - 1);
+            } else if (variationDepth == 0 && !Character.isWhitespace(c)) {
+                token.append(c);
+                continue;
+            }
+            addMove(moves, token);
+        }
+        return String.join(" ", moves);
+    }
+
+    private static void addMove(List<String> moves, StringBuilder token) {
+        if (token.isEmpty()) return;
+        String text = token.toString();
+        token.setLength(0);
+        if (text.startsWith("$") || text.equals("*") || text.equals("1-0") || text.equals("0-1") || text.equals("1/2-1/2")) {
+            return;
+        }
+        String san = OpeningTrie.normalize(text);
+        if (!san.isEmpty()) {
+            moves.add(san);
+        }
+    }
+
+    /**
+     * One opening of the catalogue
+     * @param moves SAN moves from the starting position, separated by spaces
+     */
+    record Line(String ecoCode, String name, String moves) {}
+}
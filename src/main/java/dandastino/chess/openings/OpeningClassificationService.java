@@ -2,6 +2,7 @@ package dandastino.chess.openings;
 
 import dandastino.chess.moves.Move;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -11,15 +12,33 @@ import java.util.*;
 /**
  * Service to classify chess openings using ECO codes.
  * Matches move sequences against known openings database.
+ * Games are classified by the last named position they reach (see {@link OpeningPositionIndex}), so
+ * transpositions are recognised; book moves are counted along a trie of the known lines (see {@link OpeningTrie}).
+ * Both indexes are held in memory, rebuilt when openings are changed through this application and
+ * periodically to pick up changes made on other nodes.
  */
 @Service
 public class OpeningClassificationService {
     
     private static final Logger logger = LoggerFactory.getLogger(OpeningClassificationService.class);
     
+    // Seeded into an empty table when no catalogue is configured
+    private static final List<OpeningCatalogueReader.Line> COMMON_OPENINGS = List.of(
+            new OpeningCatalogueReader.Line("C50", "Italian Game", "e4 e5 Nf3 Nc6 Bc4"),
+            new OpeningCatalogueReader.Line("B20", "Sicilian Defense", "e4 c5"),
+            new OpeningCatalogueReader.Line("C00", "French Defense", "e4 e6"),
+            new OpeningCatalogueReader.Line("B10", "Caro-Kann Defense", "e4 c6"),
+            new OpeningCatalogueReader.Line("C60", "Ruy Lopez", "e4 e5 Nf3 Nc6 Bb5")
+    );
+    
     @Autowired
     private OpeningsRepository openingsRepository;
 
+    @Autowired
+    private OpeningImportService openingImportService;
+
+    private volatile Indexes indexes;
+
     /**
      * Classify opening based on the moves played so far
      */
@@ -28,16 +47,20 @@ public class OpeningClassificationService {
             return null;
         }
 
-        // Convert moves to SAN notation sequence
-        String moveSequence = buildMoveSequence(movesPlayed);
-        
-        logger.debug("Classifying opening from moves: {}", moveSequence);
-
-        // Query database for matching opening
-        Opening opening = findMatchingOpening(moveSequence);
+        // Replay the game's positions and keep the last named one, whatever the move order
+        Indexes current = indexes();
+        OpeningPositionIndex.Match match = current.positions().lastNamedPosition(movesPlayed);
+        Opening opening = match.opening();
+        int plies = match.openingPlies();
+        if (opening == null) {
+            // Openings whose line could not be replayed are only known by their moves
+            OpeningTrie.Match lineMatch = current.trie().walk(sanMoves(movesPlayed));
+            opening = lineMatch.opening();
+            plies = lineMatch.openingPlies();
+        }
         
         if (opening != null) {
-            logger.info("Opening classified as: {} ({})", opening.getName(), opening.getEco_code());
+            logger.info("Opening classified as: {} ({}) after {} plies", opening.getName(), opening.getEco_code(), plies);
         } else {
             logger.debug("No opening classification found for move sequence");
         }
@@ -46,64 +69,80 @@ public class OpeningClassificationService {
     }
 
     /**
-     * Build SAN move sequence from list of moves
+     * Number of leading plies of the game that follow a known opening line (book moves)
      */
-    private String buildMoveSequence(List<Move> moves) {
-        StringBuilder sequence = new StringBuilder();
-        for (int i = 0; i < Math.min(moves.size(), 10); i++) { // First 10 moves only
-            if (i > 0) sequence.append(" ");
-            sequence.append(moves.get(i).getSanMove());
-        }
-        return sequence.toString();
+    public int countBookPlies(List<Move> movesPlayed) {
+        return indexes().trie().walk(sanMoves(movesPlayed)).bookPlies();
     }
 
     /**
-     * Find matching opening from database
-     * Tries to match longest sequence first
+     * Rebuild the in-memory indexes from the openings table
      */
-    private Opening findMatchingOpening(String moveSequence) {
-        // Get all openings from database
-        List<Opening> allOpenings = openingsRepository.findAll();
-
-        Opening bestMatch = null;
-        int bestMatchLength = 0;
-
-        // Try to match against each opening
-        for (Opening opening : allOpenings) {
-            if (opening.getMoves() == null) continue;
-
-            String openingMoves = opening.getMoves();
-            
-            // Check if our move sequence starts with the opening's moves
-            if (moveSequence.startsWith(openingMoves)) {
-                int matchLength = openingMoves.split(" ").length;
-                
-                // Keep track of the longest matching opening
-                if (matchLength > bestMatchLength) {
-                    bestMatch = opening;
-                    bestMatchLength = matchLength;
+    @Scheduled(fixedDelayString = "${openings.index.refresh-interval-ms:300000}")
+    public void refresh() {
+        try {
+            long started = System.nanoTime();
+            Indexes built = buildIndexes();
+            indexes = built;
+            logger.debug("Opening index rebuilt with {} lines and {} positions in {} ms",
+                    built.trie().size(), built.positions().size(), (System.nanoTime() - started) / 1_000_000);
+        } catch (Exception e) {
+            // Keep classifying with the previous index
+            logger.warn("Could not rebuild the opening index: {}", e.getMessage());
+        }
+    }
+
+    private Indexes indexes() {
+        Indexes current = indexes;
+        if (current == null) {
+            synchronized (this) {
+                if (indexes == null) {
+                    indexes = buildIndexes();
                 }
+                current = indexes;
             }
         }
+        return current;
+    }
 
-        return bestMatch;
+    private Indexes buildIndexes() {
+        List<Opening> openings = openingsRepository.findAll();
+        return new Indexes(new OpeningTrie(openings), new OpeningPositionIndex(openings));
     }
 
+    private List<String> sanMoves(List<Move> moves) {
+        List<String> sanMoves = new ArrayList<>(moves.size());
+        for (Move move : moves) {
+            sanMoves.add(move.getSanMove());
+        }
+        return sanMoves;
+    }
+
+    /**
+     * Both indexes, swapped together so a classification never mixes two versions of the openings
+     */
+    private record Indexes(OpeningTrie trie, OpeningPositionIndex positions) {}
+
     /**
-     * Add a new opening to the database
+     * Add a new opening to the database, unless an opening already names the same position
      */
     public Opening addOpening(String name, String ecoCode, String fenStart, String moves) {
-        // Check if opening already exists
-        Opening existing = openingsRepository.findByEcoCode(ecoCode)
-                .orElse(null);
+        Opening opening = new Opening(name, ecoCode, fenStart, moves);
+        Long positionKey = OpeningPositionIndex.positionKey(opening);
+        opening.setPosition_key(positionKey);
+
+        // Check if the position already has an opening (ECO codes are shared by many lines)
+        Opening existing = positionKey != null
+                ? openingsRepository.findByPositionKey(positionKey).orElse(null)
+                : null;
         
         if (existing != null) {
-            logger.warn("Opening with ECO code {} already exists", ecoCode);
+            logger.warn("Position of {} ({}) is already named {} ({})", name, ecoCode, existing.getName(), existing.getEco_code());
             return existing;
         }
 
-        Opening opening = new Opening(name, ecoCode, fenStart, moves);
         Opening saved = openingsRepository.save(opening);
+        refresh();
         
         logger.info("Added new opening: {} ({})", name, ecoCode);
         return saved;
@@ -123,36 +162,22 @@ public class OpeningClassificationService {
     }
 
     /**
-     * Initialize common openings (should be run once)
-     * This loads popular ECO codes and opening moves
+     * Seed the openings table when it is empty: with the catalogue in openings.import.file if one is
+     * configured, otherwise with a few popular openings.
+     * Called on every engine initialisation, so an already seeded table costs a single count query;
+     * a catalogue is imported into a seeded table through POST /openings/import.
      */
     public void initializeCommonOpenings() {
-        // Italian Game
-        addOpening("Italian Game", "C50", 
-                  "rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1",
-                  "e4 e5 Nf3 Nc6 Bc4");
-
-        // Sicilian Defense
-        addOpening("Sicilian Defense", "B20",
-                  "rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1",
-                  "e4 c5");
-
-        // French Defense
-        addOpening("French Defense", "C00",
-                  "rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1",
-                  "e4 e6");
-
-        // Caro-Kann Defense
-        addOpening("Caro-Kann Defense", "B10",
-                  "rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1",
-                  "e4 c6");
-
-        // Ruy Lopez
-        addOpening("Ruy Lopez", "C60",
-                  "rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1",
-                  "e4 e5 Nf3 Nc6 Bb5");
-
-        logger.info("Common openings initialized");
+        if (openingsRepository.count() > 0) {
+            return;
+        }
+
+        OpeningImportResponseDTO result = openingImportService.isCatalogueConfigured()
+                ? openingImportService.importConfiguredCatalogue()
+                : openingImportService.importLines("common openings", COMMON_OPENINGS.iterator());
+        refresh();
+
+        logger.info("Openings initialized with {} openings from {}", result.imported(), result.source());
     }
 }
 
@@ -31,8 +31,13 @@ public class OpeningController {
     }
 
     @GetMapping("/eco/{eco_code}")
-    public OpeningResponseDTO getOpeningByEcoCode(@PathVariable("eco_code") String ecoCode) {
-        return openingService.getOpeningByEcoCode(ecoCode);
+    public List<OpeningResponseDTO> getOpeningsByEcoCode(@PathVariable("eco_code") String ecoCode) {
+        return openingService.getOpeningsByEcoCode(ecoCode);
+    }
+
+    @PostMapping("/import")
+    public OpeningImportResponseDTO importCatalogue() {
+        return openingService.importCatalogue();
     }
 
     @PostMapping
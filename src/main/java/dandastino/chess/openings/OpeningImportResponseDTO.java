@@ -0,0 +1,17 @@
+package dandastino.chess.openings;
+
+/**
+ * Outcome of an opening catalogue import
+ * @param linesRead openings read from the source
+ * @param imported openings inserted
+ * @param duplicates openings skipped because their position is already named
+ * @param invalid openings skipped because their moves could not be played or they had no name
+ */
+public record OpeningImportResponseDTO(
+        String source,
+        int linesRead,
+        int imported,
+        int duplicates,
+        int invalid,
+        long durationMs
+) {}
@@ -0,0 +1,213 @@
+package dandastino.chess.openings;
+
+import dandastino.chess.exceptions.BadRequestException;
+import dandastino.chess.gameLogic.ZobristHash;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Bulk import of opening catalogues (e.g. the full ECO classification, a few thousand lines).
+ * The file is streamed a line at a time; each line is replayed to find the position it names, and lines
+ * naming a position that already has an opening are skipped, whatever their ECO code: many lines share
+ * a code, and different move orders often lead to the same position.
+ * New openings are written with batched inserts; the unique position key keeps concurrent imports on
+ * several nodes from inserting the same position twice.
+ * The caller refreshes the classification index afterwards.
+ */
+@Service
+public class OpeningImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OpeningImportService.class);
+
+    private static final String MOVES_TYPE_SQL =
+            "SELECT data_type FROM information_schema.columns WHERE table_name = 'openings' AND column_name = 'moves'";
+
+    // Tables created before the column was declared as TEXT
+    private static final String WIDEN_MOVES_SQL = "ALTER TABLE openings ALTER COLUMN moves TYPE TEXT";
+
+    private static final String EXISTING_SQL =
+            "SELECT opening_id, fen_start, moves, position_key FROM openings";
+
+    private static final String SET_POSITION_SQL =
+            "UPDATE openings SET position_key = ?, fen_start = ? WHERE opening_id = ?";
+
+    private static final String INSERT_SQL =
+            "INSERT INTO openings (opening_id, name, eco_code, fen_start, moves, position_key) " +
+            "VALUES (?, ?, ?, ?, ?, ?) ON CONFLICT (position_key) DO NOTHING";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Catalogue on the server's file system, TSV or PGN (by extension)
+    @Value("${openings.import.file:}")
+    private String catalogueFile;
+
+    @Value("${openings.import.batch-size:500}")
+    private int batchSize;
+
+    @PostConstruct
+    public void widenMovesColumn() {
+        try {
+            List<String> types = jdbcTemplate.queryForList(MOVES_TYPE_SQL, String.class);
+            if (!types.isEmpty() && !"text".equalsIgnoreCase(types.get(0))) {
+                jdbcTemplate.execute(WIDEN_MOVES_SQL);
+                logger.info("Widened openings.moves to TEXT for catalogue lines");
+            }
+        } catch (Exception e) {
+            logger.warn("Could not widen the moves column of the openings: {}", e.getMessage());
+        }
+    }
+
+    public boolean isCatalogueConfigured() {
+        return catalogueFile != null && !catalogueFile.isBlank();
+    }
+
+    /**
+     * Import the catalogue configured in openings.import.file
+     */
+    public OpeningImportResponseDTO importConfiguredCatalogue() {
+        if (!isCatalogueConfigured()) {
+            throw new BadRequestException("No opening catalogue configured (openings.import.file)");
+        }
+        return importCatalogue(Path.of(catalogueFile.trim()));
+    }
+
+    /**
+     * Stream a TSV or PGN catalogue from a local file into the openings table
+     */
+    public OpeningImportResponseDTO importCatalogue(Path path) {
+        if (!Files.isRegularFile(path) || !Files.isReadable(path)) {
+            throw new BadRequestException("Opening catalogue not found or not readable: " + path);
+        }
+        boolean pgn = path.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".pgn");
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            return importLines(path.toString(), new OpeningCatalogueReader(reader, pgn));
+        } catch (IOException | UncheckedIOException e) {
+            throw new BadRequestException("Could not read opening catalogue " + path + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Import openings read from any source, skipping those whose position is already named
+     * @param source description of the source, for the result and the logs
+     */
+    synchronized OpeningImportResponseDTO importLines(String source, Iterator<OpeningCatalogueReader.Line> lines) {
+        long started = System.nanoTime();
+        Set<Long> knownPositions = loadPositionKeys();
+
+        List<Opening> batch = new ArrayList<>(batchSize);
+        int read = 0;
+        int queued = 0;
+        int imported = 0;
+        int duplicates = 0;
+        int invalid = 0;
+        while (lines.hasNext()) {
+            OpeningCatalogueReader.Line line = lines.next();
+            read++;
+            String fen = OpeningPositionIndex.replay(line.moves());
+            if (fen == null || line.name() == null || line.name().isBlank()) {
+                logger.debug("Skipping opening line {} of {}: {} '{}'", read, source, line.name(), line.moves());
+                invalid++;
+                continue;
+            }
+            long positionKey = ZobristHash.hash(fen);
+            if (!knownPositions.add(positionKey)) {
+                duplicates++;
+                continue;
+            }
+            Opening opening = new Opening(line.name(), line.ecoCode(), fen, line.moves());
+            opening.setPosition_key(positionKey);
+            batch.add(opening);
+            queued++;
+            if (batch.size() >= batchSize) {
+                imported += insert(batch);
+                batch.clear();
+            }
+        }
+        imported += insert(batch);
+        // Rows another node inserted in the meantime were skipped by the database
+        duplicates += queued - imported;
+
+        OpeningImportResponseDTO result = new OpeningImportResponseDTO(source, read, imported, duplicates, invalid,
+                (System.nanoTime() - started) / 1_000_000);
+        logger.info("Imported {} openings from {} ({} read, {} duplicate positions, {} invalid) in {} ms",
+                result.imported(), source, result.linesRead(), result.duplicates(), result.invalid(), result.durationMs());
+        return result;
+    }
+
+    /**
+     * Positions already named in the table. Openings saved before positions were stored get theirs
+     * now, in one batch; of several existing openings naming one position only the first is keyed.
+     */
+    private Set<Long> loadPositionKeys() {
+        Set<Long> known = new HashSet<>();
+        List<Object[]> missing = new ArrayList<>();
+        jdbcTemplate.query(EXISTING_SQL, (RowCallbackHandler) rs -> {
+            long positionKey = rs.getLong("position_key");
+            if (!rs.wasNull()) {
+                known.add(positionKey);
+                return;
+            }
+            Opening opening = new Opening(null, null, rs.getString("fen_start"), rs.getString("moves"));
+            String fen = OpeningPositionIndex.positionOf(opening);
+            if (fen != null) {
+                missing.add(new Object[]{ZobristHash.hash(fen), fen, rs.getObject("opening_id", UUID.class)});
+            }
+        });
+        List<Object[]> updates = new ArrayList<>(missing.size());
+        for (Object[] row : missing) {
+            if (known.add((Long) row[0])) {
+                updates.add(row);
+            }
+        }
+        if (!updates.isEmpty()) {
+            jdbcTemplate.batchUpdate(SET_POSITION_SQL, updates);
+            logger.info("Stored the position of {} existing openings", updates.size());
+        }
+        return known;
+    }
+
+    private int insert(List<Opening> batch) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        int[][] counts = jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), (ps, opening) -> {
+            ps.setObject(1, UUID.randomUUID());
+            ps.setString(2, opening.getName());
+            ps.setString(3, opening.getEco_code());
+            ps.setString(4, opening.getFen_start());
+            ps.setString(5, opening.getMoves());
+            ps.setLong(6, opening.getPosition_key());
+        });
+        int inserted = 0;
+        for (int[] chunk : counts) {
+            for (int count : chunk) {
+                if (count > 0 || count == Statement.SUCCESS_NO_INFO) {
+                    inserted++;
+                }
+            }
+        }
+        return inserted;
+    }
+}
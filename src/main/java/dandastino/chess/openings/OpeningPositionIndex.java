@@ -0,0 +1,110 @@
+package dandastino.chess.openings;
+
+import dandastino.chess.gameLogic.ChessEngine;
+import dandastino.chess.gameLogic.ZobristHash;
+import dandastino.chess.moves.Move;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Known openings keyed by the position they name rather than by the moves leading to it, so a game
+ * that reaches a named position in another move order (a transposition) is still classified.
+ * The position of an opening is stored with it when it is saved or imported; otherwise it is found by
+ * replaying its moves from the starting position, with the stored fen_start as a fallback.
+ * Positions are keyed by their Zobrist hash, which leaves out an en passant square no pawn can use.
+ * Immutable once built, like {@link OpeningTrie}.
+ */
+final class OpeningPositionIndex {
+
+    static final String STARTING_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    private final Map<Long, Opening> openings;
+
+    OpeningPositionIndex(Collection<Opening> openings) {
+        this.openings = new HashMap<>(Math.max(16, openings.size() * 2));
+        for (Opening opening : openings) {
+            Long key = positionKey(opening);
+            if (key == null) continue;
+            // First opening wins when several name the same position
+            this.openings.putIfAbsent(key, opening);
+        }
+    }
+
+    /**
+     * Follow the positions of a game and keep the last named one: one lookup per ply
+     * @param moves the game's moves in ply order, with the position after each of them
+     */
+    Match lastNamedPosition(List<Move> moves) {
+        Opening last = null;
+        int lastPly = 0;
+        int ply = 0;
+        for (Move move : moves) {
+            ply++;
+            if (move.getFenAfterMove() == null) break;
+            Opening opening = openings.get(ZobristHash.hash(move.getFenAfterMove()));
+            if (opening != null) {
+                last = opening;
+                lastPly = ply;
+            }
+        }
+        return new Match(last, lastPly);
+    }
+
+    /**
+     * Number of named positions in the index
+     */
+    int size() {
+        return openings.size();
+    }
+
+    /**
+     * Key of the position an opening names: the stored key if it has one, computed from its line otherwise
+     * @return the key, null if the opening has neither a playable line nor a fen_start
+     */
+    static Long positionKey(Opening opening) {
+        if (opening.getPosition_key() != null) {
+            return opening.getPosition_key();
+        }
+        String fen = positionOf(opening);
+        return fen != null ? ZobristHash.hash(fen) : null;
+    }
+
+    /**
+     * The position an opening names: the end of its line, or its fen_start if the line cannot be played
+     */
+    static String positionOf(Opening opening) {
+        String fen = replay(opening.getMoves());
+        if (fen == null && opening.getFen_start() != null && !opening.getFen_start().isBlank()) {
+            fen = opening.getFen_start().trim();
+        }
+        return fen;
+    }
+
+    /**
+     * Play a line of SAN moves from the starting position
+     * @param moves the moves separated by spaces, move numbers allowed
+     * @return the FEN after the last move, null if the line is empty or a move is not legal
+     */
+    static String replay(String moves) {
+        if (moves == null || moves.isBlank()) return null;
+        ChessEngine engine = new ChessEngine(STARTING_FEN);
+        boolean played = false;
+        for (String token : moves.trim().split("\\s+")) {
+            String san = OpeningTrie.normalize(token);
+            if (san.isEmpty()) continue; // move number
+            if (!engine.makeSanMove(san)) return null;
+            played = true;
+        }
+        return played ? engine.generateNewFen() : null;
+    }
+
+    /**
+     * Result of a classification
+     * @param opening the last named position the game reached, null if none
+     * @param openingPlies plies up to and including the move that reached it
+     */
+    record Match(Opening opening, int openingPlies) {}
+}
@@ -14,6 +14,12 @@ public class OpeningService {
     @Autowired
     private OpeningsRepository openingsRepository;
 
+    @Autowired
+    private OpeningClassificationService openingClassificationService;
+
+    @Autowired
+    private OpeningImportService openingImportService;
+
     public List<OpeningResponseDTO> getAllOpenings() {
         return openingsRepository.findAll().stream()
                 .map(this::convertToDTO)
@@ -27,17 +33,16 @@ public class OpeningService {
     }
 
     public OpeningResponseDTO createOpening(OpeningDTO openingDTO) {
-        if (openingsRepository.existsByEcoCode(openingDTO.ecoCode())) {
-            throw new AlreadyExists("Opening with ECO code " + openingDTO.ecoCode() + " already exists");
-        }
-
         Opening opening = new Opening();
         opening.setName(openingDTO.name());
         opening.setEco_code(openingDTO.ecoCode());
         opening.setFen_start(openingDTO.fenStart());
         opening.setMoves(openingDTO.moves());
+        // Openings are unique by position: several lines commonly share an ECO code
+        setPositionKey(opening);
 
         Opening saved = openingsRepository.save(opening);
+        openingClassificationService.refresh();
         return convertToDTO(saved);
     }
 
@@ -57,8 +62,12 @@ public class OpeningService {
         if (openingDTO.moves() != null) {
             opening.setMoves(openingDTO.moves());
         }
+        if (openingDTO.fenStart() != null || openingDTO.moves() != null) {
+            setPositionKey(opening);
+        }
 
         Opening saved = openingsRepository.save(opening);
+        openingClassificationService.refresh();
         return convertToDTO(saved);
     }
 
@@ -66,12 +75,37 @@ public class OpeningService {
         Opening opening = openingsRepository.findById(openingId)
                 .orElseThrow(() -> new NotFoundException(openingId));
         openingsRepository.delete(opening);
+        openingClassificationService.refresh();
     }
 
-    public OpeningResponseDTO getOpeningByEcoCode(String ecoCode) {
-        Opening opening = openingsRepository.findByEcoCode(ecoCode)
-                .orElseThrow(() -> new NotFoundException("Opening with ECO code " + ecoCode + " not found"));
-        return convertToDTO(opening);
+    public List<OpeningResponseDTO> getOpeningsByEcoCode(String ecoCode) {
+        List<Opening> openings = openingsRepository.findByEcoCode(ecoCode);
+        if (openings.isEmpty()) {
+            throw new NotFoundException("Opening with ECO code " + ecoCode + " not found");
+        }
+        return openings.stream()
+                .map(this::convertToDTO)
+                .toList();
+    }
+
+    public OpeningImportResponseDTO importCatalogue() {
+        OpeningImportResponseDTO result = openingImportService.importConfiguredCatalogue();
+        openingClassificationService.refresh();
+        return result;
+    }
+
+    private void setPositionKey(Opening opening) {
+        opening.setPosition_key(null);
+        Long positionKey = OpeningPositionIndex.positionKey(opening);
+        if (positionKey != null) {
+            openingsRepository.findByPositionKey(positionKey)
+                    .filter(existing -> !existing.getOpening_id().equals(opening.getOpening_id()))
+                    .ifPresent(existing -> {
+                        throw new AlreadyExists("Opening " + existing.getName() + " (" + existing.getEco_code()
+                                + ") already names this position");
+                    });
+        }
+        opening.setPosition_key(positionKey);
     }
 
     private OpeningResponseDTO convertToDTO(Opening opening) {
@@ -0,0 +1,101 @@
+package dandastino.chess.openings;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Known opening lines as a trie of SAN moves: each node stands for a sequence of moves from the
+ * starting position and holds the opening named after that sequence, if any.
+ * A game is classified by walking its moves from the root once, so the cost grows with the length
+ * of the line and not with the number of known openings.
+ * Immutable once built: OpeningClassificationService builds a new one when openings change and swaps it in.
+ */
+final class OpeningTrie {
+
+    private final Node root = new Node();
+    private final int lines;
+
+    OpeningTrie(Collection<Opening> openings) {
+        int count = 0;
+        for (Opening opening : openings) {
+            if (opening.getMoves() == null || opening.getMoves().isBlank()) continue;
+
+            Node node = root;
+            for (String token : opening.getMoves().trim().split("\\s+")) {
+                String san = normalize(token);
+                if (san.isEmpty()) continue; // move number ("1.", "1...")
+                node = node.children.computeIfAbsent(san, key -> new Node());
+            }
+            if (node != root && node.opening == null) {
+                // First opening wins when several share the same line
+                node.opening = opening;
+                count++;
+            }
+        }
+        this.lines = count;
+    }
+
+    /**
+     * Follow the moves of a game from the starting position as far as the known lines go
+     * @param sanMoves the game's moves in ply order, in SAN
+     */
+    Match walk(List<String> sanMoves) {
+        Node node = root;
+        Opening deepest = null;
+        int deepestPly = 0;
+        int ply = 0;
+        for (String san : sanMoves) {
+            Node next = node.children.get(normalize(san));
+            if (next == null) break;
+            node = next;
+            ply++;
+            if (node.opening != null) {
+                deepest = node.opening;
+                deepestPly = ply;
+            }
+        }
+        return new Match(deepest, deepestPly, ply);
+    }
+
+    /**
+     * Number of named lines in the trie
+     */
+    int size() {
+        return lines;
+    }
+
+    /**
+     * SAN as written in opening lines: no move number, check/mate marker or annotation
+     */
+    static String normalize(String san) {
+        if (san == null) return "";
+        int start = 0;
+        while (start < san.length() && (Character.isDigit(san.charAt(start)) || san.charAt(start) == '.')) {
+            start++;
+        }
+        // Castling written with zeros is not a move number
+        if (start > 0 && san.startsWith("0-0")) {
+            start = 0;
+        }
+        int end = san.length();
+        while (end > start && "+#!?".indexOf(san.charAt(end - 1)) >= 0) {
+            end--;
+        }
+        return san.substring(start, end);
+    }
+
+    /**
+     * Result of a walk
+     * @param opening the deepest named opening on the game's path, null if none
+     * @param openingPlies plies up to and including that opening's last move
+     * @param bookPlies leading plies of the game that follow any known line
+     */
+    record Match(Opening opening, int openingPlies, int bookPlies) {}
+
+    private static final class Node {
+        private final Map<String, Node> children = new HashMap<>(4);
+        private Opening opening;
+    }
+}
@@ -5,6 +5,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -14,6 +15,10 @@ public interface OpeningsRepository extends JpaRepository<Opening, UUID> {
     @Query("SELECT COUNT(o) > 0 FROM Opening o WHERE o.eco_code = :ecoCode")
     boolean existsByEcoCode(@Param("ecoCode") String ecoCode);
 
-    @Query("SELECT o FROM Opening o WHERE o.eco_code = :ecoCode")
-    Optional<Opening> findByEcoCode(@Param("ecoCode") String ecoCode);
+    // An ECO code usually covers several lines: the shortest (the main line) comes first
+    @Query("SELECT o FROM Opening o WHERE o.eco_code = :ecoCode ORDER BY LENGTH(o.moves), o.name")
+    List<Opening> findByEcoCode(@Param("ecoCode") String ecoCode);
+
+    @Query("SELECT o FROM Opening o WHERE o.position_key = :positionKey")
+    Optional<Opening> findByPositionKey(@Param("positionKey") Long positionKey);
 }
@@ -0,0 +1,117 @@
+package dandastino.chess.playerStatistics;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Running performance figures of one player, kept up to date as games finish and analyses complete
+ * so readers never go back to the raw moves.
+ * Means and variances are stored as Welford accumulators (count, mean, sum of squared deviations);
+ * PlayerStatisticsService merges each game into them with an UPSERT, which also creates the row.
+ */
+@Entity
+@Table(name="player_statistics")
+public class PlayerStatistics {
+
+    @Id
+    @Column(name = "user_id")
+    private UUID user_id;
+    @Column(name = "games_played")
+    private int games_played;
+    @Column(name = "wins")
+    private int wins;
+    @Column(name = "draws")
+    private int draws;
+    @Column(name = "losses")
+    private int losses;
+    @Column(name = "move_time_count")
+    private long move_time_count;
+    @Column(name = "move_time_mean")
+    private double move_time_mean; // ms
+    @Column(name = "move_time_m2")
+    private double move_time_m2;
+    @Column(name = "move_time_histogram")
+    private int[] move_time_histogram; // buckets of PlayerStatisticsService.MOVE_TIME_BUCKETS_MS
+    @Column(name = "analysed_games")
+    private int analysed_games; // sample count of the acpl and accuracy accumulators
+    @Column(name = "acpl_mean")
+    private double acpl_mean; // per-game average centipawn loss
+    @Column(name = "acpl_m2")
+    private double acpl_m2;
+    @Column(name = "accuracy_mean")
+    private double accuracy_mean; // per-game share of moves losing at most 50cp
+    @Column(name = "accuracy_m2")
+    private double accuracy_m2;
+    @Column(name = "cpl_histogram")
+    private int[] cpl_histogram; // buckets of PlayerStatisticsService.CPL_BUCKETS, one entry per move
+    @Column(name = "updated_at")
+    private LocalDateTime updated_at;
+
+    public PlayerStatistics(){}
+
+    public UUID getUser_id() {
+        return user_id;
+    }
+
+    public int getGames_played() {
+        return games_played;
+    }
+
+    public int getWins() {
+        return wins;
+    }
+
+    public int getDraws() {
+        return draws;
+    }
+
+    public int getLosses() {
+        return losses;
+    }
+
+    public long getMove_time_count() {
+        return move_time_count;
+    }
+
+    public double getMove_time_mean() {
+        return move_time_mean;
+    }
+
+    public double getMove_time_m2() {
+        return move_time_m2;
+    }
+
+    public int[] getMove_time_histogram() {
+        return move_time_histogram;
+    }
+
+    public int getAnalysed_games() {
+        return analysed_games;
+    }
+
+    public double getAcpl_mean() {
+        return acpl_mean;
+    }
+
+    public double getAcpl_m2() {
+        return acpl_m2;
+    }
+
+    public double getAccuracy_mean() {
+        return accuracy_mean;
+    }
+
+    public double getAccuracy_m2() {
+        return accuracy_m2;
+    }
+
+    public int[] getCpl_histogram() {
+        return cpl_histogram;
+    }
+
+    public LocalDateTime getUpdated_at() {
+        return updated_at;
+    }
+}
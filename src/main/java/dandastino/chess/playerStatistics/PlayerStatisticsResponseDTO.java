@@ -0,0 +1,25 @@
+package dandastino.chess.playerStatistics;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+
+public record PlayerStatisticsResponseDTO(
+        UUID userId,
+        int gamesPlayed,
+        int wins,
+        int draws,
+        int losses,
+        double winRate,
+        int analysedGames,
+        double averageCentipawnLoss,
+        double centipawnLossStdDev,
+        double accuracy,
+        double accuracyStdDev,
+        long timedMoves,
+        double averageMoveTimeMs,
+        double moveTimeStdDevMs,
+        Map<String, Integer> moveTimeHistogram,
+        Map<String, Integer> centipawnLossHistogram,
+        LocalDateTime updatedAt
+) {}
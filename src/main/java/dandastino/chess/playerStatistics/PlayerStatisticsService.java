@@ -0,0 +1,311 @@
+package dandastino.chess.playerStatistics;
+
+import dandastino.chess.gameAnalysisReports.GameAnalysisReportsRepository;
+import dandastino.chess.games.Game;
+import dandastino.chess.games.Result;
+import dandastino.chess.moveAnalyses.MoveAnalysis;
+import dandastino.chess.moves.Move;
+import dandastino.chess.moves.MovesRepository;
+import dandastino.chess.users.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Maintains the per-player rolling statistics read by user stats, cheating detection and insights.
+ * Each finished game and each completed analysis is reduced to one contribution per player
+ * (counts, Welford accumulators and histogram buckets) and merged into the player's row with a single
+ * UPSERT, using the parallel form of Welford's update. The merge happens in the database, so
+ * concurrent games of the same player, on any node, never overwrite each other.
+ * Reading a player's statistics is a primary key lookup.
+ */
+@Service
+public class PlayerStatisticsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PlayerStatisticsService.class);
+
+    // Upper bounds of the move time buckets; the last bucket is open-ended
+    static final int[] MOVE_TIME_BUCKETS_MS = {1000, 2000, 3000, 5000, 10000, 20000, 30000, 60000, 120000};
+    private static final String[] MOVE_TIME_LABELS =
+            {"0-1s", "1-2s", "2-3s", "3-5s", "5-10s", "10-20s", "20-30s", "30-60s", "60-120s", "120s+"};
+    // Upper bounds of the centipawn loss buckets, aligned with the review thresholds
+    static final int[] CPL_BUCKETS = {10, 25, 50, 100, 150, 300};
+    private static final String[] CPL_LABELS = {"0-10", "10-25", "25-50", "50-100", "100-150", "150-300", "300+"};
+    // A move loses at most this much to count as accurate (anything better than an inaccuracy)
+    private static final int ACCURATE_MOVE_MAX_CPL = 50;
+    // Losses beyond this are mates or lost pieces anyway; capping keeps one blunder from swamping the average
+    private static final int MAX_COUNTED_CPL = 1000;
+
+    private static final String UPSERT_SQL =
+            "INSERT INTO player_statistics AS s " +
+            "(user_id, games_played, wins, draws, losses, move_time_count, move_time_mean, move_time_m2, " +
+            "move_time_histogram, analysed_games, acpl_mean, acpl_m2, accuracy_mean, accuracy_m2, cpl_histogram, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, LOCALTIMESTAMP) " +
+            "ON CONFLICT (user_id) DO UPDATE SET " +
+            "games_played = s.games_played + EXCLUDED.games_played, " +
+            "wins = s.wins + EXCLUDED.wins, " +
+            "draws = s.draws + EXCLUDED.draws, " +
+            "losses = s.losses + EXCLUDED.losses, " +
+            mergeWelford("move_time_count", "move_time_mean", "move_time_m2") + ", " +
+            "move_time_count = s.move_time_count + EXCLUDED.move_time_count, " +
+            addBuckets("move_time_histogram") + ", " +
+            mergeWelford("analysed_games", "acpl_mean", "acpl_m2") + ", " +
+            mergeWelford("analysed_games", "accuracy_mean", "accuracy_m2") + ", " +
+            "analysed_games = s.analysed_games + EXCLUDED.analysed_games, " +
+            addBuckets("cpl_histogram") + ", " +
+            "updated_at = LOCALTIMESTAMP";
+
+    @Autowired
+    private PlayerStatisticsRepository playerStatisticsRepository;
+
+    @Autowired
+    private MovesRepository movesRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private GameAnalysisReportsRepository gameAnalysisReportsRepository;
+
+    /**
+     * Add a finished game to the results and move times of both players.
+     * Call once per game, when it finishes.
+     */
+    public void recordGameResult(Game game) {
+        List<User> players = playersOf(game);
+        if (players.isEmpty()) {
+            return;
+        }
+        try {
+            List<Move> moves = movesRepository.findByGameId(game.getGame_id());
+            for (User player : players) {
+                Contribution contribution = new Contribution();
+                contribution.games = 1;
+                if (game.getWinner() == null || game.getResult() == Result.draw) {
+                    contribution.draws = 1;
+                } else if (game.getWinner().getUser_id().equals(player.getUser_id())) {
+                    contribution.wins = 1;
+                } else {
+                    contribution.losses = 1;
+                }
+                for (Move move : movesOf(moves, player)) {
+                    if (move.getTimeSpentMs() > 0) {
+                        contribution.moveTimes.add(move.getTimeSpentMs());
+                        contribution.moveTimeHistogram[bucket(MOVE_TIME_BUCKETS_MS, move.getTimeSpentMs())]++;
+                    }
+                }
+                merge(player.getUser_id(), contribution);
+            }
+        } catch (DataAccessException e) {
+            logger.warn("Could not record game {} in the player statistics: {}", game.getGame_id(), e.getMessage());
+        }
+    }
+
+    /**
+     * Add the centipawn loss and accuracy of an analysed game to both players, unless the game already was.
+     * Only moves with a searched centipawn loss count; book and forced moves say nothing about strength.
+     * The "recorded" flag on the game's analysis report and the merges share one transaction, so a failed
+     * merge leaves the game unrecorded for the next analysis instead of out of the statistics for good.
+     * Call when the game's analysis completes, after its report is saved.
+     * @param moves the moves of the game, with their analyses
+     * @return true if this call recorded the game
+     * @throws DataAccessException if a merge fails; nothing is recorded then
+     */
+    @Transactional
+    public boolean recordAnalysis(Game game, List<Move> moves) {
+        if (gameAnalysisReportsRepository.markStatisticsRecorded(game.getGame_id()) == 0) {
+            return false;
+        }
+        for (User player : playersOf(game)) {
+            Contribution contribution = new Contribution();
+            RunningStatistic centipawnLoss = new RunningStatistic();
+            int accurateMoves = 0;
+            for (Move move : movesOf(moves, player)) {
+                MoveAnalysis analysis = move.getMoveAnalysis();
+                if (analysis == null || analysis.getCentipawn_loss() == null) {
+                    continue;
+                }
+                int loss = Math.max(0, analysis.getCentipawn_loss());
+                centipawnLoss.add(Math.min(loss, MAX_COUNTED_CPL));
+                contribution.cplHistogram[bucket(CPL_BUCKETS, loss)]++;
+                if (loss <= ACCURATE_MOVE_MAX_CPL) {
+                    accurateMoves++;
+                }
+            }
+            if (centipawnLoss.count == 0) {
+                continue;
+            }
+            // One sample per game: the accumulators track how a player's games vary, not their moves
+            contribution.analysedGames = 1;
+            contribution.acpl = centipawnLoss.mean;
+            contribution.accuracy = accurateMoves / (double) centipawnLoss.count;
+            merge(player.getUser_id(), contribution);
+        }
+        return true;
+    }
+
+    /**
+     * Statistics of a player; all zero if none of their games was recorded yet
+     */
+    public PlayerStatisticsResponseDTO getStatistics(UUID userId) {
+        PlayerStatistics statistics = playerStatisticsRepository.findById(userId).orElse(null);
+        if (statistics == null) {
+            return new PlayerStatisticsResponseDTO(userId, 0, 0, 0, 0, 0.0, 0, 0.0, 0.0, 0.0, 0.0, 0, 0.0, 0.0,
+                    histogram(MOVE_TIME_LABELS, null), histogram(CPL_LABELS, null), null);
+        }
+        int games = statistics.getGames_played();
+        int analysed = statistics.getAnalysed_games();
+        return new PlayerStatisticsResponseDTO(
+                userId,
+                games,
+                statistics.getWins(),
+                statistics.getDraws(),
+                statistics.getLosses(),
+                games > 0 ? statistics.getWins() / (double) games : 0.0,
+                analysed,
+                statistics.getAcpl_mean(),
+                standardDeviation(analysed, statistics.getAcpl_m2()),
+                statistics.getAccuracy_mean(),
+                standardDeviation(analysed, statistics.getAccuracy_m2()),
+                statistics.getMove_time_count(),
+                statistics.getMove_time_mean(),
+                standardDeviation(statistics.getMove_time_count(), statistics.getMove_time_m2()),
+                histogram(MOVE_TIME_LABELS, statistics.getMove_time_histogram()),
+                histogram(CPL_LABELS, statistics.getCpl_histogram()),
+                statistics.getUpdated_at()
+        );
+    }
+
+    private void merge(UUID userId, Contribution contribution) {
+        jdbcTemplate.update(UPSERT_SQL, ps -> {
+            Connection connection = ps.getConnection();
+            ps.setObject(1, userId);
+            ps.setInt(2, contribution.games);
+            ps.setInt(3, contribution.wins);
+            ps.setInt(4, contribution.draws);
+            ps.setInt(5, contribution.losses);
+            ps.setLong(6, contribution.moveTimes.count);
+            ps.setDouble(7, contribution.moveTimes.mean);
+            ps.setDouble(8, contribution.moveTimes.m2);
+            ps.setArray(9, toSqlArray(connection, contribution.moveTimeHistogram));
+            ps.setInt(10, contribution.analysedGames);
+            ps.setDouble(11, contribution.acpl);
+            ps.setDouble(12, 0.0);
+            ps.setDouble(13, contribution.accuracy);
+            ps.setDouble(14, 0.0);
+            ps.setArray(15, toSqlArray(connection, contribution.cplHistogram));
+        });
+    }
+
+    private static java.sql.Array toSqlArray(Connection connection, int[] buckets) throws SQLException {
+        Integer[] boxed = new Integer[buckets.length];
+        for (int i = 0; i < buckets.length; i++) {
+            boxed[i] = buckets[i];
+        }
+        return connection.createArrayOf("integer", boxed);
+    }
+
+    /**
+     * Parallel Welford merge of the stored accumulator with the incoming one (Chan et al.).
+     * Every right-hand side reads the row as it was before the update.
+     */
+    static String mergeWelford(String count, String mean, String m2) {
+        String total = "GREATEST(s." + count + " + EXCLUDED." + count + ", 1)";
+        String delta = "(EXCLUDED." + mean + " - s." + mean + ")";
+        return mean + " = s." + mean + " + " + delta + " * EXCLUDED." + count + " / " + total + ", " +
+                m2 + " = s." + m2 + " + EXCLUDED." + m2 + " + POWER(" + delta + ", 2) * s." + count +
+                " * EXCLUDED." + count + " / " + total;
+    }
+
+    /**
+     * Element-wise sum of the stored and incoming histograms
+     */
+    private static String addBuckets(String column) {
+        return column + " = ARRAY(SELECT COALESCE(a, 0) + COALESCE(b, 0) " +
+                "FROM unnest(s." + column + ", EXCLUDED." + column + ") WITH ORDINALITY AS t(a, b, i) ORDER BY i)";
+    }
+
+    static int bucket(int[] upperBounds, int value) {
+        for (int i = 0; i < upperBounds.length; i++) {
+            if (value < upperBounds[i]) {
+                return i;
+            }
+        }
+        return upperBounds.length;
+    }
+
+    private static Map<String, Integer> histogram(String[] labels, int[] buckets) {
+        Map<String, Integer> histogram = new LinkedHashMap<>();
+        for (int i = 0; i < labels.length; i++) {
+            histogram.put(labels[i], buckets != null && i < buckets.length ? buckets[i] : 0);
+        }
+        return histogram;
+    }
+
+    private static double standardDeviation(long count, double m2) {
+        return count > 1 ? Math.sqrt(m2 / (count - 1)) : 0.0;
+    }
+
+    private static List<User> playersOf(Game game) {
+        User white = game.getWhitePlayer();
+        User black = game.getBlackPlayer();
+        List<User> players = new ArrayList<>(2);
+        if (white != null) {
+            players.add(white);
+        }
+        if (black != null && (white == null || !black.getUser_id().equals(white.getUser_id()))) {
+            players.add(black);
+        }
+        return players;
+    }
+
+    private static List<Move> movesOf(List<Move> moves, User player) {
+        return moves.stream()
+                .filter(move -> move.getUserMove() != null && move.getUserMove().getUser_id().equals(player.getUser_id()))
+                .toList();
+    }
+
+    /**
+     * Welford accumulator for the samples of one game
+     */
+    private static class RunningStatistic {
+        private long count;
+        private double mean;
+        private double m2;
+
+        void add(double value) {
+            count++;
+            double delta = value - mean;
+            mean += delta / count;
+            m2 += delta * (value - mean);
+        }
+    }
+
+    /**
+     * What one game adds to one player's row
+     */
+    private static class Contribution {
+        private int games;
+        private int wins;
+        private int draws;
+        private int losses;
+        private final RunningStatistic moveTimes = new RunningStatistic();
+        private final int[] moveTimeHistogram = new int[MOVE_TIME_BUCKETS_MS.length + 1];
+        private int analysedGames;
+        private double acpl;
+        private double accuracy;
+        private final int[] cplHistogram = new int[CPL_BUCKETS.length + 1];
+    }
+}
@@ -0,0 +1,119 @@
+package dandastino.chess.positionEvaluations;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Engine evaluation of a position, shared by every application node.
+ * The primary key is the Zobrist key of the position, so the same position reached
+ * in different games (or at different move numbers) is stored once.
+ */
+@Entity
+@Table(name="position_evaluations")
+public class PositionEvaluation {
+
+    @Id
+    @Column(name = "position_hash")
+    private long position_hash;
+    @Column(name = "evaluation_cp")
+    private int evaluation_cp; // side to move's point of view
+    @Column(name = "mate_in")
+    private Integer mate_in;
+    @Column(name = "best_move")
+    private String best_move;
+    @Column(name = "depth")
+    private int depth;
+    @Column(name = "pv", length = 1024)
+    private String pv; // principal variation in UCI notation, space separated
+    @Column(name = "candidate_lines", length = 4096)
+    private String candidate_lines; // MultiPV lines, see PositionEvaluationService
+    @Column(name = "updated_at")
+    private LocalDateTime updated_at;
+
+    public PositionEvaluation(){}
+
+    public PositionEvaluation(long position_hash, int evaluation_cp, Integer mate_in, String best_move, int depth, String pv, String candidate_lines) {
+        this.position_hash = position_hash;
+        this.evaluation_cp = evaluation_cp;
+        this.mate_in = mate_in;
+        this.best_move = best_move;
+        this.depth = depth;
+        this.pv = pv;
+        this.candidate_lines = candidate_lines;
+        this.updated_at = LocalDateTime.now();
+    }
+
+    public long getPosition_hash() {
+        return position_hash;
+    }
+
+    public int getEvaluation_cp() {
+        return evaluation_cp;
+    }
+
+    public void setEvaluation_cp(int evaluation_cp) {
+        this.evaluation_cp = evaluation_cp;
+    }
+
+    public Integer getMate_in() {
+        return mate_in;
+    }
+
+    public void setMate_in(Integer mate_in) {
+        this.mate_in = mate_in;
+    }
+
+    public String getBest_move() {
+        return best_move;
+    }
+
+    public void setBest_move(String best_move) {
+        this.best_move = best_move;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public void setDepth(int depth) {
+        this.depth = depth;
+    }
+
+    public String getPv() {
+        return pv;
+    }
+
+    public void setPv(String pv) {
+        this.pv = pv;
+    }
+
+    public String getCandidate_lines() {
+        return candidate_lines;
+    }
+
+    public void setCandidate_lines(String candidate_lines) {
+        this.candidate_lines = candidate_lines;
+    }
+
+    public LocalDateTime getUpdated_at() {
+        return updated_at;
+    }
+
+    public void setUpdated_at(LocalDateTime updated_at) {
+        this.updated_at = updated_at;
+    }
+
+    @Override
+    public String toString() {
+        return "PositionEvaluation{" +
+                "position_hash=" + position_hash +
+                ", evaluation_cp=" + evaluation_cp +
+                ", mate_in=" + mate_in +
+                ", best_move='" + best_move + '\'' +
+                ", depth=" + depth +
+                ", pv='" + pv + '\'' +
+                ", updated_at=" + updated_at +
+                '}';
+    }
+}
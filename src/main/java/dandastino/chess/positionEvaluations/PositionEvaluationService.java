@@ -0,0 +1,238 @@
+package dandastino.chess.positionEvaluations;
+
+import dandastino.chess.engine.EngineAnalysis;
+import dandastino.chess.engine.EngineLine;
+import dandastino.chess.engine.EvaluationCache;
+import dandastino.chess.gameLogic.ZobristHash;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Two-tier store of engine evaluations: the in-memory LRU cache of this node in front of
+ * the position_evaluations table shared by all nodes.
+ * Reads try memory first and populate it on a database hit; writes go to memory immediately
+ * and are flushed to the database in batches by a scheduled task.
+ */
+@Service
+public class PositionEvaluationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PositionEvaluationService.class);
+
+    // Keep the deeper search when two nodes evaluate the same position
+    private static final String UPSERT_SQL =
+            "INSERT INTO position_evaluations " +
+            "(position_hash, evaluation_cp, mate_in, best_move, depth, pv, candidate_lines, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?) " +
+            "ON CONFLICT (position_hash) DO UPDATE SET " +
+            "evaluation_cp = EXCLUDED.evaluation_cp, mate_in = EXCLUDED.mate_in, best_move = EXCLUDED.best_move, " +
+            "depth = EXCLUDED.depth, pv = EXCLUDED.pv, candidate_lines = EXCLUDED.candidate_lines, " +
+            "updated_at = EXCLUDED.updated_at " +
+            "WHERE position_evaluations.depth <= EXCLUDED.depth";
+
+    @Autowired
+    private EvaluationCache evaluationCache;
+
+    @Autowired
+    private PositionEvaluationsRepository positionEvaluationsRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${stockfish.store.batch-size:500}")
+    private int batchSize;
+
+    // Evaluations searched on this node and not yet written, one per position
+    private final Map<Long, PositionEvaluation> pendingWrites = new ConcurrentHashMap<>();
+    private final AtomicLong storeHits = new AtomicLong();
+    private final AtomicLong storeMisses = new AtomicLong();
+
+    /**
+     * Evaluation of the position searched to at least minDepth on any node, or null
+     */
+    public EngineAnalysis get(String fen, int minDepth) {
+        EngineAnalysis cached = evaluationCache.get(fen, minDepth);
+        if (cached != null) {
+            return cached;
+        }
+        Map<String, EngineAnalysis> stored = findStored(List.of(fen), minDepth);
+        return stored.get(fen);
+    }
+
+    /**
+     * Evaluations of several positions with a single database round trip for the memory misses.
+     * Positions without an evaluation at minDepth are absent from the result.
+     */
+    public Map<String, EngineAnalysis> getAll(Collection<String> fens, int minDepth) {
+        Map<String, EngineAnalysis> evaluations = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String fen : fens) {
+            EngineAnalysis cached = evaluationCache.get(fen, minDepth);
+            if (cached != null) {
+                evaluations.put(fen, cached);
+            } else {
+                missing.add(fen);
+            }
+        }
+        if (!missing.isEmpty()) {
+            evaluations.putAll(findStored(missing, minDepth));
+        }
+        return evaluations;
+    }
+
+    /**
+     * Store an evaluation in memory now and queue it for the next database flush
+     */
+    public void put(String fen, EngineAnalysis analysis) {
+        if (analysis == null || analysis.getBestMove() == null) {
+            return;
+        }
+        evaluationCache.put(fen, analysis);
+        PositionEvaluation evaluation = toEntity(ZobristHash.hash(fen), analysis);
+        pendingWrites.merge(evaluation.getPosition_hash(), evaluation,
+                (existing, update) -> existing.getDepth() > update.getDepth() ? existing : update);
+    }
+
+    /**
+     * Write queued evaluations to the shared table in JDBC batches.
+     * A failed batch is dropped: the evaluations stay in memory and can be searched again.
+     */
+    @Scheduled(fixedDelayString = "${stockfish.store.flush-interval-ms:2000}")
+    public void flush() {
+        while (!pendingWrites.isEmpty()) {
+            List<PositionEvaluation> batch = new ArrayList<>(Math.min(batchSize, pendingWrites.size()));
+            Iterator<Long> keys = pendingWrites.keySet().iterator();
+            while (keys.hasNext() && batch.size() < batchSize) {
+                PositionEvaluation evaluation = pendingWrites.remove(keys.next());
+                if (evaluation != null) {
+                    batch.add(evaluation);
+                }
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+            try {
+                jdbcTemplate.batchUpdate(UPSERT_SQL, batch, batch.size(), (ps, evaluation) -> {
+                    ps.setLong(1, evaluation.getPosition_hash());
+                    ps.setInt(2, evaluation.getEvaluation_cp());
+                    ps.setObject(3, evaluation.getMate_in(), Types.INTEGER);
+                    ps.setString(4, evaluation.getBest_move());
+                    ps.setInt(5, evaluation.getDepth());
+                    ps.setString(6, evaluation.getPv());
+                    ps.setString(7, evaluation.getCandidate_lines());
+                    ps.setObject(8, evaluation.getUpdated_at());
+                });
+                logger.debug("Flushed {} position evaluations", batch.size());
+            } catch (DataAccessException e) {
+                logger.warn("Could not write {} position evaluations: {}", batch.size(), e.getMessage());
+                return;
+            }
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    public StoreStats getStats() {
+        return new StoreStats(evaluationCache.getStats(), storeHits.get(), storeMisses.get(), pendingWrites.size());
+    }
+
+    /**
+     * Snapshot of the memory tier counters and of the database tier counters
+     */
+    public record StoreStats(EvaluationCache.CacheStats memory, long storeHits, long storeMisses, int pendingWrites) {}
+
+    /**
+     * Look positions up in the shared table (or in this node's unflushed writes) and copy hits to memory
+     */
+    private Map<String, EngineAnalysis> findStored(List<String> fens, int minDepth) {
+        Map<Long, String> fenByKey = new HashMap<>();
+        for (String fen : fens) {
+            fenByKey.put(ZobristHash.hash(fen), fen);
+        }
+
+        Map<Long, PositionEvaluation> found = new HashMap<>();
+        List<Long> toQuery = new ArrayList<>();
+        for (Long key : fenByKey.keySet()) {
+            PositionEvaluation pending = pendingWrites.get(key);
+            if (pending != null) {
+                found.put(key, pending);
+            } else {
+                toQuery.add(key);
+            }
+        }
+        if (!toQuery.isEmpty()) {
+            try {
+                for (PositionEvaluation evaluation : positionEvaluationsRepository.findAllById(toQuery)) {
+                    found.put(evaluation.getPosition_hash(), evaluation);
+                }
+            } catch (DataAccessException e) {
+                // The store is an optimization: fall back to searching
+                logger.warn("Could not read position evaluations: {}", e.getMessage());
+            }
+        }
+
+        Map<String, EngineAnalysis> evaluations = new HashMap<>();
+        for (Map.Entry<Long, String> entry : fenByKey.entrySet()) {
+            PositionEvaluation evaluation = found.get(entry.getKey());
+            if (evaluation != null && evaluation.getDepth() >= minDepth) {
+                EngineAnalysis analysis = toAnalysis(evaluation);
+                evaluationCache.put(entry.getValue(), analysis);
+                evaluations.put(entry.getValue(), analysis);
+                storeHits.incrementAndGet();
+            } else {
+                storeMisses.incrementAndGet();
+            }
+        }
+        return evaluations;
+    }
+
+    /**
+     * MultiPV lines are stored as "score move move ...;score move ..." where a mate score is written "#N"
+     */
+    private static PositionEvaluation toEntity(long key, EngineAnalysis analysis) {
+        StringJoiner lines = new StringJoiner(";");
+        for (EngineLine line : analysis.getLines()) {
+            String score = line.isMate() ? "#" + line.getMateIn() : String.valueOf(line.getCentipawns());
+            lines.add(score + " " + String.join(" ", line.getPv()));
+        }
+        return new PositionEvaluation(key, analysis.getEvaluation(), analysis.getMateIn(), analysis.getBestMove(),
+                analysis.getDepth(), String.join(" ", analysis.getPrincipalVariation()), lines.toString());
+    }
+
+    private static EngineAnalysis toAnalysis(PositionEvaluation evaluation) {
+        EngineAnalysis analysis = new EngineAnalysis(evaluation.getBest_move(), evaluation.getEvaluation_cp(), evaluation.getDepth());
+        analysis.setMateIn(evaluation.getMate_in());
+        List<EngineLine> lines = new ArrayList<>();
+        String stored = evaluation.getCandidate_lines();
+        if (stored != null && !stored.isBlank()) {
+            for (String line : stored.split(";")) {
+                String[] tokens = line.trim().split(" ");
+                if (tokens.length < 2) {
+                    continue;
+                }
+                boolean mate = tokens[0].startsWith("#");
+                int score = Integer.parseInt(mate ? tokens[0].substring(1) : tokens[0]);
+                List<String> pv = List.of(Arrays.copyOfRange(tokens, 1, tokens.length));
+                lines.add(new EngineLine(lines.size() + 1, evaluation.getDepth(),
+                        mate ? null : score, mate ? score : null, pv));
+            }
+        }
+        analysis.setLines(lines);
+        return analysis;
+    }
+}
@@ -0,0 +1,8 @@
+package dandastino.chess.positionEvaluations;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface PositionEvaluationsRepository extends JpaRepository<PositionEvaluation, Long> {
+}
@@ -5,6 +5,7 @@ import com.cloudinary.utils.ObjectUtils;
 import dandastino.chess.exceptions.AlreadyExists;
 import dandastino.chess.exceptions.BadRequestException;
 import dandastino.chess.exceptions.NotFoundException;
+import dandastino.chess.playerStatistics.PlayerStatisticsService;
 import dandastino.chess.utility.Country;
 import jakarta.validation.ValidationException;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -32,6 +33,8 @@ public class UsersService {
     private Cloudinary imageUploader;
     @Autowired
     private PasswordEncoder bcrypt;
+    @Autowired
+    private PlayerStatisticsService playerStatisticsService;
 
     public List<User> getUsers() {
         return this.users_repo.findAll();
@@ -232,12 +235,13 @@ public class UsersService {
 
     public Object getUserStats(UUID userId) {
         User user = getUserById(userId);
-        // Returns basic stats object - can be extended with game statistics
+        // Profile fields plus the rolling game statistics, read from one pre-aggregated row
         return Map.of(
             "userId", user.getUser_id(),
             "username", user.getUsername(),
             "eloRating", user.getElo_rating(),
-            "createdAt", user.getCreated_at()
+            "createdAt", user.getCreated_at(),
+            "performance", playerStatisticsService.getStatistics(userId)
         );
     }
 
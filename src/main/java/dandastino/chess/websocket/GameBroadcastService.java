@@ -1,5 +1,6 @@
 package dandastino.chess.websocket;
 
+import dandastino.chess.engine.LiveEvaluationService;
 import dandastino.chess.moves.MoveResponseDTO;
 import dandastino.chess.games.GameResponseDTO;
 import dandastino.chess.games.Result;
@@ -23,6 +24,9 @@ public class GameBroadcastService {
     @Autowired
     private SimpMessagingTemplate messagingTemplate;
 
+    @Autowired
+    private LiveEvaluationService liveEvaluationService;
+
     /**
      * Broadcast a new move to all players in a game
      */
@@ -48,6 +52,11 @@ public class GameBroadcastService {
             );
             
             logger.info("Broadcasted move {} in game {}", moveDTO.sanMove(), gameId);
+
+            // Spectators get the evaluation of the new position on /topic/game/{id}/eval
+            if (!moveDTO.isCheckmate()) {
+                liveEvaluationService.requestEvaluation(moveDTO.gameId(), moveDTO.fenAfterMove());
+            }
         } catch (Exception e) {
             logger.error("Error broadcasting move", e);
         }
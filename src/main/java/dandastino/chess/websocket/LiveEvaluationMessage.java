@@ -0,0 +1,126 @@
+package dandastino.chess.websocket;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/**
+ * Engine evaluation of the current position of a game, pushed to /topic/game/{id}/eval.
+ * Scores are from White's point of view so clients can draw the evaluation bar directly.
+ */
+public class LiveEvaluationMessage {
+    @JsonProperty("game_id")
+    private String gameId;
+
+    @JsonProperty("fen")
+    private String fen;
+
+    @JsonProperty("evaluation_cp")
+    private Integer evaluationCp; // null when mate_in is set
+
+    @JsonProperty("mate_in")
+    private Integer mateIn; // positive when White mates
+
+    @JsonProperty("best_move")
+    private String bestMove;
+
+    @JsonProperty("pv")
+    private List<String> pv;
+
+    @JsonProperty("depth")
+    private int depth;
+
+    @JsonProperty("is_final")
+    private boolean isFinal; // false while the search is still deepening
+
+    @JsonProperty("timestamp")
+    private long timestamp;
+
+    public LiveEvaluationMessage() {}
+
+    public LiveEvaluationMessage(String gameId, String fen, Integer evaluationCp, Integer mateIn, String bestMove,
+                                 List<String> pv, int depth, boolean isFinal, long timestamp) {
+        this.gameId = gameId;
+        this.fen = fen;
+        this.evaluationCp = evaluationCp;
+        this.mateIn = mateIn;
+        this.bestMove = bestMove;
+        this.pv = pv;
+        this.depth = depth;
+        this.isFinal = isFinal;
+        this.timestamp = timestamp;
+    }
+
+    // Getters and Setters
+    public String getGameId() {
+        return gameId;
+    }
+
+    public void setGameId(String gameId) {
+        this.gameId = gameId;
+    }
+
+    public String getFen() {
+        return fen;
+    }
+
+    public void setFen(String fen) {
+        this.fen = fen;
+    }
+
+    public Integer getEvaluationCp() {
+        return evaluationCp;
+    }
+
+    public void setEvaluationCp(Integer evaluationCp) {
+        this.evaluationCp = evaluationCp;
+    }
+
+    public Integer getMateIn() {
+        return mateIn;
+    }
+
+    public void setMateIn(Integer mateIn) {
+        this.mateIn = mateIn;
+    }
+
+    public String getBestMove() {
+        return bestMove;
+    }
+
+    public void setBestMove(String bestMove) {
+        this.bestMove = bestMove;
+    }
+
+    public List<String> getPv() {
+        return pv;
+    }
+
+    public void setPv(List<String> pv) {
+        this.pv = pv;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public void setDepth(int depth) {
+        this.depth = depth;
+    }
+
+    public boolean isFinal() {
+        return isFinal;
+    }
+
+    public void setFinal(boolean isFinal) {
+        this.isFinal = isFinal;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(long timestamp) {
+        this.timestamp = timestamp;
+    }
+}
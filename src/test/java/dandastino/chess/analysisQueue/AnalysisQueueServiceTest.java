@@ -0,0 +1,120 @@
+package dandastino.chess.analysisQueue;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AnalysisQueueServiceTest {
+
+    private static final String NODE = "node-1";
+
+    private final RecordingJdbcTemplate jdbcTemplate = new RecordingJdbcTemplate();
+    private final AnalysisQueueService queue = new AnalysisQueueService();
+
+    AnalysisQueueServiceTest() {
+        ReflectionTestUtils.setField(queue, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(queue, "maxAttempts", 3);
+        ReflectionTestUtils.setField(queue, "retryBackoffMs", 5000L);
+    }
+
+    @Test
+    void claimTakesOnlyAvailableQueuedEntriesWithoutBlockingOtherNodes() {
+        assertNull(queue.claimNext(NODE, 60000));
+
+        String sql = jdbcTemplate.lastSql;
+        assertTrue(sql.contains("status = 'queued' AND available_at <= now()"));
+        assertTrue(sql.contains("FOR UPDATE SKIP LOCKED"));
+        assertTrue(sql.contains("attempts = attempts + 1"));
+        assertArrayEquals(new Object[]{NODE, 60000L}, jdbcTemplate.lastArgs);
+    }
+
+    @Test
+    void heartbeatReportsTheLeaseStateSeenByTheDatabase() {
+        UUID jobId = UUID.randomUUID();
+
+        jdbcTemplate.rows = List.of(false);
+        assertEquals(AnalysisQueueService.Heartbeat.OK, queue.heartbeat(jobId, NODE, 60000, 5, 40));
+        assertArrayEquals(new Object[]{60000L, 5, 40, jobId, NODE}, jdbcTemplate.lastArgs);
+        assertTrue(jdbcTemplate.lastSql.contains("WHERE job_id = ? AND lease_owner = ? AND status = 'running'"));
+
+        jdbcTemplate.rows = List.of(true);
+        assertEquals(AnalysisQueueService.Heartbeat.CANCEL_REQUESTED, queue.heartbeat(jobId, NODE, 60000, 6, 40));
+
+        // Another node took the entry over after our lease expired
+        jdbcTemplate.rows = List.of();
+        assertEquals(AnalysisQueueService.Heartbeat.LEASE_LOST, queue.heartbeat(jobId, NODE, 60000, 7, 40));
+    }
+
+    @Test
+    void retryBacksOffUntilTheAttemptsRunOut() {
+        UUID jobId = UUID.randomUUID();
+        String error = "x".repeat(2000);
+
+        queue.retryOrFail(jobId, NODE, error);
+
+        String sql = jdbcTemplate.lastSql;
+        assertTrue(sql.contains("WHEN attempts >= ? THEN 'failed' ELSE 'queued'"));
+        assertTrue(sql.contains("POWER(2, attempts - 1)"));
+        Object[] args = jdbcTemplate.lastArgs;
+        assertEquals(3, args[0]);
+        assertEquals(3, args[1]);
+        assertEquals(5000L, args[2]);
+        // Errors are cut to the column size
+        assertEquals(1024, ((String) args[3]).length());
+        assertEquals(jobId, args[4]);
+        assertEquals(NODE, args[5]);
+    }
+
+    @Test
+    void releasedLeasesDoNotSpendAnAttempt() {
+        queue.releaseLeases(NODE);
+
+        assertTrue(jdbcTemplate.lastSql.contains("attempts = GREATEST(attempts - 1, 0)"));
+        assertArrayEquals(new Object[]{NODE}, jdbcTemplate.lastArgs);
+    }
+
+    @Test
+    void queueTimestampsAreShownInTheLocalTimeZone() {
+        OffsetDateTime utc = OffsetDateTime.of(2026, 3, 1, 12, 0, 0, 0, ZoneOffset.UTC);
+
+        LocalDateTime local = AnalysisQueueService.toLocal(utc);
+
+        assertEquals(utc.toInstant(), local.atZone(ZoneId.systemDefault()).toInstant());
+        assertNull(AnalysisQueueService.toLocal(null));
+    }
+
+    /**
+     * Records the last statement instead of running it, and answers queries with canned rows
+     */
+    private static class RecordingJdbcTemplate extends JdbcTemplate {
+        private String lastSql;
+        private Object[] lastArgs;
+        private List<?> rows = List.of();
+
+        @Override
+        public int update(String sql, Object... args) {
+            lastSql = sql;
+            lastArgs = args;
+            return 1;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> List<T> query(String sql, RowMapper<T> rowMapper, Object... args) {
+            lastSql = sql;
+            lastArgs = args;
+            return new ArrayList<>((List<T>) rows);
+        }
+    }
+}
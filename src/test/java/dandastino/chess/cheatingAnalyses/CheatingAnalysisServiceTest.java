@@ -0,0 +1,129 @@
+package dandastino.chess.cheatingAnalyses;
+
+import dandastino.chess.exceptions.BadRequestException;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CheatingAnalysisServiceTest {
+
+    private static final UUID PLAYER = UUID.randomUUID();
+    private static final UUID OTHER_PLAYER = UUID.randomUUID();
+    // Postgres compares uuids byte by byte, i.e. as unsigned numbers
+    private static final Comparator<CheatingAnalysisResponseDTO> INDEX_ORDER =
+            Comparator.comparingDouble(CheatingAnalysisResponseDTO::suspicionScore)
+                    .thenComparing(CheatingAnalysisResponseDTO::cheatingAnalysisId, CheatingAnalysisServiceTest::compareUuids);
+
+    private final List<CheatingAnalysisResponseDTO> table = new ArrayList<>();
+    private final CheatingAnalysisService service = new CheatingAnalysisService();
+
+    CheatingAnalysisServiceTest() {
+        Random random = new Random(42);
+        for (int i = 0; i < 2500; i++) {
+            // Few distinct scores, so pages often end in the middle of a run of equal scores
+            double score = random.nextInt(20) / 20.0;
+            table.add(new CheatingAnalysisResponseDTO(new UUID(random.nextLong(), random.nextLong()), UUID.randomUUID(),
+                    i % 3 == 0 ? OTHER_PLAYER : PLAYER, score * 100, score, LocalDateTime.now()));
+        }
+        ReflectionTestUtils.setField(service, "jdbcTemplate", new KeysetJdbcTemplate(table));
+    }
+
+    @Test
+    void pagesVisitEveryMatchOnceMostSuspiciousFirst() {
+        List<CheatingAnalysisResponseDTO> visited = new ArrayList<>();
+        Double afterScore = null;
+        UUID afterId = null;
+        int pages = 0;
+        do {
+            SuspiciousGamesPageDTO page = service.getSuspiciousGames(PLAYER, 0.5, afterScore, afterId, 37);
+            assertTrue(page.analyses().size() <= 37);
+            visited.addAll(page.analyses());
+            afterScore = page.nextAfterScore();
+            afterId = page.nextAfterId();
+            pages++;
+        } while (afterId != null);
+
+        assertEquals(expected(PLAYER, 0.5), visited);
+        assertTrue(pages > 1);
+    }
+
+    @Test
+    void streamWalksEveryPlayerPastTheStreamPageSize() {
+        List<CheatingAnalysisResponseDTO> streamed = new ArrayList<>();
+
+        service.streamSuspiciousGames(null, 0.0, streamed::add);
+
+        assertEquals(expected(null, 0.0), streamed);
+        assertEquals(table.size(), streamed.size());
+    }
+
+    @Test
+    void lastPageHasNoCursor() {
+        SuspiciousGamesPageDTO page = service.getSuspiciousGames(PLAYER, 2.0, null, null, null);
+
+        assertTrue(page.analyses().isEmpty());
+        assertNull(page.nextAfterScore());
+        assertNull(page.nextAfterId());
+    }
+
+    @Test
+    void rejectsHalfACursorAndOutOfRangeLimits() {
+        assertThrows(BadRequestException.class, () -> service.getSuspiciousGames(PLAYER, 0.5, 0.7, null, 10));
+        assertThrows(BadRequestException.class, () -> service.getSuspiciousGames(PLAYER, 0.5, null, UUID.randomUUID(), 10));
+        assertThrows(BadRequestException.class, () -> service.getSuspiciousGames(PLAYER, 0.5, null, null, 0));
+        assertThrows(BadRequestException.class, () -> service.getSuspiciousGames(PLAYER, 0.5, null, null, 201));
+    }
+
+    private List<CheatingAnalysisResponseDTO> expected(UUID userId, double minScore) {
+        return table.stream()
+                .filter(row -> userId == null || row.userId().equals(userId))
+                .filter(row -> row.suspicionScore() >= minScore)
+                .sorted(INDEX_ORDER.reversed())
+                .toList();
+    }
+
+    private static int compareUuids(UUID a, UUID b) {
+        int high = Long.compareUnsigned(a.getMostSignificantBits(), b.getMostSignificantBits());
+        return high != 0 ? high : Long.compareUnsigned(a.getLeastSignificantBits(), b.getLeastSignificantBits());
+    }
+
+    /**
+     * Answers the keyset queries from an in-memory table the way the database would
+     */
+    private static class KeysetJdbcTemplate extends JdbcTemplate {
+        private final List<CheatingAnalysisResponseDTO> table;
+
+        KeysetJdbcTemplate(List<CheatingAnalysisResponseDTO> table) {
+            this.table = table;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> List<T> query(String sql, RowMapper<T> rowMapper, Object... args) {
+            boolean onePlayer = sql.contains("user_id = ?");
+            int i = 0;
+            UUID userId = onePlayer ? (UUID) args[i++] : null;
+            double minScore = (Double) args[i++];
+            CheatingAnalysisResponseDTO after = new CheatingAnalysisResponseDTO(
+                    (UUID) args[i + 1], null, null, 0, (Double) args[i], null);
+            int limit = (Integer) args[i + 2];
+            return (List<T>) table.stream()
+                    .filter(row -> userId == null || row.userId().equals(userId))
+                    .filter(row -> row.suspicionScore() >= minScore)
+                    .filter(row -> INDEX_ORDER.compare(row, after) < 0)
+                    .sorted(INDEX_ORDER.reversed())
+                    .limit(limit)
+                    .toList();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package dandastino.chess.cheatingAnalyses;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SideSignalsTest {
+
+    private static final double EPSILON = 1e-9;
+
+    @Test
+    void centipawnLossMatchesTwoPassStatistics() {
+        Random random = new Random(42);
+        int[] losses = new int[500];
+        SideSignals signals = new SideSignals();
+        for (int i = 0; i < losses.length; i++) {
+            losses[i] = random.nextInt(300);
+            signals.recordCentipawnLoss(losses[i]);
+        }
+
+        double mean = 0;
+        for (int loss : losses) {
+            mean += loss;
+        }
+        mean /= losses.length;
+        double squares = 0;
+        for (int loss : losses) {
+            squares += (loss - mean) * (loss - mean);
+        }
+
+        assertEquals(mean, signals.averageCentipawnLoss(), EPSILON);
+        assertEquals(Math.sqrt(squares / (losses.length - 1)), signals.centipawnLossStdDev(), EPSILON);
+    }
+
+    @Test
+    void centipawnLossIsClamped() {
+        SideSignals signals = new SideSignals();
+        signals.recordCentipawnLoss(-50);
+        signals.recordCentipawnLoss(5000);
+
+        assertEquals(500.0, signals.averageCentipawnLoss(), EPSILON);
+        assertEquals(Math.sqrt(500_000.0), signals.centipawnLossStdDev(), EPSILON);
+    }
+
+    @Test
+    void singleLossHasNoDeviation() {
+        SideSignals signals = new SideSignals();
+        assertEquals(0.0, signals.centipawnLossStdDev(), EPSILON);
+        signals.recordCentipawnLoss(80);
+        assertEquals(80.0, signals.averageCentipawnLoss(), EPSILON);
+        assertEquals(0.0, signals.centipawnLossStdDev(), EPSILON);
+    }
+
+    @Test
+    void timingCountsQuickLateMovesAndConsistency() {
+        // Late moves of 1 to 4 seconds: half are quick, and a deviation of about 1.1 s is too consistent
+        SideSignals consistent = new SideSignals();
+        for (int i = 1; i <= 4; i++) {
+            consistent.recordMove(SideSignals.OPENING_MOVES + i, i * 1000);
+        }
+        assertEquals(4, consistent.getMoves());
+        assertEquals(0.5 * 0.6 + 0.5 * 0.4, consistent.timingAnomaly(), EPSILON);
+
+        // Quick opening moves do not count, and widely spread times are human
+        SideSignals human = new SideSignals();
+        human.recordMove(1, 500);
+        human.recordMove(SideSignals.OPENING_MOVES + 1, 10_000);
+        human.recordMove(SideSignals.OPENING_MOVES + 2, 30_000);
+        assertEquals(0.0, human.timingAnomaly(), EPSILON);
+
+        assertEquals(0.0, new SideSignals().timingAnomaly(), EPSILON);
+    }
+
+    @Test
+    void engineMetricsSeparateTheOpening() {
+        SideSignals signals = new SideSignals();
+        for (int moveNumber = 1; moveNumber <= 2 * SideSignals.OPENING_MOVES; moveNumber++) {
+            // Every opening move matches, half of the later ones do
+            signals.recordEngineCheck(moveNumber, moveNumber <= SideSignals.OPENING_MOVES || moveNumber % 2 == 0);
+        }
+
+        assertEquals(2 * SideSignals.OPENING_MOVES, signals.getEngineChecked());
+        assertEquals(0.75, signals.engineAccuracy(), EPSILON);
+        assertEquals(0.5 * 1.2, signals.moveComplexity(), EPSILON);
+        assertEquals(0.75 * 0.4 + 0.6 * 0.15, signals.suspicionScore(), EPSILON);
+    }
+
+    @Test
+    void copyIsIndependent() {
+        SideSignals signals = new SideSignals();
+        signals.recordMove(1, 1000);
+        signals.recordEngineCheck(1, true);
+        signals.recordCentipawnLoss(20);
+
+        SideSignals copy = signals.copy();
+        signals.recordMove(2, 2000);
+        signals.recordEngineCheck(1, false);
+        signals.recordCentipawnLoss(40);
+
+        assertEquals(1, copy.getMoves());
+        assertEquals(1, copy.getEngineChecked());
+        assertEquals(1.0, copy.engineAccuracy(), EPSILON);
+        assertEquals(20.0, copy.averageCentipawnLoss(), EPSILON);
+        assertEquals(2, signals.getMoves());
+        assertEquals(30.0, signals.averageCentipawnLoss(), EPSILON);
+    }
+}
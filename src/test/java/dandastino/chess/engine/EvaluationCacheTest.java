@@ -0,0 +1,63 @@
+package dandastino.chess.engine;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EvaluationCacheTest {
+
+    private static final String START = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+    private static final String AFTER_E4 = "rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq - 0 1";
+    private static final String AFTER_D4 = "rnbqkbnr/pppppppp/8/8/3P4/8/PPP1PPPP/RNBQKBNR b KQkq - 0 1";
+
+    @Test
+    void evictsTheLeastRecentlyUsedPosition() {
+        EvaluationCache cache = new EvaluationCache(2);
+        cache.put(START, new EngineAnalysis("e2e4", 30, 18));
+        cache.put(AFTER_E4, new EngineAnalysis("e7e5", -25, 18));
+        // Reading the start position makes the position after 1.e4 the eldest entry
+        assertNotNull(cache.get(START, 18));
+
+        cache.put(AFTER_D4, new EngineAnalysis("d7d5", -20, 18));
+
+        assertNotNull(cache.get(START, 18));
+        assertNull(cache.get(AFTER_E4, 18));
+        assertNotNull(cache.get(AFTER_D4, 18));
+        EvaluationCache.CacheStats stats = cache.getStats();
+        assertEquals(2, stats.size());
+        assertEquals(1, stats.evictions());
+        assertEquals(3, stats.hits());
+        assertEquals(1, stats.misses());
+    }
+
+    @Test
+    void keepsTheDeeperSearch() {
+        EvaluationCache cache = new EvaluationCache(10);
+        cache.put(START, new EngineAnalysis("e2e4", 30, 20));
+        cache.put(START, new EngineAnalysis("d2d4", 10, 12));
+
+        assertEquals("e2e4", cache.get(START, 20).getBestMove());
+
+        cache.put(START, new EngineAnalysis("c2c4", 25, 22));
+        assertEquals("c2c4", cache.get(START, 20).getBestMove());
+    }
+
+    @Test
+    void missesShallowerSearchesAndMoveCountersDoNotMatter() {
+        EvaluationCache cache = new EvaluationCache(10);
+        cache.put(START, new EngineAnalysis("e2e4", 30, 12));
+
+        assertNull(cache.get(START, 18));
+        assertNotNull(cache.get("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 4 3", 12));
+    }
+
+    @Test
+    void ignoresSearchesWithoutABestMove() {
+        EvaluationCache cache = new EvaluationCache(10);
+        cache.put(START, new EngineAnalysis(null, 0, 30));
+        cache.put(START, null);
+
+        assertNull(cache.get(START, 0));
+        assertEquals(0, cache.getStats().size());
+    }
+}
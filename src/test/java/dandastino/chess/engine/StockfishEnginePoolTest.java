@@ -0,0 +1,125 @@
+package dandastino.chess.engine;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StockfishEnginePoolTest {
+
+    private static final String START = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    private StockfishEnginePool pool;
+
+    @AfterEach
+    void shutdown() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    private StockfishEnginePool startPool(int size) throws Exception {
+        pool = new StockfishEnginePool();
+        // Slow iterations and no depth cap, so a timed search is still running when it is preempted
+        ReflectionTestUtils.setField(pool, "stockfishPath", "fake:ms-per-depth=20,max-depth=10000");
+        ReflectionTestUtils.setField(pool, "poolSize", size);
+        ReflectionTestUtils.setField(pool, "threadsPerEngine", 1);
+        ReflectionTestUtils.setField(pool, "hashMb", 16);
+        ReflectionTestUtils.setField(pool, "borrowTimeoutMs", 1000L);
+        pool.start();
+        return pool;
+    }
+
+    @Test
+    void borrowedEnginesAreExclusiveUntilReleased() throws Exception {
+        startPool(2);
+        StockfishEngine first = pool.borrow();
+        StockfishEngine second = pool.borrow();
+
+        assertNotSame(first, second);
+        assertNull(pool.tryBorrow());
+        assertThrows(IllegalStateException.class, () -> pool.borrow(50));
+
+        pool.release(second);
+        assertEquals(1, pool.getIdleCount());
+        assertSame(second, pool.tryBorrow());
+        pool.release(first);
+        pool.release(second);
+        assertEquals(2, pool.getIdleCount());
+    }
+
+    @Test
+    void interactiveBorrowPreemptsABatchSearch() throws Exception {
+        startPool(1);
+        StockfishEngine batchEngine = pool.borrow();
+        CompletableFuture<Boolean> batchSearch = CompletableFuture.supplyAsync(() -> {
+            try {
+                batchEngine.analyzeWithTimeLimit(START, 30000);
+                return false;
+            } catch (SearchCancelledException e) {
+                return e.isPreempted();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            } finally {
+                pool.release(batchEngine);
+            }
+        });
+
+        StockfishEngine interactiveEngine = pool.borrow(SearchPriority.INTERACTIVE, 5000);
+
+        assertSame(batchEngine, interactiveEngine);
+        assertTrue(batchSearch.get(5, TimeUnit.SECONDS));
+        // The stop request went to the batch search only: the interactive caller searches normally
+        assertNotNull(interactiveEngine.analyze(START, 2).getBestMove());
+        pool.release(interactiveEngine);
+    }
+
+    @Test
+    void failedEngineStaysOutUntilReplaced() throws Exception {
+        startPool(1);
+        StockfishEngine failed = pool.borrow();
+        failed.quit();
+        pool.release(failed);
+
+        assertEquals(0, pool.getIdleCount());
+        assertEquals(1, pool.getFailedEngines().size());
+        assertNull(pool.tryBorrow());
+
+        StockfishEngine replacement = pool.replaceEngine(failed);
+
+        assertNotNull(replacement);
+        assertTrue(pool.getFailedEngines().isEmpty());
+        assertFalse(pool.getEngines().contains(failed));
+        assertSame(replacement, pool.tryBorrow());
+        // Already replaced: nothing left to do
+        assertNull(pool.replaceEngine(failed));
+        pool.release(replacement);
+    }
+
+    @Test
+    void shutdownFailsWaitingBorrowers() throws Exception {
+        startPool(1);
+        StockfishEngine engine = pool.borrow();
+        CompletableFuture<Throwable> waiter = CompletableFuture.supplyAsync(() -> {
+            try {
+                pool.borrow(30000);
+                return null;
+            } catch (Throwable e) {
+                return e;
+            }
+        });
+        // Let the waiter start waiting on the pool
+        Thread.sleep(100);
+
+        pool.shutdown();
+
+        assertInstanceOf(IllegalStateException.class, waiter.get(5, TimeUnit.SECONDS));
+        assertFalse(pool.isRunning());
+        assertNull(pool.replaceEngine(engine));
+        pool = null;
+    }
+}
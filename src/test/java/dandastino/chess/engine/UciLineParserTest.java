@@ -0,0 +1,75 @@
+package dandastino.chess.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UciLineParserTest {
+
+    @Test
+    void parsesInfoLines() {
+        UciEvent event = UciLineParser.parse(
+                "info depth 18 seldepth 24 multipv 2 score cp -35 nodes 1234567 nps 987654 hashfull 120 tbhits 0 time 1250 pv e7e5 g1f3 b8c6");
+
+        assertEquals(UciEvent.Type.INFO, event.getType());
+        assertEquals(18, event.getDepth());
+        assertEquals(24, event.getSelDepth());
+        assertEquals(2, event.getMultiPv());
+        assertTrue(event.hasScore());
+        assertFalse(event.isMate());
+        assertEquals(-35, event.getScore());
+        assertEquals(1234567L, event.getNodes());
+        assertEquals(987654L, event.getNps());
+        assertEquals(120, event.getHashfull());
+        assertEquals(List.of("e7e5", "g1f3", "b8c6"), event.getPv());
+        assertNotNull(event.toLine());
+    }
+
+    @Test
+    void parsesMateAndBoundScores() {
+        UciEvent mate = UciLineParser.parse("info depth 30 score mate -3 pv d8h4");
+        assertTrue(mate.isMate());
+        assertEquals(-3, mate.getScore());
+
+        UciEvent bound = UciLineParser.parse("info depth 12 score cp 40 lowerbound nodes 100 pv e2e4");
+        assertTrue(bound.isBound());
+        assertEquals(100L, bound.getNodes());
+        // Not final for the depth, so not a line
+        assertNull(bound.toLine());
+    }
+
+    @Test
+    void toleratesExtraSpacesAndStopsAtFreeText() {
+        UciEvent event = UciLineParser.parse("  info  depth 5   score  cp 12  pv  e2e4   e7e5 ");
+        assertEquals(5, event.getDepth());
+        assertEquals(12, event.getScore());
+        assertEquals(List.of("e2e4", "e7e5"), event.getPv());
+
+        UciEvent text = UciLineParser.parse("info string depth 9 pv a2a4");
+        assertEquals(0, text.getDepth());
+        assertNull(text.getPv());
+    }
+
+    @Test
+    void treatsMalformedNumbersAsZero() {
+        UciEvent event = UciLineParser.parse("info depth x nodes 99999999999999999999 score cp");
+        assertEquals(0, event.getDepth());
+        assertEquals(0L, event.getNodes());
+        assertNull(event.toLine());
+    }
+
+    @Test
+    void parsesBestMoveAndHandshakes() {
+        UciEvent best = UciLineParser.parse("bestmove e7e8q ponder a2a3");
+        assertEquals(UciEvent.Type.BESTMOVE, best.getType());
+        assertEquals("e7e8q", best.getBestMove());
+
+        assertNull(UciLineParser.parse("bestmove (none)").getBestMove());
+        assertSame(UciEvent.READY_OK, UciLineParser.parse("readyok"));
+        assertSame(UciEvent.UCI_OK, UciLineParser.parse("uciok"));
+        assertSame(UciEvent.OTHER, UciLineParser.parse("id name Stockfish 17"));
+        assertSame(UciEvent.OTHER, UciLineParser.parse(""));
+    }
+}
@@ -0,0 +1,91 @@
+package dandastino.chess.gameLogic;
+
+import dandastino.chess.moves.Move;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChessEngineSanTest {
+
+    private static final String STARTING_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    @Test
+    void findsCastlingWrittenWithLettersOrZeros() {
+        ChessEngine engine = new ChessEngine("r3k2r/8/8/8/8/8/8/R3K2R w KQkq - 0 1");
+
+        assertMove("e1", "g1", engine.findSanMove("O-O"));
+        assertMove("e1", "g1", engine.findSanMove("0-0"));
+        assertMove("e1", "c1", engine.findSanMove("O-O-O"));
+        assertMove("e1", "c1", engine.findSanMove("0-0-0+"));
+    }
+
+    @Test
+    void rejectsCastlingWithoutTheRight() {
+        ChessEngine engine = new ChessEngine("r3k2r/8/8/8/8/8/8/R3K2R w Qkq - 0 1");
+
+        assertNull(engine.findSanMove("O-O"));
+        assertNotNull(engine.findSanMove("O-O-O"));
+    }
+
+    @Test
+    void ignoresThePromotionSuffix() {
+        ChessEngine engine = new ChessEngine("8/P7/8/8/8/8/8/k6K w - - 0 1");
+
+        assertMove("a7", "a8", engine.findSanMove("a8=Q"));
+        assertMove("a7", "a8", engine.findSanMove("a8Q"));
+        assertMove("a7", "a8", engine.findSanMove("a8=N+"));
+    }
+
+    @Test
+    void disambiguatesByFileOrRank() {
+        ChessEngine knights = new ChessEngine("4k3/8/8/8/8/8/8/1N2KN2 w - - 0 1");
+        assertMove("b1", "d2", knights.findSanMove("Nbd2"));
+        assertMove("f1", "d2", knights.findSanMove("Nfd2"));
+        assertMove("f1", "d2", knights.findSanMove("Nf1d2"));
+
+        ChessEngine rooks = new ChessEngine("4k3/8/8/R7/8/8/8/R3K3 w - - 0 1");
+        assertMove("a1", "a3", rooks.findSanMove("R1a3"));
+        assertMove("a5", "a3", rooks.findSanMove("R5a3"));
+    }
+
+    @Test
+    void rejectsAmbiguousMovesWithoutChangingTheBoard() {
+        ChessEngine engine = new ChessEngine("4k3/8/8/8/8/8/8/1N2KN2 w - - 0 1");
+        String before = engine.generateNewFen();
+
+        assertNull(engine.findSanMove("Nd2"));
+        assertFalse(engine.makeSanMove("Nd2"));
+        assertEquals(before, engine.generateNewFen());
+    }
+
+    @Test
+    void rejectsIllegalMoves() {
+        ChessEngine engine = new ChessEngine(STARTING_FEN);
+
+        assertNull(engine.findSanMove("e5"));
+        assertNull(engine.findSanMove("Nd2"));
+        assertNull(engine.findSanMove("x"));
+        assertNull(engine.findSanMove(null));
+        // The e2 pawn can capture, unless it is pinned to the king by the rook on e8
+        assertNotNull(new ChessEngine("4r1k1/8/8/8/8/3p4/4P3/3K4 w - - 0 1").findSanMove("exd3"));
+        assertNull(new ChessEngine("4r1k1/8/8/8/8/3p4/4P3/4K3 w - - 0 1").findSanMove("exd3"));
+    }
+
+    @Test
+    void playsALineWithCapturesAndAnnotations() {
+        ChessEngine engine = new ChessEngine(STARTING_FEN);
+
+        for (String san : new String[]{"e4", "d5", "exd5", "Qxd5", "Nc3", "Qa5!?", "d4", "Nf6", "Nf3", "Bf5", "Bc4", "e6", "O-O"}) {
+            assertTrue(engine.makeSanMove(san), san);
+        }
+        String[] fen = engine.generateNewFen().split(" ");
+        assertEquals("rn2kb1r/ppp2ppp/4pn2/q4b2/2BP4/2N2N2/PPP2PPP/R1BQ1RK1", fen[0]);
+        assertEquals("b", fen[1]);
+    }
+
+    private static void assertMove(String from, String to, Move move) {
+        assertNotNull(move, from + "-" + to);
+        assertEquals(from, BoardUtils.toChessNotation(move.getStartRow(), move.getStartCol()));
+        assertEquals(to, BoardUtils.toChessNotation(move.getEndRow(), move.getEndCol()));
+    }
+}
@@ -0,0 +1,53 @@
+package dandastino.chess.gameLogic;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ZobristHashTest {
+
+    private static final String STARTING_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    @Test
+    void ignoresMoveCounters() {
+        assertEquals(ZobristHash.hash(STARTING_FEN),
+                ZobristHash.hash("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 12 40"));
+        assertEquals(ZobristHash.hash(STARTING_FEN), ZobristHash.hash("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq -"));
+    }
+
+    @Test
+    void distinguishesSideToMoveAndCastlingRights() {
+        assertNotEquals(ZobristHash.hash(STARTING_FEN),
+                ZobristHash.hash("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR b KQkq - 0 1"));
+        assertNotEquals(ZobristHash.hash(STARTING_FEN),
+                ZobristHash.hash("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w Kkq - 0 1"));
+    }
+
+    @Test
+    void ignoresAnEnPassantSquareNoPawnCanUse() {
+        String afterE4 = "rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1";
+        String withoutSquare = "rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq - 0 1";
+
+        assertEquals(ZobristHash.hash(withoutSquare), ZobristHash.hash(afterE4));
+    }
+
+    @Test
+    void keepsAnEnPassantSquareAPawnCanUse() {
+        // White pawn on e5 next to the black pawn that just moved to f5
+        String afterF5 = "rnbqkbnr/ppppp1pp/8/4Pp2/8/8/PPPP1PPP/RNBQKBNR w KQkq f6 0 3";
+        String withoutSquare = "rnbqkbnr/ppppp1pp/8/4Pp2/8/8/PPPP1PPP/RNBQKBNR w KQkq - 0 3";
+        // Black pawn on d4 next to the white pawn that just moved to c4
+        String afterC4 = "rnbqkbnr/ppp1pppp/8/8/2Pp4/8/PP1PPPPP/RNBQKBNR b KQkq c3 0 3";
+        String withoutBlackSquare = "rnbqkbnr/ppp1pppp/8/8/2Pp4/8/PP1PPPPP/RNBQKBNR b KQkq - 0 3";
+
+        assertNotEquals(ZobristHash.hash(withoutSquare), ZobristHash.hash(afterF5));
+        assertNotEquals(ZobristHash.hash(withoutBlackSquare), ZobristHash.hash(afterC4));
+    }
+
+    @Test
+    void rejectsInvalidFen() {
+        assertThrows(IllegalArgumentException.class, () -> ZobristHash.hash(null));
+        assertThrows(IllegalArgumentException.class, () -> ZobristHash.hash("8/8/8/8/8/8/8/8"));
+        assertThrows(IllegalArgumentException.class, () -> ZobristHash.hash("8/8/8/8/8/8/8/7X w - - 0 1"));
+    }
+}
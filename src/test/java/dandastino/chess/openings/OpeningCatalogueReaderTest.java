@@ -0,0 +1,85 @@
+package dandastino.chess.openings;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OpeningCatalogueReaderTest {
+
+    @Test
+    void sanMovesDropsMoveNumbersCommentsVariationsAndResults() {
+        assertEquals("e4 e5 Nf3 Nc6 Bb5",
+                OpeningCatalogueReader.sanMoves("1. e4 e5 2.Nf3 {the main line} Nc6 (2... d6 3. d4) 3. Bb5 $1 1-0"));
+        assertEquals("e4 c5 Nf3", OpeningCatalogueReader.sanMoves("1.e4 c5 (1...e5 (1...e6) 2.Nf3) 2.Nf3 *"));
+        assertEquals("d4 d5", OpeningCatalogueReader.sanMoves("  1. d4\td5\n 1/2-1/2 "));
+    }
+
+    @Test
+    void sanMovesKeepsCastlingAndStripsMarkers() {
+        assertEquals("O-O 0-0-0 Qxf7 e8=Q", OpeningCatalogueReader.sanMoves("10. O-O 0-0-0 11. Qxf7+! e8=Q#"));
+        assertEquals("", OpeningCatalogueReader.sanMoves("1. 2... 0-1"));
+    }
+
+    @Test
+    void readsTsvWithoutHeader() {
+        List<OpeningCatalogueReader.Line> lines = read(false, """
+                # comment
+                C50\tItalian Game\t1. e4 e5 2. Nf3 Nc6 3. Bc4
+
+                B20\tSicilian Defense\t1. e4 c5
+                """);
+
+        assertEquals(2, lines.size());
+        assertEquals(new OpeningCatalogueReader.Line("C50", "Italian Game", "e4 e5 Nf3 Nc6 Bc4"), lines.get(0));
+        assertEquals(new OpeningCatalogueReader.Line("B20", "Sicilian Defense", "e4 c5"), lines.get(1));
+    }
+
+    @Test
+    void readsTsvColumnsInHeaderOrder() {
+        List<OpeningCatalogueReader.Line> lines = read(false, """
+                name\tpgn\teco
+                Queen's Gambit\t1. d4 d5 2. c4\tD06
+                Incomplete row
+                """);
+
+        assertEquals(2, lines.size());
+        assertEquals(new OpeningCatalogueReader.Line("D06", "Queen's Gambit", "d4 d5 c4"), lines.get(0));
+        // Kept with no moves so the import counts it as invalid
+        assertNull(lines.get(1).moves());
+    }
+
+    @Test
+    void readsPgnGamesNamedByTheirTags() {
+        List<OpeningCatalogueReader.Line> lines = read(true, """
+                [Event "?"]
+                [ECO "C60"]
+                [Opening "Ruy Lopez"]
+
+                1. e4 e5 2. Nf3 Nc6
+                3. Bb5 *
+
+                [ECO "B01"]
+                [Opening "Scandinavian Defense"]
+                [Variation "Mieses-Kotroc Variation"]
+
+                1. e4 d5 2. exd5 Qxd5 *
+                """);
+
+        assertEquals(2, lines.size());
+        assertEquals(new OpeningCatalogueReader.Line("C60", "Ruy Lopez", "e4 e5 Nf3 Nc6 Bb5"), lines.get(0));
+        assertEquals(new OpeningCatalogueReader.Line("B01", "Scandinavian Defense: Mieses-Kotroc Variation",
+                "e4 d5 exd5 Qxd5"), lines.get(1));
+    }
+
+    private static List<OpeningCatalogueReader.Line> read(boolean pgn, String text) {
+        OpeningCatalogueReader reader = new OpeningCatalogueReader(new BufferedReader(new StringReader(text)), pgn);
+        List<OpeningCatalogueReader.Line> lines = new ArrayList<>();
+        reader.forEachRemaining(lines::add);
+        return lines;
+    }
+}
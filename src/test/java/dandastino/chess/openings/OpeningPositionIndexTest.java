@@ -0,0 +1,27 @@
+package dandastino.chess.openings;
+
+import dandastino.chess.gameLogic.ZobristHash;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OpeningPositionIndexTest {
+
+    @Test
+    void transpositionsShareAKey() {
+        String queensPawn = OpeningPositionIndex.replay("1. d4 d5 2. Nf3");
+        String reti = OpeningPositionIndex.replay("1. Nf3 d5 2. d4");
+
+        assertNotNull(queensPawn);
+        assertNotNull(reti);
+        assertEquals(ZobristHash.hash(queensPawn), ZobristHash.hash(reti));
+    }
+
+    @Test
+    void replayRejectsEmptyAndIllegalLines() {
+        assertNull(OpeningPositionIndex.replay(null));
+        assertNull(OpeningPositionIndex.replay(" "));
+        assertNull(OpeningPositionIndex.replay("1."));
+        assertNull(OpeningPositionIndex.replay("1. e4 e4"));
+    }
+}
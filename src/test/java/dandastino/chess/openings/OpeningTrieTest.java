@@ -0,0 +1,42 @@
+package dandastino.chess.openings;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OpeningTrieTest {
+
+    @Test
+    void normalizeStripsMoveNumbersAndMarkers() {
+        assertEquals("e4", OpeningTrie.normalize("1.e4"));
+        assertEquals("Nf6", OpeningTrie.normalize("12...Nf6+"));
+        assertEquals("Qxf7", OpeningTrie.normalize("Qxf7#"));
+        assertEquals("Bb5", OpeningTrie.normalize("Bb5!?"));
+        assertEquals("e8=Q", OpeningTrie.normalize("e8=Q+"));
+        assertEquals("", OpeningTrie.normalize("1."));
+        assertEquals("", OpeningTrie.normalize("3..."));
+        assertEquals("", OpeningTrie.normalize(null));
+    }
+
+    @Test
+    void normalizeKeepsCastlingWrittenWithZeros() {
+        assertEquals("0-0", OpeningTrie.normalize("0-0"));
+        assertEquals("0-0-0", OpeningTrie.normalize("0-0-0+"));
+        assertEquals("O-O", OpeningTrie.normalize("O-O"));
+    }
+
+    @Test
+    void walkFindsTheDeepestNamedLine() {
+        Opening kingsPawn = new Opening("King's Pawn", "B00", null, "1. e4");
+        Opening italian = new Opening("Italian Game", "C50", null, "1. e4 e5 2. Nf3 Nc6 3. Bc4");
+        OpeningTrie trie = new OpeningTrie(List.of(kingsPawn, italian));
+
+        OpeningTrie.Match match = trie.walk(List.of("e4", "e5", "Nf3+", "Nc6", "Bb5"));
+
+        assertSame(kingsPawn, match.opening());
+        assertEquals(1, match.openingPlies());
+        assertEquals(4, match.bookPlies());
+    }
+}
@@ -0,0 +1,197 @@
+package dandastino.chess.playerStatistics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PlayerStatisticsServiceTest {
+
+    private static final double EPSILON = 1e-9;
+
+    @Test
+    void mergedAccumulatorEqualsOnePassOverAllSamples() {
+        double[] stored = {1200, 800, 4500, 3000, 2500};
+        double[] incoming = {15000, 700, 900};
+
+        Map<String, Double> merged = merge(welford(stored), welford(incoming));
+        double[] all = {1200, 800, 4500, 3000, 2500, 15000, 700, 900};
+        double[] expected = welford(all);
+
+        assertEquals(expected[1], merged.get("mean"), EPSILON);
+        assertEquals(expected[2], merged.get("m2"), 1e-6);
+    }
+
+    @Test
+    void mergingIntoAnEmptyRowKeepsTheIncomingAccumulator() {
+        double[] incoming = welford(new double[]{40, 10, 25});
+
+        Map<String, Double> merged = merge(new double[]{0, 0, 0}, incoming);
+
+        assertEquals(incoming[1], merged.get("mean"), EPSILON);
+        assertEquals(incoming[2], merged.get("m2"), EPSILON);
+    }
+
+    @Test
+    void mergingTwoEmptyAccumulatorsDoesNotDivideByZero() {
+        Map<String, Double> merged = merge(new double[]{0, 0, 0}, new double[]{0, 0, 0});
+
+        assertEquals(0.0, merged.get("mean"), EPSILON);
+        assertEquals(0.0, merged.get("m2"), EPSILON);
+    }
+
+    @Test
+    void bucketsAreUpperBoundExclusive() {
+        assertEquals(0, PlayerStatisticsService.bucket(PlayerStatisticsService.CPL_BUCKETS, 0));
+        assertEquals(0, PlayerStatisticsService.bucket(PlayerStatisticsService.CPL_BUCKETS, 9));
+        assertEquals(1, PlayerStatisticsService.bucket(PlayerStatisticsService.CPL_BUCKETS, 10));
+        assertEquals(PlayerStatisticsService.CPL_BUCKETS.length,
+                PlayerStatisticsService.bucket(PlayerStatisticsService.CPL_BUCKETS, 300));
+        assertEquals(PlayerStatisticsService.MOVE_TIME_BUCKETS_MS.length,
+                PlayerStatisticsService.bucket(PlayerStatisticsService.MOVE_TIME_BUCKETS_MS, 600000));
+    }
+
+    /**
+     * Count, mean and sum of squared deviations of the samples
+     */
+    private static double[] welford(double[] samples) {
+        double count = 0;
+        double mean = 0;
+        double m2 = 0;
+        for (double sample : samples) {
+            count++;
+            double delta = sample - mean;
+            mean += delta / count;
+            m2 += delta * (sample - mean);
+        }
+        return new double[]{count, mean, m2};
+    }
+
+    /**
+     * Evaluate the SET clauses of the upsert for a stored row s and an incoming row EXCLUDED
+     */
+    private static Map<String, Double> merge(double[] stored, double[] incoming) {
+        Map<String, Double> columns = new HashMap<>();
+        columns.put("s.count", stored[0]);
+        columns.put("s.mean", stored[1]);
+        columns.put("s.m2", stored[2]);
+        columns.put("EXCLUDED.count", incoming[0]);
+        columns.put("EXCLUDED.mean", incoming[1]);
+        columns.put("EXCLUDED.m2", incoming[2]);
+        return new SetClauseEvaluator(PlayerStatisticsService.mergeWelford("count", "mean", "m2"), columns).evaluate();
+    }
+
+    /**
+     * Recursive-descent evaluator for the arithmetic the merge uses: column = expression, ...
+     * with + - * /, parentheses, GREATEST and POWER
+     */
+    private static class SetClauseEvaluator {
+        private final String sql;
+        private final Map<String, Double> columns;
+        private int pos;
+
+        SetClauseEvaluator(String sql, Map<String, Double> columns) {
+            this.sql = sql;
+            this.columns = columns;
+        }
+
+        Map<String, Double> evaluate() {
+            Map<String, Double> assignments = new LinkedHashMap<>();
+            do {
+                String column = identifier();
+                expect('=');
+                assignments.put(column, expression());
+            } while (accept(','));
+            skipSpaces();
+            assertEquals(sql.length(), pos, "unparsed SQL: " + sql.substring(pos));
+            return assignments;
+        }
+
+        private double expression() {
+            double value = term();
+            while (true) {
+                if (accept('+')) {
+                    value += term();
+                } else if (accept('-')) {
+                    value -= term();
+                } else {
+                    return value;
+                }
+            }
+        }
+
+        private double term() {
+            double value = factor();
+            while (true) {
+                if (accept('*')) {
+                    value *= factor();
+                } else if (accept('/')) {
+                    value /= factor();
+                } else {
+                    return value;
+                }
+            }
+        }
+
+        private double factor() {
+            skipSpaces();
+            if (accept('(')) {
+                double value = expression();
+                expect(')');
+                return value;
+            }
+            if (Character.isDigit(sql.charAt(pos))) {
+                int start = pos;
+                while (pos < sql.length() && (Character.isDigit(sql.charAt(pos)) || sql.charAt(pos) == '.')) {
+                    pos++;
+                }
+                return Double.parseDouble(sql.substring(start, pos));
+            }
+            String name = identifier();
+            if (name.equals("GREATEST") || name.equals("POWER")) {
+                expect('(');
+                double first = expression();
+                expect(',');
+                double second = expression();
+                expect(')');
+                return name.equals("GREATEST") ? Math.max(first, second) : Math.pow(first, second);
+            }
+            Double value = columns.get(name);
+            assertNotNull(value, "unknown column " + name);
+            return value;
+        }
+
+        private String identifier() {
+            skipSpaces();
+            int start = pos;
+            while (pos < sql.length() && (Character.isLetterOrDigit(sql.charAt(pos))
+                    || sql.charAt(pos) == '_' || sql.charAt(pos) == '.')) {
+                pos++;
+            }
+            assertTrue(pos > start, "identifier expected at " + start + ": " + sql);
+            return sql.substring(start, pos);
+        }
+
+        private boolean accept(char c) {
+            skipSpaces();
+            if (pos < sql.length() && sql.charAt(pos) == c) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(char c) {
+            assertTrue(accept(c), "'" + c + "' expected at " + pos + ": " + sql);
+        }
+
+        private void skipSpaces() {
+            while (pos < sql.length() && sql.charAt(pos) == ' ') {
+                pos++;
+            }
+        }
+    }
+}